@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Base class of {@link PropertyReader} implementations which read values with key handles
+ * in the same way as with key strings. Readers written against the original interface, which
+ * had no string sets, report string sets as not supported.
+ */
+public abstract class AbstractPropertyReader implements PropertyReader {
+    @Override
+    public Set<String> getStringSet(@Nonnull String key, Set<String> defaultValue)
+            throws PropertyAccessException {
+        throw new PropertyAccessException("String sets are not supported");
+    }
+
+    @Override
+    public boolean contains(@Nonnull PropertyKey key) {
+        Preconditions.checkNotNull(key, "key must not be null");
+        return contains(key.getName());
+    }
+
+    @Override
+    public int getInt(@Nonnull PropertyKey key, int defaultValue) throws PropertyAccessException {
+        Preconditions.checkNotNull(key, "key must not be null");
+        return getInt(key.getName(), defaultValue);
+    }
+
+    @Override
+    public long getLong(@Nonnull PropertyKey key, long defaultValue)
+            throws PropertyAccessException {
+        Preconditions.checkNotNull(key, "key must not be null");
+        return getLong(key.getName(), defaultValue);
+    }
+
+    @Override
+    public float getFloat(@Nonnull PropertyKey key, float defaultValue)
+            throws PropertyAccessException {
+        Preconditions.checkNotNull(key, "key must not be null");
+        return getFloat(key.getName(), defaultValue);
+    }
+
+    @Override
+    public double getDouble(@Nonnull PropertyKey key, double defaultValue)
+            throws PropertyAccessException {
+        Preconditions.checkNotNull(key, "key must not be null");
+        return getDouble(key.getName(), defaultValue);
+    }
+
+    @Override
+    public boolean getBoolean(@Nonnull PropertyKey key, boolean defaultValue)
+            throws PropertyAccessException {
+        Preconditions.checkNotNull(key, "key must not be null");
+        return getBoolean(key.getName(), defaultValue);
+    }
+
+    @Override
+    public String getString(@Nonnull PropertyKey key, String defaultValue)
+            throws PropertyAccessException {
+        Preconditions.checkNotNull(key, "key must not be null");
+        return getString(key.getName(), defaultValue);
+    }
+
+    @Override
+    public Set<String> getStringSet(@Nonnull PropertyKey key, Set<String> defaultValue)
+            throws PropertyAccessException {
+        Preconditions.checkNotNull(key, "key must not be null");
+        return getStringSet(key.getName(), defaultValue);
+    }
+}
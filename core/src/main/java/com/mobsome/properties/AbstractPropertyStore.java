@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Base class of {@link PropertyStore} implementations written against the original interface,
+ * which had only readers, writers and listeners. Snapshots, preloading and change versions are
+ * provided on top of these, so a custom store needs to implement only {@link #getAll()} in
+ * addition. Stores which can do better, e.g. reuse snapshots or record whole commits in their
+ * journal, override the corresponding methods.
+ */
+public abstract class AbstractPropertyStore implements PropertyStore {
+    /**
+     * Journal of changes reported to change listeners of this store
+     */
+    private final ChangeJournal journal = new ChangeJournal();
+    private final AtomicBoolean journalRegistered = new AtomicBoolean();
+    private final OnPropertyChangeListener journalListener = new OnPropertyChangeListener() {
+        @Override
+        public void onPropertyChanged(@Nonnull PropertyStore propertyStore,
+                                      @Nonnull String key) {
+            journal.record(Collections.singleton(key));
+        }
+    };
+
+    /**
+     * Returns values of all properties in this store, typed in the same way as
+     * {@link PropertySnapshot#getValue(String)} returns them
+     *
+     * @return property values by name
+     * @throws PropertyAccessException when properties can't be read
+     */
+    @Nonnull
+    protected abstract Map<String, ?> getAll() throws PropertyAccessException;
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Snapshot is a copy of {@link #getAll()}, taken again on every call.
+     */
+    @Override
+    @Nonnull
+    public PropertySnapshot snapshot() {
+        try {
+            return new MapPropertySnapshot(new HashMap<>(getAll()));
+        } catch (PropertyAccessException e) {
+            throw new IllegalStateException("Failed to read properties, " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Store is loaded by taking its reader on a background thread.
+     */
+    @Override
+    @Nonnull
+    public Future<Void> preload() {
+        final FutureTask<Void> task = new FutureTask<>(new Callable<Void>() {
+            @Override
+            public Void call() {
+                getReader();
+                return null;
+            }
+        });
+        PropertyExecutors.background().execute(task);
+        return task;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Version increases with every change reported to change listeners of this store, starting
+     * from the first call of this method or {@link #getChangedKeys(long)}.
+     */
+    @Override
+    public long getVersion() {
+        registerJournal();
+        return journal.getVersion();
+    }
+
+    @Override
+    @Nullable
+    public Set<String> getChangedKeys(long version) {
+        registerJournal();
+        return journal.getChangedKeys(version);
+    }
+
+    private void registerJournal() {
+        if (journalRegistered.compareAndSet(false, true)) {
+            registerOnPropertyChangeListener(journalListener);
+        }
+    }
+}
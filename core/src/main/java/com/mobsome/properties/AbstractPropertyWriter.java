@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Base class of {@link PropertyWriter} implementations which write values with key handles
+ * in the same way as with key strings. Writers written against the original interface, which
+ * had no string sets, report string sets as not supported.
+ */
+public abstract class AbstractPropertyWriter implements PropertyWriter {
+    @Override
+    public void writeStringSet(@Nonnull String key, Set<String> value)
+            throws PropertyAccessException {
+        throw new PropertyAccessException("String sets are not supported");
+    }
+
+    @Override
+    public void writeInt(@Nonnull PropertyKey key, int value) throws PropertyAccessException {
+        Preconditions.checkNotNull(key, "key must not be null");
+        writeInt(key.getName(), value);
+    }
+
+    @Override
+    public void writeLong(@Nonnull PropertyKey key, long value) throws PropertyAccessException {
+        Preconditions.checkNotNull(key, "key must not be null");
+        writeLong(key.getName(), value);
+    }
+
+    @Override
+    public void writeFloat(@Nonnull PropertyKey key, float value) throws PropertyAccessException {
+        Preconditions.checkNotNull(key, "key must not be null");
+        writeFloat(key.getName(), value);
+    }
+
+    @Override
+    public void writeDouble(@Nonnull PropertyKey key, double value) throws PropertyAccessException {
+        Preconditions.checkNotNull(key, "key must not be null");
+        writeDouble(key.getName(), value);
+    }
+
+    @Override
+    public void writeBoolean(@Nonnull PropertyKey key, boolean value)
+            throws PropertyAccessException {
+        Preconditions.checkNotNull(key, "key must not be null");
+        writeBoolean(key.getName(), value);
+    }
+
+    @Override
+    public void writeString(@Nonnull PropertyKey key, String value) throws PropertyAccessException {
+        Preconditions.checkNotNull(key, "key must not be null");
+        writeString(key.getName(), value);
+    }
+
+    @Override
+    public void writeStringSet(@Nonnull PropertyKey key, Set<String> value)
+            throws PropertyAccessException {
+        Preconditions.checkNotNull(key, "key must not be null");
+        writeStringSet(key.getName(), value);
+    }
+
+    @Override
+    public void remove(@Nonnull PropertyKey key) {
+        Preconditions.checkNotNull(key, "key must not be null");
+        remove(key.getName());
+    }
+}
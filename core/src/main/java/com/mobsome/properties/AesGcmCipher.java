@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+
+import javax.annotation.Nonnull;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * {@link ICipher} encrypting values with AES in GCM mode. Every value is encrypted with a fresh
+ * random IV generated by the cipher provider, as required by Android key store keys, which is
+ * stored together with authenticated ciphertext as Base64 text. When used by
+ * {@code SecurePreferencesStore}, property key is authenticated along with the value.
+ * <p>
+ * {@link Cipher} instances and work buffers are cached per thread, so instance of this class
+ * can be shared by many threads and no cipher lookup happens on property reads. Requires
+ * Android 4.4 (API 19) or newer.
+ */
+public class AesGcmCipher implements IKeyBoundCipher {
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final String ALGORITHM = "AES";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH = 16;
+    /**
+     * Buffers larger than this are not kept between operations
+     */
+    private static final int MAX_CACHED_BUFFER = 16 * 1024;
+
+    private final SecretKey key;
+    private final ThreadLocal<Worker> workers = new ThreadLocal<Worker>() {
+        @Override
+        protected Worker initialValue() {
+            try {
+                return new Worker(Cipher.getInstance(TRANSFORMATION));
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(TRANSFORMATION + " is not available", e);
+            }
+        }
+    };
+
+    /**
+     * Creates cipher with provided raw AES key
+     *
+     * @param key 16, 24 or 32 bytes long AES key
+     */
+    public AesGcmCipher(@Nonnull byte[] key) {
+        Preconditions.checkNotNull(key, "key must not be null");
+        if (key.length != 16 && key.length != 24 && key.length != 32) {
+            throw new IllegalArgumentException("key must be 16, 24 or 32 bytes long");
+        }
+        this.key = new SecretKeySpec(key, ALGORITHM);
+    }
+
+    /**
+     * Creates cipher with provided AES key, e.g. one obtained from Android key store, which
+     * must allow random IV to be generated on encryption
+     *
+     * @param key AES key
+     */
+    public AesGcmCipher(@Nonnull SecretKey key) {
+        Preconditions.checkNotNull(key, "key must not be null");
+        this.key = key;
+    }
+
+    @Nonnull
+    @Override
+    public String encrypt(@Nonnull String plainText) {
+        return encrypt(plainText, (byte[]) null);
+    }
+
+    @Nonnull
+    @Override
+    public String decrypt(@Nonnull String secretText) {
+        return decrypt(secretText, (byte[]) null);
+    }
+
+    @Nonnull
+    @Override
+    public String encrypt(@Nonnull String plainText, @Nonnull String key) {
+        Preconditions.checkNotNull(key, "key must not be null");
+        return encrypt(plainText, key.getBytes(UTF_8));
+    }
+
+    @Nonnull
+    @Override
+    public String decrypt(@Nonnull String secretText, @Nonnull String key) {
+        Preconditions.checkNotNull(key, "key must not be null");
+        return decrypt(secretText, key.getBytes(UTF_8));
+    }
+
+    /**
+     * Encrypts plain text
+     *
+     * @param plainText      text to be encrypted
+     * @param associatedData data authenticated along with the text, or null
+     * @return IV and encrypted text
+     */
+    private String encrypt(String plainText, byte[] associatedData) {
+        final Worker worker = workers.get();
+        final byte[] input = plainText.getBytes(UTF_8);
+        try {
+            worker.cipher.init(Cipher.ENCRYPT_MODE, key);
+            final byte[] iv = worker.cipher.getIV();
+            if (iv == null || iv.length != IV_LENGTH) {
+                throw new IllegalStateException("Unexpected IV generated by cipher provider");
+            }
+            if (associatedData != null) {
+                worker.cipher.updateAAD(associatedData);
+            }
+            final byte[] output = worker.buffer(
+                    IV_LENGTH + worker.cipher.getOutputSize(input.length));
+            System.arraycopy(iv, 0, output, 0, IV_LENGTH);
+            final int length = worker.cipher.doFinal(input, 0, input.length, output, IV_LENGTH);
+            return Base64.encode(output, 0, IV_LENGTH + length);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to encrypt value", e);
+        }
+    }
+
+    /**
+     * Decrypts secret text
+     *
+     * @param secretText     IV and encrypted text
+     * @param associatedData data authenticated along with the text, or null
+     * @return decrypted text
+     */
+    private String decrypt(String secretText, byte[] associatedData) {
+        final byte[] input = Base64.decode(secretText);
+        if (input.length < IV_LENGTH + TAG_LENGTH) {
+            throw new IllegalArgumentException("Encrypted value is too short");
+        }
+        final Worker worker = workers.get();
+        try {
+            worker.cipher.init(Cipher.DECRYPT_MODE, key,
+                    new GCMParameterSpec(TAG_LENGTH * 8, input, 0, IV_LENGTH));
+            if (associatedData != null) {
+                worker.cipher.updateAAD(associatedData);
+            }
+            final byte[] output = worker.buffer(
+                    worker.cipher.getOutputSize(input.length - IV_LENGTH));
+            final int length = worker.cipher.doFinal(input, IV_LENGTH,
+                    input.length - IV_LENGTH, output, 0);
+            return new String(output, 0, length, UTF_8);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("Failed to decrypt value", e);
+        }
+    }
+
+    /**
+     * Cipher and buffers owned by single thread
+     */
+    private static final class Worker {
+        final Cipher cipher;
+        private byte[] buffer = new byte[256];
+
+        Worker(Cipher cipher) {
+            this.cipher = cipher;
+        }
+
+        /**
+         * Returns buffer of at least provided size. Large buffers are allocated for single
+         * operation only.
+         *
+         * @param size required buffer size
+         * @return work buffer
+         */
+        byte[] buffer(int size) {
+            if (size <= buffer.length) {
+                return buffer;
+            }
+            if (size > MAX_CACHED_BUFFER) {
+                return new byte[size];
+            }
+            buffer = new byte[Math.max(size, Math.min(buffer.length * 2, MAX_CACHED_BUFFER))];
+            return buffer;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Base64 encoding of binary property values (RFC 4648, with padding, without line breaks)
+ */
+final class Base64 {
+    private static final char[] ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+    private static final int[] VALUES = new int[128];
+
+    static {
+        for (int i = 0; i < VALUES.length; i++) {
+            VALUES[i] = -1;
+        }
+        for (int i = 0; i < ALPHABET.length; i++) {
+            VALUES[ALPHABET[i]] = i;
+        }
+    }
+
+    private Base64() {
+    }
+
+    /**
+     * Encodes bytes to Base64 string
+     *
+     * @param data bytes to be encoded
+     * @return Base64 string
+     */
+    @Nonnull
+    static String encode(@Nonnull byte[] data) {
+        return encode(data, 0, data.length);
+    }
+
+    /**
+     * Encodes bytes range to Base64 string
+     *
+     * @param data   bytes to be encoded
+     * @param offset index of the first byte
+     * @param length number of bytes
+     * @return Base64 string
+     */
+    @Nonnull
+    static String encode(@Nonnull byte[] data, int offset, int length) {
+        final char[] out = new char[(length + 2) / 3 * 4];
+        final int end = offset + length;
+        int o = 0;
+        int i = offset;
+        for (; i + 2 < end; i += 3) {
+            final int chunk = (data[i] & 0xff) << 16 | (data[i + 1] & 0xff) << 8
+                    | (data[i + 2] & 0xff);
+            out[o++] = ALPHABET[chunk >>> 18];
+            out[o++] = ALPHABET[(chunk >>> 12) & 0x3f];
+            out[o++] = ALPHABET[(chunk >>> 6) & 0x3f];
+            out[o++] = ALPHABET[chunk & 0x3f];
+        }
+        final int remaining = end - i;
+        if (remaining > 0) {
+            final int chunk = (data[i] & 0xff) << 16
+                    | (remaining > 1 ? (data[i + 1] & 0xff) << 8 : 0);
+            out[o++] = ALPHABET[chunk >>> 18];
+            out[o++] = ALPHABET[(chunk >>> 12) & 0x3f];
+            out[o++] = remaining > 1 ? ALPHABET[(chunk >>> 6) & 0x3f] : '=';
+            out[o] = '=';
+        }
+        return new String(out);
+    }
+
+    /**
+     * Decodes Base64 string
+     *
+     * @param data Base64 string
+     * @return decoded bytes
+     * @throws IllegalArgumentException when string is not valid Base64
+     */
+    @Nonnull
+    static byte[] decode(@Nonnull String data) {
+        int length = data.length();
+        if (length % 4 != 0) {
+            throw new IllegalArgumentException("Invalid Base64 length");
+        }
+        int padding = 0;
+        if (length > 0 && data.charAt(length - 1) == '=') {
+            padding++;
+            if (data.charAt(length - 2) == '=') {
+                padding++;
+            }
+        }
+        final byte[] out = new byte[length / 4 * 3 - padding];
+        int o = 0;
+        for (int i = 0; i < length; i += 4) {
+            final int chunk = value(data, i) << 18 | value(data, i + 1) << 12
+                    | value(data, i + 2) << 6 | value(data, i + 3);
+            out[o++] = (byte) (chunk >>> 16);
+            if (o < out.length) {
+                out[o++] = (byte) (chunk >>> 8);
+            }
+            if (o < out.length) {
+                out[o++] = (byte) chunk;
+            }
+        }
+        return out;
+    }
+
+    private static int value(String data, int index) {
+        final char c = data.charAt(index);
+        if (c == '=' && index >= data.length() - 2) {
+            return 0;
+        }
+        final int value = c < VALUES.length ? VALUES[c] : -1;
+        if (value < 0) {
+            throw new IllegalArgumentException("Invalid Base64 character '" + c + "'");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Compact binary {@link PropertyCodec}. Subclasses write and read property values with
+ * {@link DataOutput} and {@link DataInput}, resulting bytes are persisted as Base64 string.
+ *
+ * @param <T> property value type
+ */
+public abstract class BinaryPropertyCodec<T> implements PropertyCodec<T> {
+
+    /**
+     * Writes property value
+     *
+     * @param output data output
+     * @param value  property value, never null
+     * @throws IOException when value can't be written
+     */
+    protected abstract void write(@Nonnull DataOutput output, @Nonnull T value)
+            throws IOException;
+
+    /**
+     * Reads property value
+     *
+     * @param input data input
+     * @return property value
+     * @throws IOException when value can't be read
+     */
+    protected abstract T read(@Nonnull DataInput input) throws IOException;
+
+    @Override
+    @Nonnull
+    public final String encode(@Nonnull T value) throws PropertyAccessException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            final DataOutputStream output = new DataOutputStream(bytes);
+            write(output, value);
+            output.flush();
+        } catch (IOException e) {
+            throw new PropertyAccessException("Failed to encode value", e);
+        }
+        return Base64.encode(bytes.toByteArray());
+    }
+
+    @Override
+    public final T decode(@Nonnull String data) throws PropertyAccessException {
+        try {
+            return read(new DataInputStream(new ByteArrayInputStream(Base64.decode(data))));
+        } catch (IOException | IllegalArgumentException e) {
+            throw new PropertyAccessException("Failed to decode value", e);
+        }
+    }
+}
@@ -0,0 +1,680 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Properties store keeping values read from underlying {@link PropertyStore} in memory, so
+ * repeated reads don't reach the underlying store at all. Values are cached in typed slots,
+ * so primitive values are not boxed. Committed changes are written through to the cache and
+ * changes reported by underlying store listeners invalidate cached values. Underlying store is
+ * listened to only while values are cached or listeners are registered, see
+ * {@link #invalidate()}.
+ * <p/>
+ * Number of cached values can be limited, in which case values that haven't been read
+ * recently are evicted first.
+ */
+public class CachingPropertyStore implements PropertyStore {
+    private final PropertyStore store;
+    private final int maxSize;
+    private final ConcurrentHashMap<String, Slot> cache = new ConcurrentHashMap<>();
+    /**
+     * Increased before cached values are replaced, so values read from underlying store
+     * concurrently with a change are not cached
+     */
+    private final AtomicLong generation = new AtomicLong();
+    private final Object commitLock = new Object();
+    /**
+     * Number of commits in progress
+     */
+    private final AtomicInteger activeCommits = new AtomicInteger();
+    /**
+     * Number of commits ever started
+     */
+    private final AtomicLong startedCommits = new AtomicLong();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    /**
+     * Position of eviction within cache, guarded by {@link #evictionLock}
+     */
+    private Iterator<Map.Entry<String, Slot>> evictionHand;
+    private List<OnPropertyChangeListener> listeners;
+    /**
+     * Whether {@link #storeListener} is registered in underlying store, guarded by this store
+     */
+    private volatile boolean listening;
+
+    /**
+     * Creates {@link CachingPropertyStore} caching all values of provided store
+     *
+     * @param store underlying properties store
+     */
+    public CachingPropertyStore(@Nonnull PropertyStore store) {
+        this(store, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates {@link CachingPropertyStore} caching at most provided number of values
+     *
+     * @param store   underlying properties store
+     * @param maxSize maximum number of cached values
+     */
+    public CachingPropertyStore(@Nonnull PropertyStore store, int maxSize) {
+        Preconditions.checkNotNull(store, "store must not be null");
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.store = store;
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    @Nonnull
+    public PropertyReader getReader() {
+        return reader;
+    }
+
+    @Override
+    @Nonnull
+    public PropertyWriter getWriter() {
+        return writer;
+    }
+
+    @Override
+    @Nonnull
+    public PropertySnapshot snapshot() {
+        return store.snapshot();
+    }
+
+    @Override
+    @Nonnull
+    public Future<Void> preload() {
+        return store.preload();
+    }
+
+    /**
+     * Drops all cached values, e.g. when underlying store has been changed without notifying
+     * its listeners. Unless listeners are registered, this store also stops listening to
+     * underlying store until values are cached again, so it can be released.
+     */
+    public void invalidate() {
+        synchronized (commitLock) {
+            synchronized (this) {
+                if (listeners == null) {
+                    stopListening();
+                }
+            }
+            generation.incrementAndGet();
+            cache.clear();
+        }
+    }
+
+    /**
+     * Returns number of currently cached values
+     *
+     * @return number of cached values
+     */
+    int getCachedCount() {
+        return cache.size();
+    }
+
+    @Override
+    public long getVersion() {
+        return store.getVersion();
+    }
+
+    @Override
+    @Nullable
+    public Set<String> getChangedKeys(long version) {
+        return store.getChangedKeys(version);
+    }
+
+    @Override
+    public void registerOnPropertyChangeListener(@Nonnull OnPropertyChangeListener listener) {
+        Preconditions.checkNotNull(listener, "listener must not be null");
+
+        synchronized (this) {
+            if (listeners == null) {
+                listeners = new ArrayList<>();
+                startListening();
+            }
+
+            listeners.add(listener);
+        }
+    }
+
+    @Override
+    public void unregisterOnPropertyChangeListener(@Nonnull OnPropertyChangeListener listener) {
+        Preconditions.checkNotNull(listener, "listener must not be null");
+
+        synchronized (commitLock) {
+            synchronized (this) {
+                if (listeners == null) {
+                    return;
+                }
+                listeners.remove(listener);
+
+                if (listeners.isEmpty()) {
+                    listeners = null;
+                    if (cache.isEmpty()) {
+                        stopListening();
+                        generation.incrementAndGet();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Registers listener in underlying store unless it's already registered. Must be called
+     * before values which are going to be cached are read.
+     */
+    private void ensureListening() {
+        if (!listening) {
+            synchronized (this) {
+                startListening();
+            }
+        }
+    }
+
+    /**
+     * Registers listener in underlying store unless it's already registered. Must be called
+     * with lock of this store held.
+     */
+    private void startListening() {
+        if (!listening) {
+            store.registerOnPropertyChangeListener(storeListener);
+            listening = true;
+        }
+    }
+
+    /**
+     * Unregisters listener from underlying store. Must be called with {@link #commitLock} and
+     * lock of this store held, and generation must be increased afterwards, so values read
+     * concurrently are not cached.
+     */
+    private void stopListening() {
+        if (listening) {
+            store.unregisterOnPropertyChangeListener(storeListener);
+            listening = false;
+        }
+    }
+
+    /**
+     * Starts reading value which is going to be cached
+     *
+     * @return generation observed before value is read
+     */
+    private long startReading() {
+        final long observed = generation.get();
+        ensureListening();
+        return observed;
+    }
+
+    /**
+     * Returns cached value slot, marking it as recently used
+     *
+     * @param key property name
+     * @return cached slot or null if value is not cached
+     */
+    private Slot lookup(String key) {
+        final Slot slot = cache.get(key);
+        if (slot != null && !slot.referenced) {
+            slot.referenced = true;
+        }
+        return slot;
+    }
+
+    /**
+     * Caches value read from underlying store unless a change has happened since reading
+     * has started
+     *
+     * @param key        property name
+     * @param slot       value slot
+     * @param generation generation observed before value was read
+     */
+    private void fill(String key, Slot slot, long generation) {
+        if (cache.putIfAbsent(key, slot) == null) {
+            if (this.generation.get() != generation) {
+                cache.remove(key, slot);
+            } else if (cache.size() > maxSize) {
+                evict();
+            }
+        }
+    }
+
+    /**
+     * Evicts values until cache size is within limit. Each value is skipped once if it has
+     * been read since it was last visited.
+     */
+    private void evict() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            int steps = 2 * cache.size();
+            while (cache.size() > maxSize && steps-- > 0) {
+                if (evictionHand == null || !evictionHand.hasNext()) {
+                    evictionHand = cache.entrySet().iterator();
+                    if (!evictionHand.hasNext()) {
+                        return;
+                    }
+                }
+                final Map.Entry<String, Slot> entry = evictionHand.next();
+                final Slot slot = entry.getValue();
+                if (slot.referenced) {
+                    slot.referenced = false;
+                } else {
+                    cache.remove(entry.getKey(), slot);
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Caching properties reader
+     */
+    private final PropertyReader reader = new AbstractPropertyReader() {
+        @Override
+        public boolean contains(@Nonnull String key) {
+            final Slot slot = lookup(key);
+            if (slot != null) {
+                return !(slot instanceof AbsentSlot);
+            }
+            final long observed = startReading();
+            final boolean contains = store.getReader().contains(key);
+            if (!contains) {
+                fill(key, new AbsentSlot(), observed);
+            }
+            return contains;
+        }
+
+        @Override
+        public int getInt(@Nonnull String key, int defaultValue)
+                throws PropertyAccessException {
+            final Slot slot = lookup(key);
+            if (slot instanceof IntSlot) {
+                return ((IntSlot) slot).value;
+            } else if (slot instanceof AbsentSlot) {
+                return defaultValue;
+            }
+            final long observed = startReading();
+            final PropertyReader storeReader = store.getReader();
+            if (!storeReader.contains(key)) {
+                fill(key, new AbsentSlot(), observed);
+                return defaultValue;
+            }
+            final int value = storeReader.getInt(key, defaultValue);
+            fill(key, new IntSlot(value), observed);
+            return value;
+        }
+
+        @Override
+        public long getLong(@Nonnull String key, long defaultValue)
+                throws PropertyAccessException {
+            final Slot slot = lookup(key);
+            if (slot instanceof LongSlot) {
+                return ((LongSlot) slot).value;
+            } else if (slot instanceof AbsentSlot) {
+                return defaultValue;
+            }
+            final long observed = startReading();
+            final PropertyReader storeReader = store.getReader();
+            if (!storeReader.contains(key)) {
+                fill(key, new AbsentSlot(), observed);
+                return defaultValue;
+            }
+            final long value = storeReader.getLong(key, defaultValue);
+            fill(key, new LongSlot(value), observed);
+            return value;
+        }
+
+        @Override
+        public float getFloat(@Nonnull String key, float defaultValue)
+                throws PropertyAccessException {
+            final Slot slot = lookup(key);
+            if (slot instanceof FloatSlot) {
+                return ((FloatSlot) slot).value;
+            } else if (slot instanceof AbsentSlot) {
+                return defaultValue;
+            }
+            final long observed = startReading();
+            final PropertyReader storeReader = store.getReader();
+            if (!storeReader.contains(key)) {
+                fill(key, new AbsentSlot(), observed);
+                return defaultValue;
+            }
+            final float value = storeReader.getFloat(key, defaultValue);
+            fill(key, new FloatSlot(value), observed);
+            return value;
+        }
+
+        @Override
+        public double getDouble(@Nonnull String key, double defaultValue)
+                throws PropertyAccessException {
+            final Slot slot = lookup(key);
+            if (slot instanceof DoubleSlot) {
+                return ((DoubleSlot) slot).value;
+            } else if (slot instanceof AbsentSlot) {
+                return defaultValue;
+            }
+            final long observed = startReading();
+            final PropertyReader storeReader = store.getReader();
+            if (!storeReader.contains(key)) {
+                fill(key, new AbsentSlot(), observed);
+                return defaultValue;
+            }
+            final double value = storeReader.getDouble(key, defaultValue);
+            fill(key, new DoubleSlot(value), observed);
+            return value;
+        }
+
+        @Override
+        public boolean getBoolean(@Nonnull String key, boolean defaultValue)
+                throws PropertyAccessException {
+            final Slot slot = lookup(key);
+            if (slot instanceof BooleanSlot) {
+                return ((BooleanSlot) slot).value;
+            } else if (slot instanceof AbsentSlot) {
+                return defaultValue;
+            }
+            final long observed = startReading();
+            final PropertyReader storeReader = store.getReader();
+            if (!storeReader.contains(key)) {
+                fill(key, new AbsentSlot(), observed);
+                return defaultValue;
+            }
+            final boolean value = storeReader.getBoolean(key, defaultValue);
+            fill(key, new BooleanSlot(value), observed);
+            return value;
+        }
+
+        @Override
+        public String getString(@Nonnull String key, String defaultValue)
+                throws PropertyAccessException {
+            final Slot slot = lookup(key);
+            if (slot instanceof StringSlot) {
+                return ((StringSlot) slot).value;
+            } else if (slot instanceof AbsentSlot) {
+                return defaultValue;
+            }
+            final long observed = startReading();
+            final String value = store.getReader().getString(key, null);
+            fill(key, value != null ? new StringSlot(value) : new AbsentSlot(), observed);
+            return value != null ? value : defaultValue;
+        }
+
+        @Override
+        public Set<String> getStringSet(@Nonnull String key, Set<String> defaultValue)
+                throws PropertyAccessException {
+            final Slot slot = lookup(key);
+            if (slot instanceof StringSetSlot) {
+                return ((StringSetSlot) slot).value;
+            } else if (slot instanceof AbsentSlot) {
+                return defaultValue;
+            }
+            final long observed = startReading();
+            final Set<String> value = store.getReader().getStringSet(key, null);
+            if (value == null) {
+                fill(key, new AbsentSlot(), observed);
+                return defaultValue;
+            }
+            final StringSetSlot stringSetSlot = new StringSetSlot(value);
+            fill(key, stringSetSlot, observed);
+            return stringSetSlot.value;
+        }
+    };
+
+    /**
+     * Caching properties writer. Values are cached once changes are committed to underlying
+     * store. Commits running concurrently may be applied by underlying store in any order, so
+     * they just invalidate cached values.
+     */
+    private final PropertyWriter writer = new AbstractPropertyWriter() {
+        /**
+         * Changes being edited by the current thread
+         */
+        private final ThreadLocal<Map<String, Slot>> changes = new ThreadLocal<>();
+
+        /**
+         * Ensures that {@link PropertyWriter#edit()} has been called
+         *
+         * @return changes being edited by the current thread
+         */
+        private Map<String, Slot> ensureInEditMode() {
+            final Map<String, Slot> current = changes.get();
+            if (current == null) {
+                throw new IllegalStateException();
+            }
+            return current;
+        }
+
+        /**
+         * Commits changes to underlying store and replaces cached values with committed ones
+         *
+         * @param async whether changes should be committed asynchronously
+         */
+        private void commit(boolean async) {
+            final Map<String, Slot> committed = ensureInEditMode();
+            changes.set(new HashMap<String, Slot>());
+            ensureListening();
+            activeCommits.incrementAndGet();
+            final long started = startedCommits.incrementAndGet();
+            try {
+                if (async) {
+                    store.getWriter().commitAsync();
+                } else {
+                    store.getWriter().commit();
+                }
+            } finally {
+                synchronized (commitLock) {
+                    final boolean concurrent = activeCommits.decrementAndGet() > 0
+                            || startedCommits.get() != started;
+                    generation.incrementAndGet();
+                    if (concurrent || !listening) {
+                        for (String key : committed.keySet()) {
+                            cache.remove(key);
+                        }
+                    } else {
+                        cache.putAll(committed);
+                    }
+                }
+            }
+            if (cache.size() > maxSize) {
+                evict();
+            }
+        }
+
+        @Override
+        public void edit() {
+            store.getWriter().edit();
+            changes.set(new HashMap<String, Slot>());
+        }
+
+        @Override
+        public void commit() {
+            commit(false);
+        }
+
+        @Override
+        public void commitAsync() {
+            commit(true);
+        }
+
+        @Override
+        public void writeInt(@Nonnull String key, int value) throws PropertyAccessException {
+            store.getWriter().writeInt(key, value);
+            ensureInEditMode().put(key, new IntSlot(value));
+        }
+
+        @Override
+        public void writeLong(@Nonnull String key, long value) throws PropertyAccessException {
+            store.getWriter().writeLong(key, value);
+            ensureInEditMode().put(key, new LongSlot(value));
+        }
+
+        @Override
+        public void writeFloat(@Nonnull String key, float value)
+                throws PropertyAccessException {
+            store.getWriter().writeFloat(key, value);
+            ensureInEditMode().put(key, new FloatSlot(value));
+        }
+
+        @Override
+        public void writeDouble(@Nonnull String key, double value)
+                throws PropertyAccessException {
+            store.getWriter().writeDouble(key, value);
+            ensureInEditMode().put(key, new DoubleSlot(value));
+        }
+
+        @Override
+        public void writeBoolean(@Nonnull String key, boolean value)
+                throws PropertyAccessException {
+            store.getWriter().writeBoolean(key, value);
+            ensureInEditMode().put(key, new BooleanSlot(value));
+        }
+
+        @Override
+        public void writeString(@Nonnull String key, String value)
+                throws PropertyAccessException {
+            store.getWriter().writeString(key, value);
+            ensureInEditMode().put(key, value != null ? new StringSlot(value) : new AbsentSlot());
+        }
+
+        @Override
+        public void writeStringSet(@Nonnull String key, Set<String> value)
+                throws PropertyAccessException {
+            store.getWriter().writeStringSet(key, value);
+            ensureInEditMode().put(key,
+                    value != null ? new StringSetSlot(value) : new AbsentSlot());
+        }
+
+        @Override
+        public void remove(@Nonnull String key) {
+            store.getWriter().remove(key);
+            ensureInEditMode().put(key, new AbsentSlot());
+        }
+    };
+
+    private final OnPropertyChangeListener storeListener = new OnPropertyChangeListener() {
+        @Override
+        public void onPropertyChanged(@Nonnull PropertyStore propertyStore, @Nonnull String key) {
+            generation.incrementAndGet();
+            cache.remove(key);
+
+            final List<OnPropertyChangeListener> listenersCopy;
+            synchronized (CachingPropertyStore.this) {
+                if (listeners == null) {
+                    return;
+                }
+                listenersCopy = new ArrayList<>(listeners);
+            }
+
+            for (OnPropertyChangeListener listener : listenersCopy) {
+                listener.onPropertyChanged(CachingPropertyStore.this, key);
+            }
+        }
+    };
+
+    /**
+     * Cached value
+     */
+    private abstract static class Slot {
+        /**
+         * Whether value has been read since eviction last visited it
+         */
+        volatile boolean referenced = true;
+    }
+
+    /**
+     * Property which doesn't exist in underlying store
+     */
+    private static final class AbsentSlot extends Slot {
+    }
+
+    private static final class IntSlot extends Slot {
+        final int value;
+
+        IntSlot(int value) {
+            this.value = value;
+        }
+    }
+
+    private static final class LongSlot extends Slot {
+        final long value;
+
+        LongSlot(long value) {
+            this.value = value;
+        }
+    }
+
+    private static final class FloatSlot extends Slot {
+        final float value;
+
+        FloatSlot(float value) {
+            this.value = value;
+        }
+    }
+
+    private static final class DoubleSlot extends Slot {
+        final double value;
+
+        DoubleSlot(double value) {
+            this.value = value;
+        }
+    }
+
+    private static final class BooleanSlot extends Slot {
+        final boolean value;
+
+        BooleanSlot(boolean value) {
+            this.value = value;
+        }
+    }
+
+    private static final class StringSlot extends Slot {
+        final String value;
+
+        StringSlot(String value) {
+            this.value = value;
+        }
+    }
+
+    private static final class StringSetSlot extends Slot {
+        final Set<String> value;
+
+        StringSetSlot(Set<String> value) {
+            this.value = Collections.unmodifiableSet(new HashSet<>(value));
+        }
+    }
+}
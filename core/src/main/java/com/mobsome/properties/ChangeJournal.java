@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Bounded journal of property changes, used by {@link PropertyStore} implementations to answer
+ * which keys have changed since a version. Every recorded commit increases the version. Only
+ * the most recent changes are kept, so answering takes time proportional to the number of
+ * changes since the requested version, not to the number of properties.
+ */
+public class ChangeJournal {
+    /**
+     * Default number of changed keys kept in the journal
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final long[] versions;
+    private final String[] keys;
+    /**
+     * Index at which next change is recorded
+     */
+    private int head;
+    /**
+     * Number of recorded changes, up to capacity
+     */
+    private int size;
+    private long version;
+    /**
+     * Version up to which changes may be missing from the journal
+     */
+    private long truncatedVersion;
+
+    /**
+     * Creates journal keeping {@link #DEFAULT_CAPACITY} changes and starting at version 0
+     */
+    public ChangeJournal() {
+        this(DEFAULT_CAPACITY, 0);
+    }
+
+    /**
+     * Creates journal keeping provided number of changes
+     *
+     * @param capacity       maximum number of changed keys kept in the journal
+     * @param initialVersion version of the store when journal is created. Changes preceding
+     *                       it are unknown.
+     */
+    public ChangeJournal(int capacity, long initialVersion) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        versions = new long[capacity];
+        keys = new String[capacity];
+        version = initialVersion;
+        truncatedVersion = initialVersion;
+    }
+
+    /**
+     * Records keys changed by a commit with the next version
+     *
+     * @param changedKeys keys changed by the commit
+     * @return version of the commit
+     */
+    public synchronized long record(@Nonnull Collection<String> changedKeys) {
+        return record(version + 1, changedKeys);
+    }
+
+    /**
+     * Records keys changed by a commit with provided version, e.g. one stored along with
+     * the properties. Version is increased by at least one, so it never goes back.
+     *
+     * @param commitVersion version of the commit
+     * @param changedKeys   keys changed by the commit
+     * @return version of the commit
+     */
+    public synchronized long record(long commitVersion, @Nonnull Collection<String> changedKeys) {
+        Preconditions.checkNotNull(changedKeys, "changedKeys must not be null");
+        version = Math.max(version + 1, commitVersion);
+        for (String key : changedKeys) {
+            if (size == keys.length) {
+                truncatedVersion = versions[head];
+            } else {
+                size++;
+            }
+            versions[head] = version;
+            keys[head] = key;
+            head = (head + 1) % keys.length;
+        }
+        return version;
+    }
+
+    /**
+     * Records a commit whose changed keys are unknown, so changes since any earlier version are
+     * reported as unknown
+     *
+     * @return version of the commit
+     */
+    public synchronized long recordUnknown() {
+        version++;
+        truncatedVersion = version;
+        return version;
+    }
+
+    /**
+     * Returns current version
+     *
+     * @return version of the last recorded commit
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns keys changed after provided version
+     *
+     * @param sinceVersion version previously returned by {@link #getVersion()}
+     * @return changed keys, or null if some of the changes are no longer kept in the journal
+     * and all properties need to be read again
+     */
+    @Nullable
+    public synchronized Set<String> getChangedKeys(long sinceVersion) {
+        if (sinceVersion < truncatedVersion) {
+            return null;
+        }
+        final Set<String> changed = new LinkedHashSet<>();
+        for (int i = 0, index = head; i < size; i++) {
+            index = (index == 0 ? keys.length : index) - 1;
+            if (versions[index] <= sinceVersion) {
+                break;
+            }
+            changed.add(keys[index]);
+        }
+        return Collections.unmodifiableSet(changed);
+    }
+}
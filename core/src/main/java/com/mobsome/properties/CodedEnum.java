@@ -0,0 +1,31 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+/**
+ * Interface for enums persisted by {@link Properties.EnumProperty} with
+ * {@link Properties.EnumProperty.Storage#CODE} storage. Code of every constant must be unique
+ * and must never change once persisted, unlike ordinal which changes when constants are
+ * reordered.
+ */
+public interface CodedEnum {
+    /**
+     * Returns stable code of enum constant
+     *
+     * @return code of enum constant
+     */
+    int getCode();
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Read-only property which value is computed from other properties. Computed value is cached
+ * and computed again only after any of the input properties changes, so reading unchanged
+ * value is a single volatile read.
+ * <p/>
+ * Derived property is notified by its inputs, so it is kept alive as long as they are, unless
+ * it is {@link #detach() detached}.
+ *
+ * @param <T> derived value type
+ */
+public class DerivedProperty<T> {
+    private final PropertyFunction<T> function;
+    private final List<Property<?>> inputs;
+    /**
+     * Number of input changes, incremented before cached value is discarded
+     */
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicReference<Computed<T>> computed = new AtomicReference<>();
+    private volatile boolean detached;
+    /**
+     * Number of computations, for testing
+     */
+    private final AtomicLong computationCount = new AtomicLong();
+
+    /**
+     * Creates property derived from provided inputs
+     *
+     * @param function function computing value from the inputs
+     * @param inputs   properties read by the function
+     */
+    public DerivedProperty(@Nonnull PropertyFunction<T> function,
+                           @Nonnull Property<?>... inputs) {
+        Preconditions.checkNotNull(function, "function must not be null");
+        Preconditions.checkNotNull(inputs, "inputs must not be null");
+        this.function = function;
+        this.inputs = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(inputs)));
+        for (Property<?> input : this.inputs) {
+            Preconditions.checkNotNull(input, "input must not be null");
+            input.registerOnChangeListener(inputListener);
+        }
+    }
+
+    /**
+     * Returns derived value, computing it on the calling thread if any of the inputs has
+     * changed since it was computed last time
+     *
+     * @return derived value
+     */
+    public final T get() {
+        final Computed<T> current = computed.get();
+        if (current != null) {
+            return current.value;
+        }
+
+        final long expectedGeneration = generation.get();
+        computationCount.incrementAndGet();
+        final Computed<T> result = new Computed<>(function.compute());
+        if (detached) {
+            return result.value;
+        }
+        // Value computed while inputs were changing must not stay cached
+        if (computed.compareAndSet(null, result) && generation.get() != expectedGeneration) {
+            computed.compareAndSet(result, null);
+        }
+        return result.value;
+    }
+
+    /**
+     * Stops tracking changes of the inputs. Value is computed on every read afterwards.
+     */
+    public final void detach() {
+        detached = true;
+        for (Property<?> input : inputs) {
+            input.unregisterOnChangeListener(inputListener);
+        }
+        generation.incrementAndGet();
+        computed.set(null);
+    }
+
+    /**
+     * Returns number of times value has been computed
+     *
+     * @return number of computations
+     */
+    final long getComputationCount() {
+        return computationCount.get();
+    }
+
+    private final OnPropertyChangeListener inputListener = new OnPropertyChangeListener() {
+        @Override
+        public void onPropertyChanged(@Nonnull PropertyStore propertyStore, @Nonnull String key) {
+            generation.incrementAndGet();
+            computed.set(null);
+        }
+    };
+
+    /**
+     * Computed value, which may be null
+     *
+     * @param <T> derived value type
+     */
+    private static final class Computed<T> {
+        final T value;
+
+        Computed(T value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Precomputed lookup of enum constants by name and by persisted code, shared by all
+ * {@link Properties.EnumProperty} instances of the same enum class
+ *
+ * @param <E> enum type
+ */
+final class EnumLookup<E extends Enum<E>> {
+    /**
+     * Highest code for which constants are looked up in a directly indexed table
+     */
+    private static final int MAX_TABLE_CODE = 1024;
+    private static final Map<Class<?>, EnumLookup<?>> LOOKUPS = new ConcurrentHashMap<>();
+
+    private final Map<String, E> byName;
+    /**
+     * Constants indexed by code, used when enum implements {@link CodedEnum} and all codes are
+     * small non-negative numbers
+     */
+    private final E[] byCode;
+    /**
+     * Sorted codes and constants with corresponding codes, used when enum implements
+     * {@link CodedEnum} and codes are sparse or negative
+     */
+    private final int[] sortedCodes;
+    private final E[] sortedConstants;
+
+    private EnumLookup(Class<E> enumClass) {
+        final E[] constants = enumClass.getEnumConstants();
+        byName = new HashMap<>(constants.length * 2);
+        for (E constant : constants) {
+            byName.put(constant.name(), constant);
+        }
+        if (!CodedEnum.class.isAssignableFrom(enumClass)) {
+            byCode = null;
+            sortedCodes = null;
+            sortedConstants = null;
+            return;
+        }
+
+        final int[] codes = new int[constants.length];
+        int minCode = 0;
+        int maxCode = -1;
+        for (int i = 0; i < constants.length; i++) {
+            codes[i] = codeOf(constants[i]);
+            minCode = Math.min(minCode, codes[i]);
+            maxCode = Math.max(maxCode, codes[i]);
+        }
+
+        if (minCode >= 0 && maxCode <= MAX_TABLE_CODE) {
+            byCode = Arrays.copyOf(constants, maxCode + 1);
+            Arrays.fill(byCode, null);
+            for (int i = 0; i < constants.length; i++) {
+                checkUniqueCode(byCode[codes[i]], constants[i]);
+                byCode[codes[i]] = constants[i];
+            }
+            sortedCodes = null;
+            sortedConstants = null;
+        } else {
+            byCode = null;
+            sortedCodes = codes.clone();
+            Arrays.sort(sortedCodes);
+            sortedConstants = Arrays.copyOf(constants, constants.length);
+            Arrays.fill(sortedConstants, null);
+            for (E constant : constants) {
+                final int index = Arrays.binarySearch(sortedCodes, codeOf(constant));
+                checkUniqueCode(sortedConstants[index], constant);
+                sortedConstants[index] = constant;
+            }
+        }
+    }
+
+    private static void checkUniqueCode(Enum<?> existing, Enum<?> constant) {
+        if (existing != null) {
+            throw new IllegalArgumentException("Duplicate code of " + existing + " and "
+                    + constant + " in " + constant.getDeclaringClass().getName());
+        }
+    }
+
+    /**
+     * Returns lookup for provided enum class
+     *
+     * @param enumClass enum class
+     * @param <E>       enum type
+     * @return lookup of enum constants
+     */
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    static <E extends Enum<E>> EnumLookup<E> of(@Nonnull Class<E> enumClass) {
+        EnumLookup<E> lookup = (EnumLookup<E>) LOOKUPS.get(enumClass);
+        if (lookup == null) {
+            lookup = new EnumLookup<>(enumClass);
+            LOOKUPS.put(enumClass, lookup);
+        }
+        return lookup;
+    }
+
+    /**
+     * Returns persisted code of enum constant
+     *
+     * @param constant enum constant implementing {@link CodedEnum}
+     * @return code of enum constant
+     */
+    static int codeOf(@Nonnull Enum<?> constant) {
+        return ((CodedEnum) constant).getCode();
+    }
+
+    /**
+     * Returns enum constant with provided name
+     *
+     * @param name constant name
+     * @return enum constant or null if there is no constant with provided name
+     */
+    E forName(@Nonnull String name) {
+        return byName.get(name);
+    }
+
+    /**
+     * Returns enum constant with provided code
+     *
+     * @param code constant code
+     * @return enum constant or null if there is no constant with provided code
+     * @throws IllegalStateException if enum doesn't implement {@link CodedEnum}
+     */
+    E forCode(int code) {
+        if (byCode != null) {
+            return code >= 0 && code < byCode.length ? byCode[code] : null;
+        }
+        if (sortedCodes == null) {
+            throw new IllegalStateException("Enum doesn't implement CodedEnum");
+        }
+        final int index = Arrays.binarySearch(sortedCodes, code);
+        return index >= 0 ? sortedConstants[index] : null;
+    }
+}
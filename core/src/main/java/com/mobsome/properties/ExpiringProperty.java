@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Property which value expires after its time to live. Expiration time is stored together with
+ * the value, so {@link #get()} returns default value once it passes, also after restart.
+ * Expired values are removed from the store by {@link ExpirySweeper} once the property has been
+ * accessed. Values of basic types can be stored with codecs of {@link PropertyCodecs}.
+ *
+ * @param <T> property value type
+ */
+public class ExpiringProperty<T> {
+    private final T defaultValue;
+    private final long timeToLive;
+    private final PropertyStore store;
+    private final ExpirySweeper sweeper;
+    /**
+     * Property holding value along with its expiration time
+     */
+    final Properties.ObjectProperty<Entry<T>> property;
+    /**
+     * Sweeper timeout of this property, guarded by sweeper
+     */
+    ExpirySweeper.Timeout timeout;
+    /**
+     * Whether restored value has been scheduled for removal
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * Creates expiring property swept by {@link ExpirySweeper#getDefault()}
+     *
+     * @param name         property name
+     * @param defaultValue default property value, also returned once value expires
+     * @param codec        codec converting property value to string and back
+     * @param timeToLive   time after which values set with {@link #set(Object)} expire
+     * @param unit         time to live unit
+     * @param store        persisting mechanism
+     */
+    public ExpiringProperty(@Nonnull String name, T defaultValue, @Nonnull PropertyCodec<T> codec,
+                            long timeToLive, @Nonnull TimeUnit unit,
+                            @Nonnull PropertyStore store) {
+        this(name, defaultValue, codec, timeToLive, unit, store, ExpirySweeper.getDefault());
+    }
+
+    /**
+     * Creates expiring property swept by provided sweeper
+     *
+     * @param name         property name
+     * @param defaultValue default property value, also returned once value expires
+     * @param codec        codec converting property value to string and back
+     * @param timeToLive   time after which values set with {@link #set(Object)} expire
+     * @param unit         time to live unit
+     * @param store        persisting mechanism
+     * @param sweeper      sweeper removing expired values
+     */
+    public ExpiringProperty(@Nonnull String name, T defaultValue, @Nonnull PropertyCodec<T> codec,
+                            long timeToLive, @Nonnull TimeUnit unit,
+                            @Nonnull PropertyStore store, @Nonnull ExpirySweeper sweeper) {
+        Preconditions.checkNotNull(codec, "codec must not be null");
+        Preconditions.checkNotNull(unit, "unit must not be null");
+        Preconditions.checkNotNull(sweeper, "sweeper must not be null");
+        if (timeToLive <= 0) {
+            throw new IllegalArgumentException("timeToLive must be positive");
+        }
+        this.defaultValue = defaultValue;
+        this.timeToLive = unit.toMillis(timeToLive);
+        this.store = store;
+        this.sweeper = sweeper;
+        property = new Properties.ObjectProperty<>(name, null, new EntryCodec<>(codec), store);
+    }
+
+    /**
+     * Returns property value or default value if it has not been set or has expired
+     *
+     * @return property value or default one
+     */
+    public final T get() {
+        final Entry<T> entry = restoredEntry();
+        if (entry == null || entry.expirationTime <= sweeper.currentTimeMillis()) {
+            return defaultValue;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Sets new value for this property, which expires after time to live provided
+     * in constructor. Operation is performed on the same calling thread.
+     *
+     * @param value new property value
+     */
+    public final void set(T value) {
+        setExpiring(value, sweeper.currentTimeMillis() + timeToLive);
+    }
+
+    /**
+     * Sets new value for this property, which expires after provided time. Operation is
+     * performed on the same calling thread.
+     *
+     * @param value      new property value
+     * @param timeToLive time after which value expires
+     * @param unit       time to live unit
+     */
+    public final void set(T value, long timeToLive, @Nonnull TimeUnit unit) {
+        Preconditions.checkNotNull(unit, "unit must not be null");
+        setExpiring(value, sweeper.currentTimeMillis() + unit.toMillis(timeToLive));
+    }
+
+    /**
+     * Returns time at which current value expires
+     *
+     * @return expiration time in milliseconds since epoch, or 0 if value has not been set
+     */
+    public final long getExpirationTime() {
+        final Entry<T> entry = restoredEntry();
+        return entry != null ? entry.expirationTime : 0;
+    }
+
+    /**
+     * Returns property holding value of this property along with its expiration time, e.g. to
+     * use it as an input of {@link DerivedProperty}. It's changed when value is set or removed
+     * by the sweeper, not when value expires.
+     *
+     * @return underlying property
+     */
+    @Nonnull
+    public final Property<?> getProperty() {
+        return property;
+    }
+
+    /**
+     * Returns store of this property
+     *
+     * @return property store
+     */
+    final PropertyStore getStore() {
+        return store;
+    }
+
+    /**
+     * Returns current entry, scheduling removal of restored value on first access
+     *
+     * @return current entry or null if value has not been set
+     */
+    private Entry<T> restoredEntry() {
+        final Entry<T> entry = property.get();
+        if (!scheduled.get() && scheduled.compareAndSet(false, true)) {
+            sweeper.schedule(this);
+        }
+        return entry;
+    }
+
+    private void setExpiring(T value, long expirationTime) {
+        scheduled.set(true);
+        property.set(new Entry<>(value, expirationTime));
+        sweeper.schedule(this);
+    }
+
+    /**
+     * Property value along with its expiration time
+     *
+     * @param <T> property value type
+     */
+    static final class Entry<T> {
+        final T value;
+        final long expirationTime;
+
+        Entry(T value, long expirationTime) {
+            this.value = value;
+            this.expirationTime = expirationTime;
+        }
+    }
+
+    /**
+     * Codec storing expiration time in front of value encoded by property codec
+     *
+     * @param <T> property value type
+     */
+    private static final class EntryCodec<T> implements PropertyCodec<Entry<T>> {
+        /**
+         * Separates expiration time from encoded value
+         */
+        private static final char VALUE_SEPARATOR = ':';
+        /**
+         * Ends expiration time of entry holding null value
+         */
+        private static final char NULL_SEPARATOR = ';';
+        private final PropertyCodec<T> codec;
+
+        EntryCodec(PropertyCodec<T> codec) {
+            this.codec = codec;
+        }
+
+        @Nonnull
+        @Override
+        public String encode(@Nonnull Entry<T> entry) throws PropertyAccessException {
+            final String time = Long.toString(entry.expirationTime, Character.MAX_RADIX);
+            return entry.value != null
+                    ? time + VALUE_SEPARATOR + codec.encode(entry.value)
+                    : time + NULL_SEPARATOR;
+        }
+
+        @Override
+        public Entry<T> decode(@Nonnull String data) throws PropertyAccessException {
+            int separator = data.indexOf(VALUE_SEPARATOR);
+            if (separator < 0) {
+                separator = data.indexOf(NULL_SEPARATOR);
+            }
+            if (separator < 0) {
+                throw new PropertyAccessException("Missing expiration time");
+            }
+            final long expirationTime;
+            try {
+                expirationTime = Long.parseLong(data.substring(0, separator),
+                        Character.MAX_RADIX);
+            } catch (NumberFormatException e) {
+                throw new PropertyAccessException("Invalid expiration time", e);
+            }
+            return new Entry<>(data.charAt(separator) == VALUE_SEPARATOR
+                    ? codec.decode(data.substring(separator + 1)) : null, expirationTime);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Removes expired values of {@link ExpiringProperty} instances from their stores. Expiration
+ * times are kept in a hashed timer wheel, so scheduling and cancelling take constant time and
+ * every tick looks only at a single bucket. All values expired at a tick are removed from each
+ * store with a single commit. Sweeper ticks on a shared background thread only while it has
+ * scheduled properties.
+ * <p/>
+ * Only values of existing {@link ExpiringProperty} instances are removed. Value left in a store
+ * without one is removed once property with its name is created.
+ */
+public class ExpirySweeper {
+    private static final String TAG = ExpirySweeper.class.getSimpleName();
+    /**
+     * Default tick duration in milliseconds
+     */
+    public static final long DEFAULT_TICK_DURATION = 1000;
+    /**
+     * Default number of wheel buckets
+     */
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private final long tickDuration;
+    private final List<Set<Timeout>> wheel;
+    /**
+     * Last processed tick, or -1 before first property is scheduled
+     */
+    private long lastTick = -1;
+    private int scheduledCount;
+    private ScheduledFuture<?> ticker;
+    private final Runnable tickTask = new Runnable() {
+        @Override
+        public void run() {
+            onTick();
+        }
+    };
+
+    /**
+     * Creates sweeper with {@link #DEFAULT_TICK_DURATION} and {@link #DEFAULT_WHEEL_SIZE}
+     */
+    public ExpirySweeper() {
+        this(DEFAULT_TICK_DURATION, TimeUnit.MILLISECONDS, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * Creates sweeper with provided wheel parameters. Values are removed up to single tick
+     * after they expire.
+     *
+     * @param tickDuration duration of single tick
+     * @param unit         tick duration unit
+     * @param wheelSize    number of wheel buckets
+     */
+    public ExpirySweeper(long tickDuration, @Nonnull TimeUnit unit, int wheelSize) {
+        Preconditions.checkNotNull(unit, "unit must not be null");
+        if (unit.toMillis(tickDuration) <= 0) {
+            throw new IllegalArgumentException("tickDuration must be at least 1 ms");
+        }
+        if (wheelSize <= 0) {
+            throw new IllegalArgumentException("wheelSize must be positive");
+        }
+        this.tickDuration = unit.toMillis(tickDuration);
+        wheel = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            wheel.add(new HashSet<Timeout>());
+        }
+    }
+
+    /**
+     * Returns sweeper shared by properties created without explicit one
+     *
+     * @return default sweeper
+     */
+    @Nonnull
+    public static ExpirySweeper getDefault() {
+        return DefaultHolder.SWEEPER;
+    }
+
+    /**
+     * Returns current time used for expiration
+     *
+     * @return current time in milliseconds since epoch
+     */
+    long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Returns number of scheduled properties
+     *
+     * @return scheduled properties count
+     */
+    synchronized int getScheduledCount() {
+        return scheduledCount;
+    }
+
+    /**
+     * Schedules removal of current property value at its expiration time, replacing previous
+     * schedule of this property
+     *
+     * @param property expiring property
+     */
+    synchronized void schedule(@Nonnull ExpiringProperty<?> property) {
+        cancel(property);
+        final ExpiringProperty.Entry<?> entry = property.property.get();
+        if (entry == null) {
+            return;
+        }
+
+        if (lastTick < 0) {
+            lastTick = currentTimeMillis() / tickDuration;
+        }
+        final long deadline = entry.expirationTime / tickDuration
+                + (entry.expirationTime % tickDuration != 0 ? 1 : 0);
+        final Timeout timeout = new Timeout(property, entry.expirationTime,
+                (int) (Math.max(deadline, lastTick + 1) % wheel.size()));
+        wheel.get(timeout.bucket).add(timeout);
+        property.timeout = timeout;
+        scheduledCount++;
+
+        if (ticker == null) {
+            ticker = PropertyExecutors.scheduler().scheduleWithFixedDelay(tickTask,
+                    tickDuration, tickDuration, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void cancel(ExpiringProperty<?> property) {
+        final Timeout timeout = property.timeout;
+        if (timeout != null) {
+            wheel.get(timeout.bucket).remove(timeout);
+            property.timeout = null;
+            scheduledCount--;
+        }
+    }
+
+    /**
+     * Called by background thread on every tick
+     */
+    void onTick() {
+        sweep();
+    }
+
+    /**
+     * Removes values expired since the last tick
+     *
+     * @return number of removed values
+     */
+    int sweep() {
+        final long now = currentTimeMillis();
+        final Map<PropertyStore, List<ExpiringProperty<?>>> expired = new IdentityHashMap<>();
+        synchronized (this) {
+            if (lastTick < 0) {
+                return 0;
+            }
+            final long tick = now / tickDuration;
+            for (long t = lastTick + 1; t <= Math.min(tick, lastTick + wheel.size()); t++) {
+                final Iterator<Timeout> iterator = wheel.get((int) (t % wheel.size())).iterator();
+                while (iterator.hasNext()) {
+                    final Timeout timeout = iterator.next();
+                    if (timeout.expirationTime <= now) {
+                        iterator.remove();
+                        timeout.property.timeout = null;
+                        scheduledCount--;
+
+                        final PropertyStore store = timeout.property.getStore();
+                        List<ExpiringProperty<?>> properties = expired.get(store);
+                        if (properties == null) {
+                            properties = new ArrayList<>();
+                            expired.put(store, properties);
+                        }
+                        properties.add(timeout.property);
+                    }
+                }
+            }
+            lastTick = Math.max(lastTick, tick);
+            if (scheduledCount == 0 && ticker != null) {
+                ticker.cancel(false);
+                ticker = null;
+            }
+        }
+
+        int removed = 0;
+        for (Map.Entry<PropertyStore, List<ExpiringProperty<?>>> entry : expired.entrySet()) {
+            removed += remove(entry.getKey(), entry.getValue(), now);
+        }
+        return removed;
+    }
+
+    /**
+     * Removes values of provided properties, which are still expired, with a single commit.
+     * Properties which have been set again in the meantime are scheduled again.
+     *
+     * @param store      store of the properties
+     * @param properties expired properties
+     * @param now        current time
+     * @return number of removed values
+     */
+    private int remove(PropertyStore store, List<ExpiringProperty<?>> properties, long now) {
+        final List<Property<?>> storedProperties = new ArrayList<>(properties.size());
+        for (ExpiringProperty<?> property : properties) {
+            storedProperties.add(property.property);
+        }
+        final List<Property<?>> locked = Property.lockAll(storedProperties);
+        int removed = 0;
+        try {
+            final PropertyWriter writer = store.getWriter();
+            writer.edit();
+            for (ExpiringProperty<?> property : properties) {
+                if (removeExpired(property.property, writer, now)) {
+                    removed++;
+                }
+            }
+            writer.commit();
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Failed to remove expired properties, " + e.getMessage());
+        } finally {
+            Property.unlockAll(locked);
+        }
+
+        for (ExpiringProperty<?> property : properties) {
+            final ExpiringProperty.Entry<?> entry = property.property.get();
+            if (entry != null && entry.expirationTime > now) {
+                schedule(property);
+            }
+        }
+        return removed;
+    }
+
+    private static <T> boolean removeExpired(Property<ExpiringProperty.Entry<T>> property,
+                                             PropertyWriter writer, long now) {
+        final ExpiringProperty.Entry<T> entry = property.get();
+        return entry != null && entry.expirationTime <= now && property.remove(entry, writer);
+    }
+
+    /**
+     * Scheduled removal of property value
+     */
+    static final class Timeout {
+        final ExpiringProperty<?> property;
+        final long expirationTime;
+        final int bucket;
+
+        Timeout(ExpiringProperty<?> property, long expirationTime, int bucket) {
+            this.property = property;
+            this.expirationTime = expirationTime;
+            this.bucket = bucket;
+        }
+    }
+
+    private static final class DefaultHolder {
+        static final ExpirySweeper SWEEPER = new ExpirySweeper();
+    }
+}
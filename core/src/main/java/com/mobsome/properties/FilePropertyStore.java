@@ -0,0 +1,1090 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Properties persistent store that keeps properties values in a binary file, which can be safely
+ * shared by multiple processes. Commits are serialized across processes with a
+ * {@link java.nio.channels.FileChannel} lock and replace the file atomically. Every commit
+ * increments version counter held in file header, so changes made by other processes are
+ * detected by checking file modification time and header only, and just the changed entries
+ * are replaced in memory.
+ * <p/>
+ * Changes made by other processes are picked up when reader is obtained and, while any
+ * {@link OnPropertyChangeListener} is registered, by polling the file in the background.
+ * Listeners are called on the thread which detected or committed the change. Single instance
+ * of this store should be used for a file within a process.
+ * <p/>
+ * Commits are grouped: changes committed by other threads while the file is being written are
+ * merged and written with a single write once it's done, optionally waiting for more commits
+ * for a group commit window first. Every {@link PropertyWriter#commit()} still returns only once
+ * its own changes are stored on disk, or once writing them has failed. Changes which failed to
+ * be written are kept in memory and written again with the next commit or after
+ * {@link #RETRY_DELAY}. Each thread edits its own changes, so the writer can be used by many
+ * threads at once.
+ */
+public class FilePropertyStore implements PropertyStore {
+    private static final String TAG = FilePropertyStore.class.getSimpleName();
+    /**
+     * Default interval of checking file for changes made by other processes, in milliseconds
+     */
+    public static final long DEFAULT_POLL_INTERVAL = 1000;
+    /**
+     * Default time a commit waits for other commits to be written along with it, in
+     * microseconds. Commits arriving while the file is being written are merged regardless.
+     */
+    public static final long DEFAULT_GROUP_COMMIT_WINDOW = 0;
+    /**
+     * Time after which changes which failed to be written are written again, in milliseconds
+     */
+    static final long RETRY_DELAY = 1000;
+    /**
+     * Coarsest granularity of file modification time, in milliseconds. File replaced within it
+     * may keep the same modification time, so its header is checked as well.
+     */
+    private static final long MODIFICATION_TIME_GRANULARITY = 2000;
+
+    private static final int MAGIC = 0x4d505250;
+    private static final byte TYPE_INT = 1;
+    private static final byte TYPE_LONG = 2;
+    private static final byte TYPE_FLOAT = 3;
+    private static final byte TYPE_DOUBLE = 4;
+    private static final byte TYPE_BOOLEAN = 5;
+    private static final byte TYPE_STRING = 6;
+    private static final byte TYPE_STRING_SET = 7;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    /**
+     * Marker of removed property in pending changes
+     */
+    private static final Object REMOVED = new Object();
+    /**
+     * Locks serializing commits to the same file within this process, by file path
+     */
+    private static final ConcurrentHashMap<String, Object> COMMIT_LOCKS =
+            new ConcurrentHashMap<>();
+
+    private final File file;
+    private final File lockFile;
+    private final File tempFile;
+    private final long pollInterval;
+    private final long groupCommitWindow;
+    private final Object commitLock;
+    /**
+     * Committed changes which haven't been written yet, in commit order
+     */
+    private final List<Map<String, Object>> pendingChanges = new ArrayList<>();
+    /**
+     * Number of changes ever added to pending ones, guarded by {@link #pendingChanges}
+     */
+    private long queuedCount;
+    /**
+     * Number of queued changes which have already been written, guarded by {@link #commitLock}
+     */
+    private long writtenCount;
+    /**
+     * Number of file writes, guarded by {@link #commitLock}
+     */
+    private long fileWriteCount;
+    /**
+     * Whether writing changes which failed to be written is scheduled, guarded by
+     * {@link #commitLock}
+     */
+    private boolean retryScheduled;
+    private final AtomicReference<Contents> contents = new AtomicReference<>();
+    private final ChangeJournal journal;
+    private List<OnPropertyChangeListener> listeners;
+    private ScheduledFuture<?> poller;
+
+    /**
+     * Creates {@link FilePropertyStore} storing properties in provided file and checking it for
+     * changes made by other processes every {@link #DEFAULT_POLL_INTERVAL} milliseconds
+     *
+     * @param file properties file
+     */
+    public FilePropertyStore(@Nonnull File file) {
+        this(file, DEFAULT_POLL_INTERVAL);
+    }
+
+    /**
+     * Creates {@link FilePropertyStore} storing properties in provided file
+     *
+     * @param file         properties file
+     * @param pollInterval interval of checking file for changes made by other processes while
+     *                     listeners are registered, in milliseconds
+     */
+    public FilePropertyStore(@Nonnull File file, long pollInterval) {
+        this(file, pollInterval, DEFAULT_GROUP_COMMIT_WINDOW);
+    }
+
+    /**
+     * Creates {@link FilePropertyStore} storing properties in provided file
+     *
+     * @param file              properties file
+     * @param pollInterval      interval of checking file for changes made by other processes
+     *                          while listeners are registered, in milliseconds
+     * @param groupCommitWindow time a commit waits for other commits to be written along with
+     *                          it, in microseconds
+     */
+    public FilePropertyStore(@Nonnull File file, long pollInterval, long groupCommitWindow) {
+        Preconditions.checkNotNull(file, "file must not be null");
+        if (pollInterval <= 0) {
+            throw new IllegalArgumentException("pollInterval must be positive");
+        }
+        if (groupCommitWindow < 0) {
+            throw new IllegalArgumentException("groupCommitWindow must not be negative");
+        }
+        this.file = file.getAbsoluteFile();
+        this.lockFile = new File(this.file.getPath() + ".lock");
+        this.tempFile = new File(this.file.getPath() + ".tmp");
+        this.pollInterval = pollInterval;
+        this.groupCommitWindow = groupCommitWindow;
+
+        final Object lock = new Object();
+        final Object existingLock = COMMIT_LOCKS.putIfAbsent(this.file.getPath(), lock);
+        commitLock = existingLock != null ? existingLock : lock;
+
+        contents.set(new Contents(0, 0, 0, 0, Collections.<String, Object>emptyMap()));
+        synchronized (commitLock) {
+            try {
+                contents.set(load());
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to load " + this.file + ", " + e.getMessage());
+            }
+        }
+        journal = new ChangeJournal(ChangeJournal.DEFAULT_CAPACITY, contents.get().version);
+    }
+
+    @Override
+    @Nonnull
+    public PropertyReader getReader() {
+        return refresh().snapshot;
+    }
+
+    @Override
+    @Nonnull
+    public PropertyWriter getWriter() {
+        return writer;
+    }
+
+    @Override
+    @Nonnull
+    public PropertySnapshot snapshot() {
+        return refresh().snapshot;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * File is loaded when store is created, so only changes made by other processes since
+     * then are loaded.
+     */
+    @Override
+    @Nonnull
+    public Future<Void> preload() {
+        return PropertyExecutors.background().submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                refresh();
+                return null;
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Version is stored in the file, so it keeps increasing across processes and restarts.
+     */
+    @Override
+    public long getVersion() {
+        refresh();
+        return journal.getVersion();
+    }
+
+    @Override
+    @Nullable
+    public Set<String> getChangedKeys(long version) {
+        refresh();
+        return journal.getChangedKeys(version);
+    }
+
+    @Override
+    public void registerOnPropertyChangeListener(@Nonnull OnPropertyChangeListener listener) {
+        Preconditions.checkNotNull(listener, "listener must not be null");
+
+        synchronized (this) {
+            if (listeners == null) {
+                listeners = new ArrayList<>();
+                poller = PropertyExecutors.scheduler().scheduleWithFixedDelay(pollTask,
+                        pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+            }
+
+            listeners.add(listener);
+        }
+    }
+
+    @Override
+    public void unregisterOnPropertyChangeListener(@Nonnull OnPropertyChangeListener listener) {
+        Preconditions.checkNotNull(listener, "listener must not be null");
+
+        synchronized (this) {
+            if (listeners == null) {
+                return;
+            }
+            listeners.remove(listener);
+
+            if (listeners.isEmpty()) {
+                poller.cancel(false);
+                poller = null;
+                listeners = null;
+            }
+        }
+    }
+
+    /**
+     * Replaces changed entries with the ones stored by other processes, if file has been
+     * modified since it was loaded. File which has the same modification time and length is
+     * still checked for a different version in its header until it has been checked once after
+     * {@link #MODIFICATION_TIME_GRANULARITY}, as another process may have replaced it within
+     * the same modification time. Header is checked without commit lock, so reads don't wait
+     * for commits being written. File which fails to be loaded isn't loaded again until it
+     * changes.
+     *
+     * @return current contents
+     */
+    private Contents refresh() {
+        final Contents current = contents.get();
+        final long checkedAt = System.currentTimeMillis();
+        final long lastModified = file.lastModified();
+        final long length = file.length();
+        if (lastModified == current.lastModified && length == current.length) {
+            if (current.checkedAt - current.lastModified > MODIFICATION_TIME_GRANULARITY) {
+                return current;
+            }
+            try {
+                if (readVersion() == current.version) {
+                    contents.compareAndSet(current,
+                            current.checked(lastModified, length, checkedAt));
+                    return contents.get();
+                }
+            } catch (IOException e) {
+                // Checked again with commit lock held
+            }
+        }
+
+        final Set<String> changedKeys = new LinkedHashSet<>();
+        final Contents refreshed;
+        synchronized (commitLock) {
+            try {
+                refreshed = reload(changedKeys);
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to load " + file + ", " + e.getMessage());
+                final Contents failed = contents.get();
+                contents.set(failed.checked(lastModified, length, checkedAt));
+                return failed;
+            }
+        }
+        notifyListeners(changedKeys);
+        return refreshed;
+    }
+
+    /**
+     * Loads file again if its version differs from the loaded one and replaces changed entries.
+     * Must be called with commit lock held.
+     *
+     * @param changedKeys collection to which keys of changed entries are added
+     * @return current contents
+     * @throws IOException when file can't be read
+     */
+    private Contents reload(Set<String> changedKeys) throws IOException {
+        final Contents current = contents.get();
+        final long checkedAt = System.currentTimeMillis();
+        final long lastModified = file.lastModified();
+        final long length = file.length();
+        if (readVersion() == current.version) {
+            final Contents checked = current.checked(lastModified, length, checkedAt);
+            contents.set(checked);
+            return checked;
+        }
+
+        final Contents loaded = load();
+        final Map<String, Object> values = new HashMap<>(loaded.values);
+        final Set<String> reloadedKeys = new LinkedHashSet<>();
+        for (Map.Entry<String, Object> entry : loaded.values.entrySet()) {
+            final Object currentValue = current.values.get(entry.getKey());
+            if (entry.getValue().equals(currentValue)) {
+                values.put(entry.getKey(), currentValue);
+            } else {
+                reloadedKeys.add(entry.getKey());
+            }
+        }
+        for (String key : current.values.keySet()) {
+            if (!loaded.values.containsKey(key)) {
+                reloadedKeys.add(key);
+            }
+        }
+
+        final Contents reloaded = new Contents(loaded.version, loaded.lastModified,
+                loaded.length, loaded.checkedAt, Collections.unmodifiableMap(values));
+        contents.set(reloaded);
+        journal.record(loaded.version, reloadedKeys);
+        changedKeys.addAll(reloadedKeys);
+        return reloaded;
+    }
+
+    /**
+     * Reads version from file header
+     *
+     * @return file version, or 0 if file doesn't exist or has invalid header
+     * @throws IOException when file can't be read
+     */
+    private long readVersion() throws IOException {
+        final RandomAccessFile input;
+        try {
+            input = new RandomAccessFile(file, "r");
+        } catch (FileNotFoundException e) {
+            return 0;
+        }
+        try {
+            return input.readInt() == MAGIC ? input.readLong() : 0;
+        } catch (EOFException e) {
+            return 0;
+        } finally {
+            close(input);
+        }
+    }
+
+    /**
+     * Reads whole file. File which isn't a valid properties file, e.g. one written by another
+     * program, is read as empty, so it is replaced by the next commit instead of failing every
+     * read and write.
+     *
+     * @return file contents
+     * @throws IOException when file can't be read
+     */
+    private Contents load() throws IOException {
+        final long checkedAt = System.currentTimeMillis();
+        final long lastModified = file.lastModified();
+        final long length = file.length();
+        final DataInputStream input;
+        try {
+            input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        } catch (FileNotFoundException e) {
+            return new Contents(0, 0, 0, checkedAt, Collections.<String, Object>emptyMap());
+        }
+
+        long version = 0;
+        try {
+            if (input.readInt() != MAGIC) {
+                throw new InvalidFileException("Invalid file header");
+            }
+            version = input.readLong();
+            final int count = input.readInt();
+            final Map<String, Object> values = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                final String key = readString(input);
+                values.put(key, readValue(input));
+            }
+            return new Contents(version, lastModified, length, checkedAt,
+                    Collections.unmodifiableMap(values));
+        } catch (InvalidFileException | EOFException e) {
+            Log.e(TAG, "Ignoring contents of invalid " + file + ", " + e.getMessage());
+            return new Contents(version, lastModified, length, checkedAt,
+                    Collections.<String, Object>emptyMap());
+        } finally {
+            close(input);
+        }
+    }
+
+    /**
+     * Applies changes to provided values
+     *
+     * @param values  values to be changed
+     * @param changes changes to be applied, in commit order
+     * @return keys of changed entries
+     */
+    private static Set<String> apply(Map<String, Object> values,
+                                     List<Map<String, Object>> changes) {
+        final Set<String> changedKeys = new LinkedHashSet<>();
+        for (Map<String, Object> change : changes) {
+            for (Map.Entry<String, Object> entry : change.entrySet()) {
+                if (entry.getValue() == REMOVED) {
+                    values.remove(entry.getKey());
+                } else {
+                    values.put(entry.getKey(), entry.getValue());
+                }
+                changedKeys.add(entry.getKey());
+            }
+        }
+        return changedKeys;
+    }
+
+    /**
+     * Applies changes to the latest file contents and replaces the file, holding the lock which
+     * serializes commits of all processes
+     *
+     * @param changes     changes to be applied, in commit order
+     * @param changedKeys collection to which keys of changed entries are added
+     * @return whether file has been written
+     */
+    private boolean write(List<Map<String, Object>> changes, Set<String> changedKeys) {
+        RandomAccessFile lockInput = null;
+        FileLock lock = null;
+        try {
+            lockInput = new RandomAccessFile(lockFile, "rw");
+            lock = lockInput.getChannel().lock();
+
+            final Contents current = reload(changedKeys);
+            final Map<String, Object> values = new HashMap<>(current.values);
+            final Set<String> writtenKeys = apply(values, changes);
+
+            // Invalid file may hold version lower than the one seen by other processes
+            final long version = Math.max(current.version, journal.getVersion()) + 1;
+            fileWriteCount++;
+            writeFile(version, values);
+            if (!tempFile.renameTo(file)) {
+                throw new IOException("Failed to replace " + file);
+            }
+            contents.set(new Contents(version, file.lastModified(), file.length(),
+                    System.currentTimeMillis(), Collections.unmodifiableMap(values)));
+            journal.record(version, writtenKeys);
+            changedKeys.addAll(writtenKeys);
+            return true;
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to store " + file + ", " + e.getMessage());
+            return false;
+        } finally {
+            if (lock != null) {
+                try {
+                    lock.release();
+                } catch (IOException e) {
+                    // Lock is released when file is closed
+                }
+            }
+            close(lockInput);
+        }
+    }
+
+    /**
+     * Writes temporary file and waits until it is stored on disk
+     *
+     * @param version file version
+     * @param values  properties values
+     * @throws IOException when file can't be written
+     */
+    private void writeFile(long version, Map<String, Object> values) throws IOException {
+        final FileOutputStream fileOutput = new FileOutputStream(tempFile);
+        try {
+            final DataOutputStream output =
+                    new DataOutputStream(new BufferedOutputStream(fileOutput));
+            output.writeInt(MAGIC);
+            output.writeLong(version);
+            output.writeInt(values.size());
+            for (Map.Entry<String, Object> entry : values.entrySet()) {
+                writeString(output, entry.getKey());
+                writeValue(output, entry.getValue());
+            }
+            output.flush();
+            fileOutput.getFD().sync();
+        } finally {
+            close(fileOutput);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeValue(DataOutputStream output, Object value) throws IOException {
+        if (value instanceof Integer) {
+            output.writeByte(TYPE_INT);
+            output.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            output.writeByte(TYPE_LONG);
+            output.writeLong((Long) value);
+        } else if (value instanceof Float) {
+            output.writeByte(TYPE_FLOAT);
+            output.writeFloat((Float) value);
+        } else if (value instanceof Double) {
+            output.writeByte(TYPE_DOUBLE);
+            output.writeDouble((Double) value);
+        } else if (value instanceof Boolean) {
+            output.writeByte(TYPE_BOOLEAN);
+            output.writeBoolean((Boolean) value);
+        } else if (value instanceof String) {
+            output.writeByte(TYPE_STRING);
+            writeString(output, (String) value);
+        } else {
+            final Set<String> set = (Set<String>) value;
+            output.writeByte(TYPE_STRING_SET);
+            output.writeInt(set.size());
+            for (String member : set) {
+                writeString(output, member);
+            }
+        }
+    }
+
+    private static Object readValue(DataInputStream input) throws IOException {
+        final byte type = input.readByte();
+        switch (type) {
+            case TYPE_INT:
+                return input.readInt();
+            case TYPE_LONG:
+                return input.readLong();
+            case TYPE_FLOAT:
+                return input.readFloat();
+            case TYPE_DOUBLE:
+                return input.readDouble();
+            case TYPE_BOOLEAN:
+                return input.readBoolean();
+            case TYPE_STRING:
+                return readString(input);
+            case TYPE_STRING_SET:
+                final int count = input.readInt();
+                final Set<String> set = new HashSet<>(count * 2);
+                for (int i = 0; i < count; i++) {
+                    set.add(readString(input));
+                }
+                return Collections.unmodifiableSet(set);
+            default:
+                throw new InvalidFileException("Unknown value type " + type);
+        }
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        final byte[] bytes = value.getBytes(UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        final byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // Can't do anything
+            }
+        }
+    }
+
+    /**
+     * Adds committed changes to pending ones
+     *
+     * @param changes committed changes
+     * @return ticket of the changes, passed to {@link #commit(long)}
+     */
+    private long enqueue(Map<String, Object> changes) {
+        synchronized (pendingChanges) {
+            pendingChanges.add(changes);
+            return ++queuedCount;
+        }
+    }
+
+    /**
+     * Writes all pending changes, unless changes with provided ticket have already been written
+     * along with changes committed by another thread. Changes which fail to be written are
+     * queued again, held in memory so they are read back, and written again later.
+     *
+     * @param ticket ticket of changes which must be written when this method returns
+     * @return whether changes with provided ticket have been written
+     */
+    private boolean commit(long ticket) {
+        final Set<String> changedKeys = new LinkedHashSet<>();
+        final boolean written;
+        synchronized (commitLock) {
+            if (writtenCount >= ticket) {
+                return true;
+            }
+            if (groupCommitWindow > 0) {
+                try {
+                    TimeUnit.MICROSECONDS.sleep(groupCommitWindow);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            final List<Map<String, Object>> pending;
+            final long count;
+            synchronized (pendingChanges) {
+                pending = new ArrayList<>(pendingChanges);
+                pendingChanges.clear();
+                count = queuedCount;
+            }
+            written = write(pending, changedKeys);
+            if (written) {
+                writtenCount = count;
+            } else {
+                synchronized (pendingChanges) {
+                    pendingChanges.addAll(0, pending);
+                }
+                final Contents current = contents.get();
+                final Map<String, Object> values = new HashMap<>(current.values);
+                changedKeys.addAll(apply(values, pending));
+                contents.set(new Contents(current.version, current.lastModified, current.length,
+                        current.checkedAt, Collections.unmodifiableMap(values)));
+                scheduleRetry();
+            }
+        }
+        notifyListeners(changedKeys);
+        return written;
+    }
+
+    /**
+     * Schedules writing of changes which failed to be written, unless it is already scheduled.
+     * Must be called with commit lock held.
+     */
+    private void scheduleRetry() {
+        if (retryScheduled) {
+            return;
+        }
+        retryScheduled = true;
+        PropertyExecutors.scheduler().schedule(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (commitLock) {
+                    retryScheduled = false;
+                }
+                final long ticket;
+                synchronized (pendingChanges) {
+                    ticket = queuedCount;
+                }
+                commit(ticket);
+            }
+        }, RETRY_DELAY, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns number of times the file has been written by this store
+     *
+     * @return number of file writes
+     */
+    long getFileWriteCount() {
+        synchronized (commitLock) {
+            return fileWriteCount;
+        }
+    }
+
+    private void notifyListeners(Set<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        final List<OnPropertyChangeListener> listenersCopy;
+        synchronized (this) {
+            if (listeners == null) {
+                return;
+            }
+            listenersCopy = new ArrayList<>(listeners);
+        }
+
+        for (String key : keys) {
+            for (OnPropertyChangeListener listener : listenersCopy) {
+                listener.onPropertyChanged(this, key);
+            }
+        }
+    }
+
+    /**
+     * Checks file for changes made by other processes
+     */
+    private final Runnable pollTask = new Runnable() {
+        @Override
+        public void run() {
+            refresh();
+        }
+    };
+
+    /**
+     * File properties writer
+     */
+    private final PropertyWriter writer = new AbstractPropertyWriter() {
+        /**
+         * Changes being edited by the current thread
+         */
+        private final ThreadLocal<Map<String, Object>> changes = new ThreadLocal<>();
+
+        /**
+         * Ensures that {@link PropertyWriter#edit()} has been called
+         *
+         * @return changes being edited by the current thread
+         */
+        private Map<String, Object> ensureInEditMode() {
+            final Map<String, Object> current = changes.get();
+            if (current == null) {
+                throw new IllegalStateException();
+            }
+            return current;
+        }
+
+        private void put(String key, Object value) {
+            Preconditions.checkNotNull(key, "key must not be null");
+            ensureInEditMode().put(key, value != null ? value : REMOVED);
+        }
+
+        @Override
+        public void edit() {
+            changes.set(new LinkedHashMap<String, Object>());
+        }
+
+        @Override
+        public void commit() {
+            final Map<String, Object> current = ensureInEditMode();
+            final long ticket;
+            if (current.isEmpty()) {
+                // Only wait for changes committed before
+                synchronized (pendingChanges) {
+                    ticket = queuedCount;
+                }
+            } else {
+                ticket = enqueue(current);
+            }
+            changes.set(new LinkedHashMap<String, Object>());
+            FilePropertyStore.this.commit(ticket);
+        }
+
+        @Override
+        public void commitAsync() {
+            final long ticket = enqueue(ensureInEditMode());
+            changes.set(new LinkedHashMap<String, Object>());
+            PropertyExecutors.background().execute(new Runnable() {
+                @Override
+                public void run() {
+                    FilePropertyStore.this.commit(ticket);
+                }
+            });
+        }
+
+        @Override
+        public void writeInt(@Nonnull String key, int value) {
+            put(key, value);
+        }
+
+        @Override
+        public void writeLong(@Nonnull String key, long value) {
+            put(key, value);
+        }
+
+        @Override
+        public void writeFloat(@Nonnull String key, float value) {
+            put(key, value);
+        }
+
+        @Override
+        public void writeDouble(@Nonnull String key, double value) {
+            put(key, value);
+        }
+
+        @Override
+        public void writeBoolean(@Nonnull String key, boolean value) {
+            put(key, value);
+        }
+
+        @Override
+        public void writeString(@Nonnull String key, String value) {
+            put(key, value);
+        }
+
+        @Override
+        public void writeStringSet(@Nonnull String key, Set<String> value) {
+            put(key, value != null
+                    ? Collections.unmodifiableSet(new HashSet<>(value)) : null);
+        }
+
+        @Override
+        public void remove(@Nonnull String key) {
+            put(key, null);
+        }
+    };
+
+    /**
+     * Exception thrown when file isn't a valid properties file
+     */
+    private static final class InvalidFileException extends IOException {
+        InvalidFileException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Immutable contents of properties file
+     */
+    private static final class Contents {
+        final long version;
+        final long lastModified;
+        final long length;
+        /**
+         * Time at which file was last known to hold this version
+         */
+        final long checkedAt;
+        final Map<String, Object> values;
+        final PropertySnapshot snapshot;
+
+        Contents(long version, long lastModified, long length, long checkedAt,
+                 Map<String, Object> values) {
+            this(version, lastModified, length, checkedAt, values, new Snapshot(values));
+        }
+
+        private Contents(long version, long lastModified, long length, long checkedAt,
+                         Map<String, Object> values, PropertySnapshot snapshot) {
+            this.version = version;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.checkedAt = checkedAt;
+            this.values = values;
+            this.snapshot = snapshot;
+        }
+
+        /**
+         * Returns the same contents found in file with provided attributes at provided time
+         */
+        Contents checked(long lastModified, long length, long checkedAt) {
+            return new Contents(version, lastModified, length, checkedAt, values, snapshot);
+        }
+    }
+
+    /**
+     * Snapshot of file properties, also used as reader of the current ones. Values read with
+     * interned key handles are kept in slots indexed by the handle, so repeated reads don't look
+     * up the key string.
+     */
+    private static final class Snapshot extends AbstractPropertyReader
+            implements PropertySnapshot {
+        /**
+         * Slot of key which doesn't exist in the snapshot
+         */
+        private static final Object ABSENT = new Object();
+        /**
+         * Number of slots allocated on first read with key handle
+         */
+        private static final int MIN_SLOTS = 16;
+
+        private final Map<String, Object> values;
+        /**
+         * Values read with key handles, allocated on first such read and grown to cover the
+         * largest index read. Values are immutable, so slots written concurrently by several
+         * threads always hold the same value.
+         */
+        private volatile Object[] slots;
+
+        Snapshot(Map<String, Object> values) {
+            this.values = values;
+        }
+
+        @Override
+        @Nonnull
+        public Set<String> keys() {
+            return values.keySet();
+        }
+
+        @Override
+        public Object getValue(@Nonnull String key) {
+            Preconditions.checkNotNull(key, "key must not be null");
+            return values.get(key);
+        }
+
+        @Override
+        public boolean contains(@Nonnull String key) {
+            Preconditions.checkNotNull(key, "key must not be null");
+            return values.containsKey(key);
+        }
+
+        @Override
+        public int getInt(@Nonnull String key, int defaultValue) {
+            Preconditions.checkNotNull(key, "key must not be null");
+            return toInt(values.get(key), defaultValue);
+        }
+
+        @Override
+        public long getLong(@Nonnull String key, long defaultValue) {
+            Preconditions.checkNotNull(key, "key must not be null");
+            return toLong(values.get(key), defaultValue);
+        }
+
+        @Override
+        public float getFloat(@Nonnull String key, float defaultValue) {
+            Preconditions.checkNotNull(key, "key must not be null");
+            return toFloat(values.get(key), defaultValue);
+        }
+
+        @Override
+        public double getDouble(@Nonnull String key, double defaultValue) {
+            Preconditions.checkNotNull(key, "key must not be null");
+            return toDouble(values.get(key), defaultValue);
+        }
+
+        @Override
+        public boolean getBoolean(@Nonnull String key, boolean defaultValue) {
+            Preconditions.checkNotNull(key, "key must not be null");
+            return toBoolean(values.get(key), defaultValue);
+        }
+
+        @Override
+        public String getString(@Nonnull String key, String defaultValue) {
+            Preconditions.checkNotNull(key, "key must not be null");
+            return toString(values.get(key), defaultValue);
+        }
+
+        @Override
+        public Set<String> getStringSet(@Nonnull String key, Set<String> defaultValue) {
+            Preconditions.checkNotNull(key, "key must not be null");
+            return toStringSet(values.get(key), defaultValue);
+        }
+
+        @Override
+        public boolean contains(@Nonnull PropertyKey key) {
+            return lookup(key) != null;
+        }
+
+        @Override
+        public int getInt(@Nonnull PropertyKey key, int defaultValue) {
+            return toInt(lookup(key), defaultValue);
+        }
+
+        @Override
+        public long getLong(@Nonnull PropertyKey key, long defaultValue) {
+            return toLong(lookup(key), defaultValue);
+        }
+
+        @Override
+        public float getFloat(@Nonnull PropertyKey key, float defaultValue) {
+            return toFloat(lookup(key), defaultValue);
+        }
+
+        @Override
+        public double getDouble(@Nonnull PropertyKey key, double defaultValue) {
+            return toDouble(lookup(key), defaultValue);
+        }
+
+        @Override
+        public boolean getBoolean(@Nonnull PropertyKey key, boolean defaultValue) {
+            return toBoolean(lookup(key), defaultValue);
+        }
+
+        @Override
+        public String getString(@Nonnull PropertyKey key, String defaultValue) {
+            return toString(lookup(key), defaultValue);
+        }
+
+        @Override
+        public Set<String> getStringSet(@Nonnull PropertyKey key, Set<String> defaultValue) {
+            return toStringSet(lookup(key), defaultValue);
+        }
+
+        /**
+         * Returns value of key from its slot, reading it from the values on first access
+         *
+         * @param key key handle
+         * @return property value or null if property doesn't exist
+         */
+        private Object lookup(@Nonnull PropertyKey key) {
+            Preconditions.checkNotNull(key, "key must not be null");
+            if (key.index == PropertyKey.UNINDEXED) {
+                return values.get(key.getName());
+            }
+            Object[] slots = this.slots;
+            if (slots == null || key.index >= slots.length) {
+                int length = slots != null ? slots.length * 2 : MIN_SLOTS;
+                while (length <= key.index) {
+                    length *= 2;
+                }
+                final int count = Math.max(PropertyKey.getCount(), key.index + 1);
+                final Object[] grown = new Object[Math.min(length, count)];
+                if (slots != null) {
+                    System.arraycopy(slots, 0, grown, 0, slots.length);
+                }
+                this.slots = slots = grown;
+            }
+            Object value = slots[key.index];
+            if (value == null) {
+                value = values.get(key.getName());
+                slots[key.index] = value != null ? value : ABSENT;
+            }
+            return value != ABSENT ? value : null;
+        }
+
+        private static int toInt(Object value, int defaultValue) {
+            return value != null ? (Integer) value : defaultValue;
+        }
+
+        private static long toLong(Object value, long defaultValue) {
+            return value != null ? (Long) value : defaultValue;
+        }
+
+        private static float toFloat(Object value, float defaultValue) {
+            return value != null ? (Float) value : defaultValue;
+        }
+
+        private static double toDouble(Object value, double defaultValue) {
+            if (value instanceof String) {
+                try {
+                    return Double.parseDouble((String) value);
+                } catch (NumberFormatException ex) {
+                    return defaultValue;
+                }
+            }
+            return value != null ? (Double) value : defaultValue;
+        }
+
+        private static boolean toBoolean(Object value, boolean defaultValue) {
+            return value != null ? (Boolean) value : defaultValue;
+        }
+
+        private static String toString(Object value, String defaultValue) {
+            return value != null ? (String) value : defaultValue;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Set<String> toStringSet(Object value, Set<String> defaultValue) {
+            return value != null ? (Set<String>) value : defaultValue;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks interface from which properties processor generates group implementation named after
+ * the interface with {@code Impl} suffix. Every abstract getter of the interface defines
+ * a property of type {@code int}, {@code long}, {@code float}, {@code double},
+ * {@code boolean} or {@link String}, optionally annotated with {@link GeneratedProperty}.
+ * Matching setters are optional.
+ * <pre>
+ * &#64;GeneratedGroup
+ * public interface Settings {
+ *     &#64;GeneratedProperty(key = "launches", defaultValue = "1")
+ *     int getLaunchCount();
+ *
+ *     void setLaunchCount(int value);
+ * }
+ * </pre>
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface GeneratedGroup {
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Base class of groups generated from {@link GeneratedGroup} interfaces. Generated groups keep
+ * values in plain fields instead of {@link Property} instances and restore all of them
+ * with a single store snapshot when any of them is accessed for the first time. Bulk
+ * operations of {@link PropertiesGroup} are implemented by generated methods.
+ */
+public abstract class GeneratedPropertiesGroup extends PropertiesGroup {
+    private static final String TAG = GeneratedPropertiesGroup.class.getSimpleName();
+    private volatile boolean restored;
+
+    /**
+     * Creates group stored in provided store
+     *
+     * @param store property store for this group
+     */
+    protected GeneratedPropertiesGroup(@Nonnull PropertyStore store) {
+        super(store);
+    }
+
+    /**
+     * Restores all values of this group with provided reader
+     *
+     * @param reader reader of a store snapshot
+     */
+    protected abstract void restore(@Nonnull PropertyReader reader);
+
+    /**
+     * Resets all values of this group to their defaults and removes them with provided writer
+     *
+     * @param writer writer in edit mode
+     */
+    protected abstract void reset(@Nonnull PropertyWriter writer);
+
+    /**
+     * Puts all values of this group to provided map, in order of their declaration
+     *
+     * @param values map of property keys to values
+     */
+    protected abstract void export(@Nonnull Map<String, Object> values);
+
+    @Override
+    public void resetAll() {
+        synchronized (this) {
+            final PropertyWriter writer = edit();
+            reset(writer);
+            writer.commit();
+            restored = true;
+        }
+    }
+
+    @Override
+    public int reloadAll() {
+        synchronized (this) {
+            final Map<String, Object> previous = new LinkedHashMap<>();
+            export(previous);
+            restore(getStore().snapshot());
+            restored = true;
+
+            final Map<String, Object> current = new LinkedHashMap<>();
+            export(current);
+            int changed = 0;
+            for (Map.Entry<String, Object> entry : current.entrySet()) {
+                final Object previousValue = previous.get(entry.getKey());
+                if (previousValue == null ? entry.getValue() != null
+                        : !previousValue.equals(entry.getValue())) {
+                    changed++;
+                }
+            }
+            return changed;
+        }
+    }
+
+    @Override
+    @Nonnull
+    public Map<String, Object> exportAll() {
+        ensureRestored();
+        final Map<String, Object> values = new LinkedHashMap<>();
+        export(values);
+        return Collections.unmodifiableMap(values);
+    }
+
+    /**
+     * Restores all values of this group, unless they have already been restored
+     */
+    protected final void ensureRestored() {
+        if (!restored) {
+            synchronized (this) {
+                if (!restored) {
+                    restore(getStore().snapshot());
+                    restored = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns writer of group store in edit mode
+     *
+     * @return store writer
+     */
+    @Nonnull
+    protected final PropertyWriter edit() {
+        final PropertyWriter writer = getStore().getWriter();
+        writer.edit();
+        return writer;
+    }
+
+    /**
+     * Logs failure of property access
+     *
+     * @param key property key
+     * @param e   access failure
+     */
+    protected final void accessFailed(@Nonnull String key, @Nonnull PropertyAccessException e) {
+        Log.e(TAG, "Failed to access property '" + key + "', " + e.getMessage());
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Customizes property defined by a getter of {@link GeneratedGroup} interface
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.METHOD)
+public @interface GeneratedProperty {
+    /**
+     * Value of {@link #key()} and {@link #defaultValue()} which means they are not set
+     */
+    String UNSET = "\u0000";
+
+    /**
+     * Returns property key. By default it is getter name without prefix, in snake case.
+     *
+     * @return property key
+     */
+    String key() default UNSET;
+
+    /**
+     * Returns default property value, written as it would be parsed by {@code parseInt()}
+     * and similar methods. By default it is 0, false or null.
+     *
+     * @return default property value
+     */
+    String defaultValue() default UNSET;
+}
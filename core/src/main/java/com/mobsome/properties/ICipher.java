@@ -15,7 +15,7 @@
  */
 package com.mobsome.properties;
 
-import android.support.annotation.NonNull;
+import javax.annotation.Nonnull;
 
 /**
  * Cipher interface for {@link Properties} content encryption
@@ -28,8 +28,8 @@ public interface ICipher {
      * @param plainText text to be encrypted
      * @return encrypted text
      */
-    @NonNull
-    String encrypt(@NonNull String plainText);
+    @Nonnull
+    String encrypt(@Nonnull String plainText);
 
     /**
      * Decrypts secret text
@@ -37,6 +37,6 @@ public interface ICipher {
      * @param secretText text to be decrypted
      * @return decrypted text
      */
-    @NonNull
-    String decrypt(@NonNull String secretText);
+    @Nonnull
+    String decrypt(@Nonnull String secretText);
 }
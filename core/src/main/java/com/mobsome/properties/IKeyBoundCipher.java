@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import javax.annotation.Nonnull;
+
+/**
+ * {@link ICipher} which binds encrypted text to the key of the property it is stored under, so
+ * encrypted value copied to another property fails to be decrypted
+ */
+public interface IKeyBoundCipher extends ICipher {
+
+    /**
+     * Encrypts plain text stored under provided property key
+     *
+     * @param plainText text to be encrypted
+     * @param key       property key
+     * @return encrypted text
+     */
+    @Nonnull
+    String encrypt(@Nonnull String plainText, @Nonnull String key);
+
+    /**
+     * Decrypts secret text stored under provided property key
+     *
+     * @param secretText text to be decrypted
+     * @param key        property key
+     * @return decrypted text
+     */
+    @Nonnull
+    String decrypt(@Nonnull String secretText, @Nonnull String key);
+}
@@ -0,0 +1,866 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Properties persistent store that keeps string values longer than a threshold in separate files
+ * instead of underlying {@link PropertyStore}. Underlying store holds only a short reference to
+ * the file, so large values don't increase its load and commit cost. Files are read only when
+ * the value is requested.
+ * <p/>
+ * Replaced files are deleted once the change replacing them is committed. Files replaced by
+ * changes committed asynchronously are deleted after the next synchronous commit, which also
+ * waits for the asynchronous ones. Files left behind by abandoned or failed changes are deleted
+ * by {@link #sweep()}, which should be called occasionally, e.g. on startup. Files referenced
+ * by snapshots are kept until the snapshots are garbage collected.
+ */
+public class LargeValuePropertyStore implements PropertyStore {
+    private static final String TAG = LargeValuePropertyStore.class.getSimpleName();
+    /**
+     * Default length of string value above which it is stored in a separate file
+     */
+    public static final int DEFAULT_THRESHOLD = 4 * 1024;
+    /**
+     * Prefix of values which are stored in underlying store with an escape or reference
+     */
+    private static final char ESCAPE = '\uE000';
+    /**
+     * Prefix of references to value files
+     */
+    private static final String REFERENCE_PREFIX = ESCAPE + "blob:";
+    private static final String FILE_EXTENSION = ".blob";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final PropertyStore store;
+    private final File directory;
+    private final int threshold;
+    private List<OnPropertyChangeListener> listeners;
+    /**
+     * Lock guarding deletion of value files
+     */
+    private final Object filesLock = new Object();
+    /**
+     * Files written by changes which are not known to be committed yet, guarded by
+     * {@link #filesLock}. They are never deleted by {@link #sweep()}.
+     */
+    private final Set<String> pendingFiles = new HashSet<>();
+    /**
+     * Replaced files which haven't been deleted yet, by file name, with keys which referenced
+     * them, guarded by {@link #filesLock}
+     */
+    private final Map<String, String> replacedFiles = new HashMap<>();
+    /**
+     * Files written and replaced by changes committed asynchronously, guarded by
+     * {@link #filesLock}
+     */
+    private Edit asyncCommitted = new Edit();
+    /**
+     * Snapshots which haven't been garbage collected yet, with underlying store snapshots they
+     * read from, guarded by {@link #filesLock}
+     */
+    private final Map<PropertySnapshot, PropertySnapshot> liveSnapshots = new WeakHashMap<>();
+
+    /**
+     * Creates {@link LargeValuePropertyStore} storing values longer than
+     * {@link #DEFAULT_THRESHOLD} characters in provided directory
+     *
+     * @param store     store for properties values and references to value files
+     * @param directory directory for value files, used exclusively by this store
+     */
+    public LargeValuePropertyStore(@Nonnull PropertyStore store, @Nonnull File directory) {
+        this(store, directory, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Creates {@link LargeValuePropertyStore} storing values longer than provided threshold
+     * in provided directory
+     *
+     * @param store     store for properties values and references to value files
+     * @param directory directory for value files, used exclusively by this store
+     * @param threshold length of string value above which it is stored in a separate file
+     */
+    public LargeValuePropertyStore(@Nonnull PropertyStore store, @Nonnull File directory,
+                                   int threshold) {
+        Preconditions.checkNotNull(store, "store must not be null");
+        Preconditions.checkNotNull(directory, "directory must not be null");
+        if (threshold < 0) {
+            throw new IllegalArgumentException("threshold must not be negative");
+        }
+        this.store = store;
+        this.directory = directory;
+        this.threshold = threshold;
+    }
+
+    @Override
+    @Nonnull
+    public PropertyReader getReader() {
+        return reader;
+    }
+
+    @Override
+    @Nonnull
+    public PropertyWriter getWriter() {
+        return writer;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Large values are read from their files when they are requested from the snapshot. Files
+     * referenced by the snapshot are not deleted until it is garbage collected.
+     */
+    @Override
+    @Nonnull
+    public PropertySnapshot snapshot() {
+        synchronized (filesLock) {
+            final PropertySnapshot snapshot = store.snapshot();
+            final PropertySnapshot largeValueSnapshot = wrap(snapshot);
+            liveSnapshots.put(largeValueSnapshot, snapshot);
+            return largeValueSnapshot;
+        }
+    }
+
+    /**
+     * Creates snapshot resolving large values of provided underlying store snapshot
+     *
+     * @param snapshot snapshot of underlying store
+     * @return large value properties snapshot
+     */
+    private PropertySnapshot wrap(final PropertySnapshot snapshot) {
+        return new PropertySnapshot() {
+            @Override
+            @Nonnull
+            public Set<String> keys() {
+                return snapshot.keys();
+            }
+
+            @Override
+            public Object getValue(@Nonnull String key) throws PropertyAccessException {
+                final Object value = snapshot.getValue(key);
+                return value instanceof String ? resolve((String) value, null) : value;
+            }
+
+            @Override
+            public boolean contains(@Nonnull String key) {
+                return snapshot.contains(key);
+            }
+
+            @Override
+            public int getInt(@Nonnull String key, int defaultValue)
+                    throws PropertyAccessException {
+                return snapshot.getInt(key, defaultValue);
+            }
+
+            @Override
+            public long getLong(@Nonnull String key, long defaultValue)
+                    throws PropertyAccessException {
+                return snapshot.getLong(key, defaultValue);
+            }
+
+            @Override
+            public float getFloat(@Nonnull String key, float defaultValue)
+                    throws PropertyAccessException {
+                return snapshot.getFloat(key, defaultValue);
+            }
+
+            @Override
+            public double getDouble(@Nonnull String key, double defaultValue)
+                    throws PropertyAccessException {
+                return snapshot.getDouble(key, defaultValue);
+            }
+
+            @Override
+            public boolean getBoolean(@Nonnull String key, boolean defaultValue)
+                    throws PropertyAccessException {
+                return snapshot.getBoolean(key, defaultValue);
+            }
+
+            @Override
+            public String getString(@Nonnull String key, String defaultValue)
+                    throws PropertyAccessException {
+                return resolve(snapshot.getString(key, null), defaultValue);
+            }
+
+            @Override
+            public Set<String> getStringSet(@Nonnull String key, Set<String> defaultValue)
+                    throws PropertyAccessException {
+                return snapshot.getStringSet(key, defaultValue);
+            }
+
+            @Override
+            public boolean contains(@Nonnull PropertyKey key) {
+                return snapshot.contains(key);
+            }
+
+            @Override
+            public int getInt(@Nonnull PropertyKey key, int defaultValue)
+                    throws PropertyAccessException {
+                return snapshot.getInt(key, defaultValue);
+            }
+
+            @Override
+            public long getLong(@Nonnull PropertyKey key, long defaultValue)
+                    throws PropertyAccessException {
+                return snapshot.getLong(key, defaultValue);
+            }
+
+            @Override
+            public float getFloat(@Nonnull PropertyKey key, float defaultValue)
+                    throws PropertyAccessException {
+                return snapshot.getFloat(key, defaultValue);
+            }
+
+            @Override
+            public double getDouble(@Nonnull PropertyKey key, double defaultValue)
+                    throws PropertyAccessException {
+                return snapshot.getDouble(key, defaultValue);
+            }
+
+            @Override
+            public boolean getBoolean(@Nonnull PropertyKey key, boolean defaultValue)
+                    throws PropertyAccessException {
+                return snapshot.getBoolean(key, defaultValue);
+            }
+
+            @Override
+            public String getString(@Nonnull PropertyKey key, String defaultValue)
+                    throws PropertyAccessException {
+                return resolve(snapshot.getString(key, null), defaultValue);
+            }
+
+            @Override
+            public Set<String> getStringSet(@Nonnull PropertyKey key, Set<String> defaultValue)
+                    throws PropertyAccessException {
+                return snapshot.getStringSet(key, defaultValue);
+            }
+        };
+    }
+
+    @Override
+    @Nonnull
+    public Future<Void> preload() {
+        return store.preload();
+    }
+
+    @Override
+    public long getVersion() {
+        return store.getVersion();
+    }
+
+    @Override
+    @Nullable
+    public Set<String> getChangedKeys(long version) {
+        return store.getChangedKeys(version);
+    }
+
+    @Override
+    public void registerOnPropertyChangeListener(@Nonnull OnPropertyChangeListener listener) {
+        Preconditions.checkNotNull(listener, "listener must not be null");
+
+        synchronized (this) {
+            if (listeners == null) {
+                listeners = new ArrayList<>();
+                store.registerOnPropertyChangeListener(globalListener);
+            }
+
+            listeners.add(listener);
+        }
+    }
+
+    @Override
+    public void unregisterOnPropertyChangeListener(@Nonnull OnPropertyChangeListener listener) {
+        Preconditions.checkNotNull(listener, "listener must not be null");
+
+        synchronized (this) {
+            if (listeners == null) {
+                return;
+            }
+            listeners.remove(listener);
+
+            if (listeners.isEmpty()) {
+                store.unregisterOnPropertyChangeListener(globalListener);
+                listeners = null;
+            }
+        }
+    }
+
+    /**
+     * Deletes value files which are not referenced by any property, e.g. files written by
+     * changes which have been abandoned or failed to be committed. Changes committed
+     * asynchronously are committed first. Must not be called by a thread editing changes of
+     * the underlying store.
+     *
+     * @return number of deleted files
+     */
+    public int sweep() {
+        final Edit committed = takeAsyncCommitted();
+        final PropertyWriter storeWriter = store.getWriter();
+        storeWriter.edit();
+        storeWriter.commit();
+        synchronized (filesLock) {
+            release(committed);
+            final String[] fileNames = directory.list();
+            if (fileNames == null) {
+                return 0;
+            }
+            final Set<String> referenced = new HashSet<>(pendingFiles);
+            try {
+                addReferencedFiles(store.snapshot(), referenced);
+                for (PropertySnapshot snapshot : liveSnapshots.values()) {
+                    addReferencedFiles(snapshot, referenced);
+                }
+            } catch (PropertyAccessException e) {
+                Log.e(TAG, "Failed to sweep value files, " + e.getMessage());
+                return 0;
+            }
+
+            int deleted = 0;
+            for (String fileName : fileNames) {
+                if (fileName.endsWith(FILE_EXTENSION) && !referenced.contains(fileName)) {
+                    if (new File(directory, fileName).delete()) {
+                        deleted++;
+                    } else {
+                        Log.w(TAG, "Failed to delete value file " + fileName);
+                    }
+                }
+            }
+            replacedFiles.keySet().retainAll(referenced);
+            return deleted;
+        }
+    }
+
+    /**
+     * Adds names of value files referenced by provided snapshot to provided set
+     *
+     * @param snapshot  snapshot of underlying store
+     * @param fileNames set of referenced files
+     * @throws PropertyAccessException when value can't be read
+     */
+    private static void addReferencedFiles(PropertySnapshot snapshot, Set<String> fileNames)
+            throws PropertyAccessException {
+        for (String key : snapshot.keys()) {
+            final Object value = snapshot.getValue(key);
+            final String fileName =
+                    value instanceof String ? referencedFile((String) value) : null;
+            if (fileName != null) {
+                fileNames.add(fileName);
+            }
+        }
+    }
+
+    /**
+     * Checks whether provided snapshot references provided file by provided key
+     *
+     * @param snapshot snapshot of underlying store
+     * @param key      property name
+     * @param fileName value file name
+     * @return whether file is referenced, also when it can't be determined
+     */
+    private static boolean isReferenced(PropertySnapshot snapshot, String key, String fileName) {
+        try {
+            final Object value = snapshot.getValue(key);
+            return value instanceof String && fileName.equals(referencedFile((String) value));
+        } catch (PropertyAccessException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Checks whether replaced file can be deleted, i.e. it is not referenced by the store or
+     * by any live snapshot. Must be called with files lock held.
+     *
+     * @param snapshot snapshot of underlying store
+     * @param fileName value file name
+     * @param key      property name which referenced the file
+     * @return whether file is no longer referenced
+     */
+    private boolean isDeletable(PropertySnapshot snapshot, String fileName, String key) {
+        if (pendingFiles.contains(fileName) || isReferenced(snapshot, key, fileName)) {
+            return false;
+        }
+        for (PropertySnapshot liveSnapshot : liveSnapshots.values()) {
+            if (isReferenced(liveSnapshot, key, fileName)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Takes files of changes committed asynchronously so far
+     *
+     * @return files written and replaced by the changes
+     */
+    private Edit takeAsyncCommitted() {
+        synchronized (filesLock) {
+            final Edit committed = asyncCommitted;
+            asyncCommitted = new Edit();
+            return committed;
+        }
+    }
+
+    /**
+     * Releases files of changes which are known to be committed and deletes replaced files
+     * which are no longer referenced. Must be called with files lock held.
+     *
+     * @param committed files written and replaced by the changes
+     */
+    private void release(Edit committed) {
+        pendingFiles.removeAll(committed.writtenFiles.values());
+        pendingFiles.removeAll(committed.replacedFiles.keySet());
+        replacedFiles.putAll(committed.replacedFiles);
+        if (replacedFiles.isEmpty()) {
+            return;
+        }
+
+        final PropertySnapshot snapshot = store.snapshot();
+        final Iterator<Map.Entry<String, String>> iterator = replacedFiles.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<String, String> entry = iterator.next();
+            if (isDeletable(snapshot, entry.getKey(), entry.getValue())) {
+                deleteFile(entry.getKey());
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Deletes value file
+     *
+     * @param fileName value file name
+     */
+    private void deleteFile(String fileName) {
+        if (!new File(directory, fileName).delete()) {
+            Log.w(TAG, "Failed to delete value file " + fileName);
+        }
+    }
+
+    /**
+     * Returns name of value file referenced by provided stored value
+     *
+     * @param storedValue value held by underlying store
+     * @return file name or null if value is not a reference
+     */
+    private static String referencedFile(String storedValue) {
+        return storedValue != null && storedValue.startsWith(REFERENCE_PREFIX)
+                ? storedValue.substring(REFERENCE_PREFIX.length()) : null;
+    }
+
+    /**
+     * Resolves string value held by underlying store
+     *
+     * @param storedValue  value held by underlying store
+     * @param defaultValue value returned if there is no stored value
+     * @return string value
+     * @throws PropertyAccessException when value file can't be read
+     */
+    private String resolve(String storedValue, String defaultValue)
+            throws PropertyAccessException {
+        if (storedValue == null) {
+            return defaultValue;
+        }
+        if (storedValue.isEmpty() || storedValue.charAt(0) != ESCAPE) {
+            return storedValue;
+        }
+
+        final String fileName = referencedFile(storedValue);
+        return fileName != null ? readFile(fileName) : storedValue.substring(1);
+    }
+
+    /**
+     * Reads value file
+     *
+     * @param fileName value file name
+     * @return file content
+     * @throws PropertyAccessException when file can't be read
+     */
+    private String readFile(String fileName) throws PropertyAccessException {
+        FileInputStream input = null;
+        try {
+            input = new FileInputStream(new File(directory, fileName));
+            final FileChannel channel = input.getChannel();
+            final ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Read until buffer is full
+            }
+            buffer.flip();
+            return UTF_8.newDecoder().decode(buffer).toString();
+        } catch (IOException e) {
+            throw new PropertyAccessException("Failed to read value file " + fileName, e);
+        } finally {
+            close(input);
+        }
+    }
+
+    /**
+     * Writes new value file and waits until it is stored on disk. File is added to pending
+     * ones before it is created, so it is never swept before its change is committed.
+     *
+     * @param value file content
+     * @return name of created file
+     * @throws PropertyAccessException when file can't be written
+     */
+    private String writeFile(String value) throws PropertyAccessException {
+        final String fileName = UUID.randomUUID().toString() + FILE_EXTENSION;
+        synchronized (filesLock) {
+            pendingFiles.add(fileName);
+        }
+        boolean written = false;
+        try {
+            writeFile(fileName, value);
+            written = true;
+            return fileName;
+        } finally {
+            if (!written) {
+                synchronized (filesLock) {
+                    pendingFiles.remove(fileName);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes value file with provided name and waits until it is stored on disk
+     *
+     * @param fileName file name
+     * @param value    file content
+     * @throws PropertyAccessException when file can't be written
+     */
+    private void writeFile(String fileName, String value) throws PropertyAccessException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new PropertyAccessException("Failed to create directory " + directory);
+        }
+
+        final File file = new File(directory, fileName);
+        final ByteBuffer buffer;
+        try {
+            buffer = UTF_8.newEncoder().encode(CharBuffer.wrap(value));
+        } catch (CharacterCodingException e) {
+            throw new PropertyAccessException("Failed to encode value", e);
+        }
+
+        FileOutputStream output = null;
+        try {
+            output = new FileOutputStream(file);
+            final FileChannel channel = output.getChannel();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            close(output);
+            if (!file.delete()) {
+                Log.w(TAG, "Failed to delete incomplete value file " + fileName);
+            }
+            throw new PropertyAccessException("Failed to write value file " + fileName, e);
+        } finally {
+            close(output);
+        }
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // Can't do anything
+            }
+        }
+    }
+
+    /**
+     * Large value properties reader
+     */
+    private final PropertyReader reader = new AbstractPropertyReader() {
+        @Override
+        public boolean contains(@Nonnull String key) {
+            return store.getReader().contains(key);
+        }
+
+        @Override
+        public int getInt(@Nonnull String key, int defaultValue)
+                throws PropertyAccessException {
+            return store.getReader().getInt(key, defaultValue);
+        }
+
+        @Override
+        public long getLong(@Nonnull String key, long defaultValue)
+                throws PropertyAccessException {
+            return store.getReader().getLong(key, defaultValue);
+        }
+
+        @Override
+        public float getFloat(@Nonnull String key, float defaultValue)
+                throws PropertyAccessException {
+            return store.getReader().getFloat(key, defaultValue);
+        }
+
+        @Override
+        public double getDouble(@Nonnull String key, double defaultValue)
+                throws PropertyAccessException {
+            return store.getReader().getDouble(key, defaultValue);
+        }
+
+        @Override
+        public boolean getBoolean(@Nonnull String key, boolean defaultValue)
+                throws PropertyAccessException {
+            return store.getReader().getBoolean(key, defaultValue);
+        }
+
+        @Override
+        public String getString(@Nonnull String key, String defaultValue)
+                throws PropertyAccessException {
+            return resolve(store.getReader().getString(key, null), defaultValue);
+        }
+
+        @Override
+        public Set<String> getStringSet(@Nonnull String key, Set<String> defaultValue)
+                throws PropertyAccessException {
+            return store.getReader().getStringSet(key, defaultValue);
+        }
+    };
+
+    /**
+     * Large value properties writer. Value files are written while editing, so reference stored
+     * in underlying store always points to a complete file. Replaced files are deleted once
+     * changes are known to be committed.
+     */
+    private final PropertyWriter writer = new AbstractPropertyWriter() {
+        /**
+         * Files of changes being edited by the current thread
+         */
+        private final ThreadLocal<Edit> edits = new ThreadLocal<>();
+
+        /**
+         * Ensures that {@link PropertyWriter#edit()} has been called
+         *
+         * @return underlying store writer
+         */
+        private PropertyWriter ensureInEditMode() {
+            if (edits.get() == null) {
+                throw new IllegalStateException();
+            }
+            return store.getWriter();
+        }
+
+        /**
+         * Remembers value file currently referenced by provided key to be deleted after commit.
+         * File written for the key by the current changes is deleted right away, as it is never
+         * committed.
+         *
+         * @param key property name
+         */
+        private void replace(String key) {
+            final Edit edit = edits.get();
+            final String writtenFile = edit.writtenFiles.remove(key);
+            if (writtenFile != null) {
+                synchronized (filesLock) {
+                    pendingFiles.remove(writtenFile);
+                    deleteFile(writtenFile);
+                }
+                return;
+            }
+
+            String fileName = null;
+            try {
+                fileName = referencedFile(store.getReader().getString(key, null));
+            } catch (PropertyAccessException | ClassCastException e) {
+                // Current value is not a reference
+            }
+            if (fileName != null) {
+                edit.replacedFiles.put(fileName, key);
+            }
+        }
+
+        @Override
+        public void edit() {
+            store.getWriter().edit();
+            final Edit abandoned = edits.get();
+            if (abandoned != null && !abandoned.writtenFiles.isEmpty()) {
+                synchronized (filesLock) {
+                    for (String fileName : abandoned.writtenFiles.values()) {
+                        pendingFiles.remove(fileName);
+                        deleteFile(fileName);
+                    }
+                }
+            }
+            edits.set(new Edit());
+        }
+
+        @Override
+        public void commit() {
+            final PropertyWriter storeWriter = ensureInEditMode();
+            final Edit edit = edits.get();
+            final Edit asyncEdit = takeAsyncCommitted();
+            storeWriter.commit();
+            edits.set(new Edit());
+            synchronized (filesLock) {
+                asyncEdit.add(edit);
+                release(asyncEdit);
+            }
+        }
+
+        @Override
+        public void commitAsync() {
+            final PropertyWriter storeWriter = ensureInEditMode();
+            final Edit edit = edits.get();
+            storeWriter.commitAsync();
+            edits.set(new Edit());
+            synchronized (filesLock) {
+                asyncCommitted.add(edit);
+            }
+        }
+
+        @Override
+        public void writeInt(@Nonnull String key, int value) throws PropertyAccessException {
+            final PropertyWriter storeWriter = ensureInEditMode();
+            replace(key);
+            storeWriter.writeInt(key, value);
+        }
+
+        @Override
+        public void writeLong(@Nonnull String key, long value) throws PropertyAccessException {
+            final PropertyWriter storeWriter = ensureInEditMode();
+            replace(key);
+            storeWriter.writeLong(key, value);
+        }
+
+        @Override
+        public void writeFloat(@Nonnull String key, float value)
+                throws PropertyAccessException {
+            final PropertyWriter storeWriter = ensureInEditMode();
+            replace(key);
+            storeWriter.writeFloat(key, value);
+        }
+
+        @Override
+        public void writeDouble(@Nonnull String key, double value)
+                throws PropertyAccessException {
+            final PropertyWriter storeWriter = ensureInEditMode();
+            replace(key);
+            storeWriter.writeDouble(key, value);
+        }
+
+        @Override
+        public void writeBoolean(@Nonnull String key, boolean value)
+                throws PropertyAccessException {
+            final PropertyWriter storeWriter = ensureInEditMode();
+            replace(key);
+            storeWriter.writeBoolean(key, value);
+        }
+
+        @Override
+        public void writeString(@Nonnull String key, String value)
+                throws PropertyAccessException {
+            Preconditions.checkNotNull(key, "key must not be null");
+            final PropertyWriter storeWriter = ensureInEditMode();
+            replace(key);
+            if (value == null) {
+                storeWriter.writeString(key, null);
+            } else if (value.length() > threshold) {
+                final String fileName = writeFile(value);
+                edits.get().writtenFiles.put(key, fileName);
+                storeWriter.writeString(key, REFERENCE_PREFIX + fileName);
+            } else if (!value.isEmpty() && value.charAt(0) == ESCAPE) {
+                storeWriter.writeString(key, ESCAPE + value);
+            } else {
+                storeWriter.writeString(key, value);
+            }
+        }
+
+        @Override
+        public void writeStringSet(@Nonnull String key, Set<String> value)
+                throws PropertyAccessException {
+            final PropertyWriter storeWriter = ensureInEditMode();
+            replace(key);
+            storeWriter.writeStringSet(key, value);
+        }
+
+        @Override
+        public void remove(@Nonnull String key) {
+            final PropertyWriter storeWriter = ensureInEditMode();
+            replace(key);
+            storeWriter.remove(key);
+        }
+    };
+
+    private final OnPropertyChangeListener globalListener = new OnPropertyChangeListener() {
+        @Override
+        public void onPropertyChanged(@Nonnull PropertyStore propertyStore, @Nonnull String key) {
+            final List<OnPropertyChangeListener> listenersCopy;
+            synchronized (LargeValuePropertyStore.this) {
+                listenersCopy = new ArrayList<>(listeners);
+            }
+
+            for (OnPropertyChangeListener listener : listenersCopy) {
+                listener.onPropertyChanged(LargeValuePropertyStore.this, key);
+            }
+        }
+    };
+
+    /**
+     * Value files written and replaced by changes
+     */
+    private static final class Edit {
+        /**
+         * Written files, by property name
+         */
+        final Map<String, String> writtenFiles = new HashMap<>();
+        /**
+         * Replaced files, by file name, with property names which referenced them
+         */
+        final Map<String, String> replacedFiles = new HashMap<>();
+
+        /**
+         * Adds files of other changes, committed after changes of this instance
+         *
+         * @param edit files of the other changes
+         */
+        void add(Edit edit) {
+            for (Map.Entry<String, String> entry : edit.writtenFiles.entrySet()) {
+                final String replaced = writtenFiles.put(entry.getKey(), entry.getValue());
+                if (replaced != null) {
+                    replacedFiles.put(replaced, entry.getKey());
+                }
+            }
+            replacedFiles.putAll(edit.replacedFiles);
+        }
+    }
+}
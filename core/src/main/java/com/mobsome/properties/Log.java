@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+/**
+ * Library log calls, forwarded to the current {@link PropertyLogger}
+ */
+final class Log {
+    private Log() {
+    }
+
+    static void w(String tag, String message) {
+        PropertyLogging.getLogger().warning(tag, message);
+    }
+
+    static void e(String tag, String message) {
+        PropertyLogging.getLogger().error(tag, message);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+
+/**
+ * {@link PropertySnapshot} over immutable map of property values, which are typed in the same
+ * way as in {@code SharedPreferences}. Double values are held as strings.
+ */
+class MapPropertySnapshot extends AbstractPropertyReader implements PropertySnapshot {
+    private final Map<String, ?> values;
+
+    /**
+     * Creates snapshot of provided values
+     *
+     * @param values property values, must not be modified afterwards
+     */
+    MapPropertySnapshot(@Nonnull Map<String, ?> values) {
+        Preconditions.checkNotNull(values, "values must not be null");
+        this.values = values;
+    }
+
+    @Override
+    @Nonnull
+    public Set<String> keys() {
+        return Collections.unmodifiableSet(values.keySet());
+    }
+
+    @Override
+    public Object getValue(@Nonnull String key) {
+        Preconditions.checkNotNull(key, "key must not be null");
+        final Object value = values.get(key);
+        return value instanceof Set ? Collections.unmodifiableSet((Set<?>) value) : value;
+    }
+
+    @Override
+    public boolean contains(@Nonnull String key) {
+        Preconditions.checkNotNull(key, "key must not be null");
+        return values.containsKey(key);
+    }
+
+    @Override
+    public int getInt(@Nonnull String key, int defaultValue) {
+        Preconditions.checkNotNull(key, "key must not be null");
+        final Integer value = (Integer) values.get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public long getLong(@Nonnull String key, long defaultValue) {
+        Preconditions.checkNotNull(key, "key must not be null");
+        final Long value = (Long) values.get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public float getFloat(@Nonnull String key, float defaultValue) {
+        Preconditions.checkNotNull(key, "key must not be null");
+        final Float value = (Float) values.get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public double getDouble(@Nonnull String key, double defaultValue) {
+        Preconditions.checkNotNull(key, "key must not be null");
+        final String doubleValue = (String) values.get(key);
+        double value = defaultValue;
+        try {
+            if (doubleValue != null) {
+                value = Double.parseDouble(doubleValue);
+            }
+        } catch (NumberFormatException ex) {
+            // Can't do anything
+        }
+        return value;
+    }
+
+    @Override
+    public boolean getBoolean(@Nonnull String key, boolean defaultValue) {
+        Preconditions.checkNotNull(key, "key must not be null");
+        final Boolean value = (Boolean) values.get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public String getString(@Nonnull String key, String defaultValue) {
+        Preconditions.checkNotNull(key, "key must not be null");
+        final String value = (String) values.get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<String> getStringSet(@Nonnull String key, Set<String> defaultValue) {
+        Preconditions.checkNotNull(key, "key must not be null");
+        final Set<String> value = (Set<String>) values.get(key);
+        return value != null ? Collections.unmodifiableSet(value) : defaultValue;
+    }
+}
@@ -15,7 +15,7 @@
  */
 package com.mobsome.properties;
 
-import android.support.annotation.NonNull;
+import javax.annotation.Nonnull;
 
 /**
  * Interface definition for a callback to be invoked when a property is changed.
@@ -30,5 +30,5 @@ public interface OnPropertyChangeListener {
      * @param key           The key of the property that was changed, added, or
      *                      removed.
      */
-    void onPropertyChanged(@NonNull PropertyStore propertyStore, @NonNull String key);
+    void onPropertyChanged(@Nonnull PropertyStore propertyStore, @Nonnull String key);
 }
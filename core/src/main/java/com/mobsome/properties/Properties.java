@@ -0,0 +1,547 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Basic properties types
+ */
+public class Properties {
+
+    /**
+     * Property that holds integer value
+     */
+    public static class IntProperty extends Property<Integer> {
+        private static final String TAG = IntProperty.class.getSimpleName();
+
+        public IntProperty(@Nonnull String name, int defaultValue,
+                           @Nonnull PropertyStore store) {
+            super(name, defaultValue, store);
+        }
+
+        @Override
+        protected Integer readValue(@Nonnull PropertyReader reader) throws PropertyAccessException {
+            Preconditions.checkNotNull(reader, "reader must not be null");
+            return reader.getInt(key, defaultValue);
+        }
+
+        @Override
+        protected void writeValue(@Nonnull PropertyWriter writer, Integer value) {
+            Preconditions.checkNotNull(writer, "writer must not be null");
+            try {
+                writer.writeInt(key, value);
+            } catch (PropertyAccessException e) {
+                Log.e(TAG, "Failed to store property '" + name + "', " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Property that holds long value
+     */
+    public static class LongProperty extends Property<Long> {
+        private static final String TAG = LongProperty.class.getSimpleName();
+
+        public LongProperty(@Nonnull String name, long defaultValue,
+                            @Nonnull PropertyStore store) {
+            super(name, defaultValue, store);
+        }
+
+        @Override
+        protected Long readValue(@Nonnull PropertyReader reader) throws PropertyAccessException {
+            Preconditions.checkNotNull(reader, "reader must not be null");
+            return reader.getLong(key, defaultValue);
+        }
+
+        @Override
+        protected void writeValue(@Nonnull PropertyWriter writer, Long value) {
+            Preconditions.checkNotNull(writer, "writer must not be null");
+            try {
+                writer.writeLong(key, value);
+            } catch (PropertyAccessException e) {
+                Log.e(TAG, "Failed to store property '" + name + "', " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Property that holds float value
+     */
+    public static class FloatProperty extends Property<Float> {
+        private static final String TAG = FloatProperty.class.getSimpleName();
+
+        public FloatProperty(@Nonnull String name, float defaultValue,
+                             @Nonnull PropertyStore store) {
+            super(name, defaultValue, store);
+        }
+
+        @Override
+        protected Float readValue(@Nonnull PropertyReader reader) throws PropertyAccessException {
+            Preconditions.checkNotNull(reader, "reader must not be null");
+            return reader.getFloat(key, defaultValue);
+        }
+
+        @Override
+        protected void writeValue(@Nonnull PropertyWriter writer, Float value) {
+            Preconditions.checkNotNull(writer, "writer must not be null");
+            try {
+                writer.writeFloat(key, value);
+            } catch (PropertyAccessException e) {
+                Log.e(TAG, "Failed to store property '" + name + "', " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Property that holds double value
+     */
+    public static class DoubleProperty extends Property<Double> {
+        private static final String TAG = DoubleProperty.class.getSimpleName();
+
+        public DoubleProperty(@Nonnull String name, double defaultValue,
+                              @Nonnull PropertyStore store) {
+            super(name, defaultValue, store);
+        }
+
+        @Override
+        protected Double readValue(@Nonnull PropertyReader reader) throws PropertyAccessException {
+            Preconditions.checkNotNull(reader, "reader must not be null");
+            return reader.getDouble(key, defaultValue);
+        }
+
+        @Override
+        protected void writeValue(@Nonnull PropertyWriter writer, Double value) {
+            Preconditions.checkNotNull(writer, "writer must not be null");
+            try {
+                writer.writeDouble(key, value);
+            } catch (PropertyAccessException e) {
+                Log.e(TAG, "Failed to store property '" + name + "', " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Property that holds boolean value
+     */
+    public static class BooleanProperty extends Property<Boolean> {
+        private static final String TAG = BooleanProperty.class.getSimpleName();
+
+        public BooleanProperty(@Nonnull String name, boolean defaultValue,
+                               @Nonnull PropertyStore store) {
+            super(name, defaultValue, store);
+        }
+
+        @Override
+        protected Boolean readValue(@Nonnull PropertyReader reader) throws PropertyAccessException {
+            Preconditions.checkNotNull(reader, "reader must not be null");
+            return reader.getBoolean(key, defaultValue);
+        }
+
+        @Override
+        protected void writeValue(@Nonnull PropertyWriter writer, Boolean value) {
+            Preconditions.checkNotNull(writer, "writer must not be null");
+            try {
+                writer.writeBoolean(key, value);
+            } catch (PropertyAccessException e) {
+                Log.e(TAG, "Failed to store property '" + name + "', " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Property that holds string value. Values longer than compression threshold may be stored
+     * compressed, in which case decompressed value is kept in memory and decompressed again only
+     * when stored value changes.
+     */
+    public static class StringProperty extends Property<String> {
+        private static final String TAG = StringProperty.class.getSimpleName();
+        /**
+         * Compression threshold value disabling compression
+         */
+        private static final int NO_COMPRESSION = -1;
+        private final int compressionThreshold;
+        /**
+         * Last compressed value along with its decompressed form
+         */
+        private volatile Decompressed decompressed;
+
+        public StringProperty(@Nonnull String name, String defaultValue,
+                              @Nonnull PropertyStore store) {
+            this(name, defaultValue, store, NO_COMPRESSION);
+        }
+
+        /**
+         * Creates string property which compresses values longer than provided threshold
+         * before they are passed to the store, and thus before they are encrypted
+         * by {@code SecurePreferencesStore}
+         *
+         * @param name                 property name
+         * @param defaultValue         default property value
+         * @param store                persisting mechanism
+         * @param compressionThreshold length of value above which it is compressed, or -1
+         *                             to disable compression
+         */
+        public StringProperty(@Nonnull String name, String defaultValue,
+                              @Nonnull PropertyStore store, int compressionThreshold) {
+            super(name, defaultValue, store);
+            this.compressionThreshold = compressionThreshold;
+        }
+
+        @Override
+        protected String readValue(@Nonnull PropertyReader reader)
+                throws PropertyAccessException {
+            Preconditions.checkNotNull(reader, "reader must not be null");
+            final String value = reader.getString(key, defaultValue);
+            if (compressionThreshold == NO_COMPRESSION || value == null) {
+                return value;
+            }
+
+            final Decompressed last = decompressed;
+            if (last != null && value.equals(last.storedValue)) {
+                return last.value;
+            }
+            final String result = StringCompression.decompress(value);
+            decompressed = new Decompressed(value, result);
+            return result;
+        }
+
+        @Override
+        protected void writeValue(@Nonnull PropertyWriter writer, String value) {
+            Preconditions.checkNotNull(writer, "writer must not be null");
+            try {
+                if (compressionThreshold == NO_COMPRESSION || value == null) {
+                    writer.writeString(key, value);
+                } else {
+                    final String storedValue =
+                            StringCompression.compress(value, compressionThreshold);
+                    writer.writeString(key, storedValue);
+                    decompressed = new Decompressed(storedValue, value);
+                }
+            } catch (PropertyAccessException e) {
+                Log.e(TAG, "Failed to store property '" + name + "', " + e.getMessage());
+            }
+        }
+
+        /**
+         * Stored value along with its decompressed form
+         */
+        private static final class Decompressed {
+            final String storedValue;
+            final String value;
+
+            Decompressed(String storedValue, String value) {
+                this.storedValue = storedValue;
+                this.value = value;
+            }
+        }
+    }
+
+    /**
+     * Property that holds enum value. Stored values which don't match any constant, e.g. after
+     * constant has been renamed, are read as default value.
+     */
+    public static class EnumProperty<E extends Enum<E>> extends Property<E> {
+        private static final String TAG = EnumProperty.class.getSimpleName();
+
+        /**
+         * Enum value storage mode
+         */
+        public enum Storage {
+            /**
+             * Enum constant is stored as its name
+             */
+            NAME,
+            /**
+             * Enum constant is stored as its {@link CodedEnum#getCode()}, so enum must
+             * implement {@link CodedEnum}. Values stored as names are still read.
+             */
+            CODE
+        }
+
+        private final EnumLookup<E> lookup;
+        private final Storage storage;
+
+        public EnumProperty(@Nonnull String name, E defaultValue,
+                            @Nonnull PropertyStore store) {
+            this(name, defaultValue, store, Storage.NAME);
+        }
+
+        /**
+         * @throws IllegalArgumentException if storage is {@link Storage#CODE} and enum doesn't
+         *                                  implement {@link CodedEnum}
+         */
+        public EnumProperty(@Nonnull String name, E defaultValue,
+                            @Nonnull PropertyStore store, @Nonnull Storage storage) {
+            super(name, defaultValue, store);
+            Preconditions.checkNotNull(defaultValue, "defaultValue must not be null");
+            Preconditions.checkNotNull(storage, "storage must not be null");
+            if (storage == Storage.CODE && !(defaultValue instanceof CodedEnum)) {
+                throw new IllegalArgumentException(defaultValue.getDeclaringClass().getName()
+                        + " must implement CodedEnum to be stored as code");
+            }
+            lookup = EnumLookup.of(defaultValue.getDeclaringClass());
+            this.storage = storage;
+        }
+
+        @Override
+        protected E readValue(@Nonnull PropertyReader reader) throws PropertyAccessException {
+            Preconditions.checkNotNull(reader, "reader must not be null");
+            if (storage == Storage.CODE) {
+                try {
+                    return forCode(reader.getInt(key, EnumLookup.codeOf(defaultValue)));
+                } catch (ClassCastException | NumberFormatException e) {
+                    // Value has been stored as name
+                }
+            }
+
+            final String value;
+            try {
+                value = reader.getString(key, null);
+            } catch (ClassCastException e) {
+                throw new PropertyAccessException("Value is not stored as enum name", e);
+            }
+            if (value == null) {
+                return null;
+            }
+
+            final E constant = lookup.forName(value);
+            if (constant == null) {
+                throw new PropertyAccessException("Unknown value '" + value + "'");
+            }
+            return constant;
+        }
+
+        private E forCode(int code) throws PropertyAccessException {
+            final E constant = lookup.forCode(code);
+            if (constant == null) {
+                throw new PropertyAccessException("Unknown code " + code);
+            }
+            return constant;
+        }
+
+        @Override
+        protected void writeValue(@Nonnull PropertyWriter writer, E value) {
+            Preconditions.checkNotNull(writer, "writer must not be null");
+            try {
+                if (value == null) {
+                    writer.remove(key);
+                } else if (storage == Storage.CODE) {
+                    writer.writeInt(key, EnumLookup.codeOf(value));
+                } else {
+                    writer.writeString(key, value.name());
+                }
+            } catch (PropertyAccessException e) {
+                Log.e(TAG, "Failed to store property '" + name + "', " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Property that holds set of strings. Values returned by {@link #get()} are immutable
+     * snapshots, which are replaced on every change.
+     */
+    public static class StringSetProperty extends Property<Set<String>> {
+        private static final String TAG = StringSetProperty.class.getSimpleName();
+
+        public StringSetProperty(@Nonnull String name, Set<String> defaultValue,
+                                 @Nonnull PropertyStore store) {
+            super(name, immutableCopy(defaultValue), store);
+        }
+
+        private static Set<String> immutableCopy(Set<String> value) {
+            return value != null ? Collections.unmodifiableSet(new HashSet<>(value)) : null;
+        }
+
+        @Override
+        Set<String> snapshot(Set<String> value) {
+            return immutableCopy(value);
+        }
+
+        @Override
+        protected Set<String> readValue(@Nonnull PropertyReader reader)
+                throws PropertyAccessException {
+            Preconditions.checkNotNull(reader, "reader must not be null");
+            return reader.getStringSet(key, defaultValue);
+        }
+
+        @Override
+        protected void writeValue(@Nonnull PropertyWriter writer, Set<String> value) {
+            Preconditions.checkNotNull(writer, "writer must not be null");
+            try {
+                writer.writeStringSet(key, value);
+            } catch (PropertyAccessException e) {
+                Log.e(TAG, "Failed to store property '" + name + "', " + e.getMessage());
+            }
+        }
+
+        /**
+         * Adds string to this set. Set is changed in memory on the calling thread and persisted
+         * asynchronously, so adding several strings one by one doesn't wait for a commit each.
+         * Use {@link #addAll(Collection)} to add them with a single write.
+         *
+         * @param value string to be added
+         * @return whether set has been changed
+         */
+        public final boolean add(String value) {
+            return addAll(Collections.singleton(value), true);
+        }
+
+        /**
+         * Adds strings to this set with a single write. Operation is performed on the same
+         * calling thread.
+         *
+         * @param values strings to be added
+         * @return whether set has been changed
+         */
+        public final boolean addAll(@Nonnull Collection<String> values) {
+            return addAll(values, false);
+        }
+
+        private boolean addAll(@Nonnull Collection<String> values, boolean async) {
+            Preconditions.checkNotNull(values, "values must not be null");
+            Set<String> current;
+            Set<String> result;
+            do {
+                current = get();
+                result = current != null ? new HashSet<>(current) : new HashSet<String>();
+                if (!result.addAll(values)) {
+                    return false;
+                }
+            } while (!compareAndSet(current, result, async));
+            return true;
+        }
+
+        /**
+         * Removes string from this set. Set is changed in memory on the calling thread and
+         * persisted asynchronously. Use {@link #removeAll(Collection)} to remove several strings
+         * with a single write.
+         *
+         * @param value string to be removed
+         * @return whether set has been changed
+         */
+        public final boolean remove(String value) {
+            return removeAll(Collections.singleton(value), true);
+        }
+
+        /**
+         * Removes strings from this set with a single write. Operation is performed on the same
+         * calling thread.
+         *
+         * @param values strings to be removed
+         * @return whether set has been changed
+         */
+        public final boolean removeAll(@Nonnull Collection<String> values) {
+            return removeAll(values, false);
+        }
+
+        private boolean removeAll(@Nonnull Collection<String> values, boolean async) {
+            Preconditions.checkNotNull(values, "values must not be null");
+            Set<String> current;
+            Set<String> result;
+            do {
+                current = get();
+                if (current == null) {
+                    return false;
+                }
+                result = new HashSet<>(current);
+                if (!result.removeAll(values)) {
+                    return false;
+                }
+            } while (!compareAndSet(current, result, async));
+            return true;
+        }
+
+        /**
+         * Checks whether this set contains provided string
+         *
+         * @param value string to be checked
+         * @return whether string is contained in this set
+         */
+        public final boolean contains(String value) {
+            final Set<String> current = get();
+            return current != null && current.contains(value);
+        }
+    }
+
+    /**
+     * Property that holds value of custom type, persisted as string encoded by
+     * {@link PropertyCodec}. Decoded value is kept in memory and decoded again only when
+     * stored string changes.
+     */
+    public static class ObjectProperty<T> extends Property<T> {
+        private static final String TAG = ObjectProperty.class.getSimpleName();
+        private final PropertyCodec<T> codec;
+        /**
+         * Last encoded value along with its decoded form
+         */
+        private volatile Decoded<T> decoded;
+
+        public ObjectProperty(@Nonnull String name, T defaultValue,
+                              @Nonnull PropertyCodec<T> codec, @Nonnull PropertyStore store) {
+            super(name, defaultValue, store);
+            Preconditions.checkNotNull(codec, "codec must not be null");
+            this.codec = codec;
+        }
+
+        @Override
+        protected T readValue(@Nonnull PropertyReader reader) throws PropertyAccessException {
+            Preconditions.checkNotNull(reader, "reader must not be null");
+            final String data = reader.getString(key, null);
+            if (data == null) {
+                return null;
+            }
+
+            final Decoded<T> last = decoded;
+            if (last != null && data.equals(last.data)) {
+                return last.value;
+            }
+            final T value = codec.decode(data);
+            decoded = new Decoded<>(data, value);
+            return value;
+        }
+
+        @Override
+        protected void writeValue(@Nonnull PropertyWriter writer, T value) {
+            Preconditions.checkNotNull(writer, "writer must not be null");
+            try {
+                final String data = value != null ? codec.encode(value) : null;
+                writer.writeString(key, data);
+                decoded = data != null ? new Decoded<>(data, value) : null;
+            } catch (PropertyAccessException e) {
+                Log.e(TAG, "Failed to store property '" + name + "', " + e.getMessage());
+            }
+        }
+
+        /**
+         * Encoded value along with its decoded form
+         */
+        private static final class Decoded<T> {
+            final String data;
+            final T value;
+
+            Decoded(String data, T value) {
+                this.data = data;
+                this.value = value;
+            }
+        }
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Group of properties that are stored within single {@link com.mobsome.properties.PropertyStore}
+ */
+public abstract class PropertiesGroup {
+    private final PropertyStore store;
+    private final boolean storeOnlyOverrides;
+    /**
+     * Properties created by this group
+     */
+    private final List<Property<?>> properties = new CopyOnWriteArrayList<>();
+    /**
+     * Expiring properties created by this group, by properties holding their values
+     */
+    private final Map<Property<?>, ExpiringProperty<?>> expiringProperties =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Creates group of properties with specified {@link com.mobsome.properties.PropertyStore}
+     *
+     * @param store property store for this property group
+     */
+    public PropertiesGroup(@Nonnull PropertyStore store) {
+        this(store, false);
+    }
+
+    /**
+     * Creates group of properties with specified {@link com.mobsome.properties.PropertyStore}
+     *
+     * @param store              property store for this property group
+     * @param storeOnlyOverrides whether properties of this group remove values equal to their
+     *                           defaults instead of storing them
+     * @see Property#setStoreOnlyOverrides(boolean)
+     */
+    public PropertiesGroup(@Nonnull PropertyStore store, boolean storeOnlyOverrides) {
+        Preconditions.checkNotNull(store, "store must not be null");
+        this.store = store;
+        this.storeOnlyOverrides = storeOnlyOverrides;
+    }
+
+    /**
+     * Returns store of this group
+     *
+     * @return property store
+     */
+    @Nonnull
+    protected final PropertyStore getStore() {
+        return store;
+    }
+
+    /**
+     * Starts loading store of this group on a background thread
+     *
+     * @return future completed once store is loaded
+     * @see PropertyStore#preload()
+     */
+    @Nonnull
+    public Future<Void> preload() {
+        return store.preload();
+    }
+
+    /**
+     * Removes stored values of properties created by this group which are equal to their
+     * defaults, with a single commit
+     *
+     * @return number of removed values
+     * @see PropertyCompaction
+     */
+    public int compact() {
+        return PropertyCompaction.compact(properties);
+    }
+
+    /**
+     * Returns properties created by this group
+     *
+     * @return unmodifiable list of properties
+     */
+    @Nonnull
+    protected final List<Property<?>> getProperties() {
+        return Collections.unmodifiableList(properties);
+    }
+
+    /**
+     * Resets all properties of this group to their default values and removes their stored
+     * values with a single commit
+     */
+    public void resetAll() {
+        final List<Property<?>> locked = Property.lockAll(properties);
+        try {
+            final PropertyWriter writer = store.getWriter();
+            writer.edit();
+            for (Property<?> property : locked) {
+                property.reset(writer);
+            }
+            writer.commit();
+        } finally {
+            Property.unlockAll(locked);
+        }
+    }
+
+    /**
+     * Reads values of all properties of this group again from a single store snapshot, e.g.
+     * after the store has been changed by another process. Values set but not yet persisted
+     * are kept.
+     *
+     * @return number of properties which values have changed
+     */
+    public int reloadAll() {
+        final List<Property<?>> locked = Property.lockAll(properties);
+        try {
+            final PropertySnapshot snapshot = store.snapshot();
+            int changed = 0;
+            for (Property<?> property : locked) {
+                if (property.reload(snapshot)) {
+                    changed++;
+                }
+            }
+            return changed;
+        } finally {
+            Property.unlockAll(locked);
+        }
+    }
+
+    /**
+     * Returns current values of all properties of this group, or default values of properties
+     * not set. Values not restored yet are read from a single store snapshot.
+     *
+     * @return unmodifiable map of property names to values, in order of property creation
+     */
+    @Nonnull
+    public Map<String, Object> exportAll() {
+        final Map<String, Object> values = new LinkedHashMap<>();
+        PropertySnapshot snapshot = null;
+        for (Property<?> property : properties) {
+            final ExpiringProperty<?> expiringProperty = expiringProperties.get(property);
+            if (expiringProperty != null) {
+                values.put(property.name, expiringProperty.get());
+            } else if (property.isRestored()) {
+                values.put(property.name, property.get());
+            } else {
+                if (snapshot == null) {
+                    snapshot = store.snapshot();
+                }
+                values.put(property.name, property.get(snapshot));
+            }
+        }
+        return Collections.unmodifiableMap(values);
+    }
+
+    /**
+     * Registers property of this group created without factory methods of this group, so bulk
+     * operations cover it as well
+     *
+     * @param property property stored in the store of this group
+     * @param <P>      property type
+     * @return provided property
+     */
+    protected final <P extends Property<?>> P register(@Nonnull P property) {
+        Preconditions.checkNotNull(property, "property must not be null");
+        if (property.getStore() != store) {
+            throw new IllegalArgumentException("property must use store of this group");
+        }
+        property.setStoreOnlyOverrides(storeOnlyOverrides);
+        properties.add(property);
+        return property;
+    }
+
+    /**
+     * Registers expiring property of this group created without factory methods of this
+     * group, so bulk operations cover it as well
+     *
+     * @param property expiring property stored in the store of this group
+     * @param <T>      property value type
+     * @return provided property
+     */
+    protected final <T> ExpiringProperty<T> register(@Nonnull ExpiringProperty<T> property) {
+        Preconditions.checkNotNull(property, "property must not be null");
+        expiringProperties.put(register(property.property), property);
+        return property;
+    }
+
+    /**
+     * Creates integer property for this group
+     *
+     * @param key          property name
+     * @param defaultValue default property value
+     * @return integer property for this group
+     */
+    protected Properties.IntProperty createProperty(String key, int defaultValue) {
+        return register(new Properties.IntProperty(key, defaultValue, store));
+    }
+
+    /**
+     * Creates long property for this group
+     *
+     * @param key          property name
+     * @param defaultValue default property value
+     * @return long property for this group
+     */
+    protected Properties.LongProperty createProperty(String key, long defaultValue) {
+        return register(new Properties.LongProperty(key, defaultValue, store));
+    }
+
+    /**
+     * Creates float property for this group
+     *
+     * @param key          property name
+     * @param defaultValue default property value
+     * @return float property for this group
+     */
+    protected Properties.FloatProperty createProperty(String key, float defaultValue) {
+        return register(new Properties.FloatProperty(key, defaultValue, store));
+    }
+
+    /**
+     * Creates double property for this group
+     *
+     * @param key          property name
+     * @param defaultValue default property value
+     * @return double property for this group
+     */
+    protected Properties.DoubleProperty createProperty(String key, double defaultValue) {
+        return register(new Properties.DoubleProperty(key, defaultValue, store));
+    }
+
+    /**
+     * Creates boolean property for this group
+     *
+     * @param key          property name
+     * @param defaultValue default property value
+     * @return boolean property for this group
+     */
+    protected Properties.BooleanProperty createProperty(String key, boolean defaultValue) {
+        return register(new Properties.BooleanProperty(key, defaultValue, store));
+    }
+
+    /**
+     * Creates string property for this group
+     *
+     * @param key          property name
+     * @param defaultValue default property value
+     * @return string property for this group
+     */
+    protected Properties.StringProperty createProperty(String key, String defaultValue) {
+        return register(new Properties.StringProperty(key, defaultValue, store));
+    }
+
+    /**
+     * Creates string property for this group, which compresses long values before they are
+     * stored
+     *
+     * @param key          property name
+     * @param defaultValue default property value
+     * @return string property for this group
+     */
+    protected Properties.StringProperty createCompressedProperty(String key,
+                                                                 String defaultValue) {
+        return register(new Properties.StringProperty(key, defaultValue, store,
+                StringCompression.DEFAULT_THRESHOLD));
+    }
+
+    /**
+     * Creates string set property for this group
+     *
+     * @param key          property name
+     * @param defaultValue default property value
+     * @return string set property for this group
+     */
+    protected Properties.StringSetProperty createProperty(String key, Set<String> defaultValue) {
+        return register(new Properties.StringSetProperty(key, defaultValue, store));
+    }
+
+    /**
+     * Creates enum property for this group
+     *
+     * @param key          property name
+     * @param defaultValue default property value
+     * @param <E>          enum type
+     * @return enum property for this group
+     */
+    protected <E extends Enum<E>> Properties.EnumProperty<E> createProperty(String key,
+                                                                            E defaultValue) {
+        return register(new Properties.EnumProperty<>(key, defaultValue, store));
+    }
+
+    /**
+     * Creates enum property for this group with provided storage mode
+     *
+     * @param key          property name
+     * @param defaultValue default property value
+     * @param storage      enum value storage mode
+     * @param <E>          enum type
+     * @return enum property for this group
+     */
+    protected <E extends Enum<E>> Properties.EnumProperty<E> createProperty(
+            String key, E defaultValue, Properties.EnumProperty.Storage storage) {
+        return register(new Properties.EnumProperty<>(key, defaultValue, store, storage));
+    }
+
+    /**
+     * Creates property of custom type for this group
+     *
+     * @param key          property name
+     * @param defaultValue default property value
+     * @param codec        codec converting property value to string and back
+     * @param <T>          property value type
+     * @return custom type property for this group
+     */
+    protected <T> Properties.ObjectProperty<T> createProperty(String key, T defaultValue,
+                                                              PropertyCodec<T> codec) {
+        return register(new Properties.ObjectProperty<>(key, defaultValue, codec, store));
+    }
+
+    /**
+     * Creates property for this group which value expires after provided time
+     *
+     * @param key          property name
+     * @param defaultValue default property value, also returned once value expires
+     * @param codec        codec converting property value to string and back, e.g. one of
+     *                     {@link PropertyCodecs}
+     * @param timeToLive   time after which values expire
+     * @param unit         time to live unit
+     * @param <T>          property value type
+     * @return expiring property for this group
+     */
+    protected <T> ExpiringProperty<T> createExpiringProperty(String key, T defaultValue,
+                                                             PropertyCodec<T> codec,
+                                                             long timeToLive, TimeUnit unit) {
+        return register(
+                new ExpiringProperty<>(key, defaultValue, codec, timeToLive, unit, store));
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Creates {@link PropertiesGroup} instances in parallel on worker threads and preloads their
+ * stores, so application startup doesn't wait for property I/O. Groups needed right away can be
+ * waited for individually, while the others keep loading in background.
+ * <pre>
+ * final PropertiesStartup startup = new PropertiesStartup();
+ * final Future&lt;UserProperties&gt; user = startup.add(new Callable&lt;UserProperties&gt;() {
+ *     public UserProperties call() {
+ *         return new UserProperties(new SharedPreferencesStore(context, "user"));
+ *     }
+ * });
+ * </pre>
+ */
+public class PropertiesStartup {
+    private final Executor executor;
+    private final List<Future<?>> groups = new ArrayList<>();
+
+    /**
+     * Creates startup which initializes groups on shared background threads
+     */
+    public PropertiesStartup() {
+        this(PropertyExecutors.background());
+    }
+
+    /**
+     * Creates startup which initializes groups with provided executor
+     *
+     * @param executor executor creating groups
+     */
+    public PropertiesStartup(@Nonnull Executor executor) {
+        Preconditions.checkNotNull(executor, "executor must not be null");
+        this.executor = executor;
+    }
+
+    /**
+     * Starts creating group with provided factory. Group is completed once its store has been
+     * preloaded.
+     *
+     * @param factory factory creating the group
+     * @param <G>     group type
+     * @return future group
+     */
+    @Nonnull
+    public <G extends PropertiesGroup> Future<G> add(@Nonnull final Callable<G> factory) {
+        Preconditions.checkNotNull(factory, "factory must not be null");
+        final FutureTask<G> task = new FutureTask<>(new Callable<G>() {
+            @Override
+            public G call() throws Exception {
+                final G group = factory.call();
+                group.preload().get();
+                return group;
+            }
+        });
+        synchronized (groups) {
+            groups.add(task);
+        }
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * Waits until all groups added so far are created and their stores are loaded
+     *
+     * @throws InterruptedException when waiting thread is interrupted
+     * @throws ExecutionException   when creating any of the groups failed
+     */
+    public void await() throws InterruptedException, ExecutionException {
+        final List<Future<?>> groupsCopy;
+        synchronized (groups) {
+            groupsCopy = new ArrayList<>(groups);
+        }
+        for (Future<?> group : groupsCopy) {
+            group.get();
+        }
+    }
+}
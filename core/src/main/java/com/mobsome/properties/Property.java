@@ -0,0 +1,701 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Class representing single property
+ */
+public abstract class Property<T> {
+    private static final String TAG = Property.class.getSimpleName();
+    /**
+     * Number of properties created so far
+     */
+    private static final AtomicLong createdCount = new AtomicLong();
+    /**
+     * Orders properties by creation
+     */
+    private static final Comparator<Property<?>> CREATION_ORDER = new Comparator<Property<?>>() {
+        @Override
+        public int compare(Property<?> first, Property<?> second) {
+            return first.creationId < second.creationId ? -1
+                    : first.creationId == second.creationId ? 0 : 1;
+        }
+    };
+    /**
+     * Property name
+     */
+    final String name;
+    /**
+     * Handle of property name, used to read and write the value. Interned only if the handle
+     * has been created before this property, see {@link PropertyKey#existing(String)}.
+     */
+    final PropertyKey key;
+    /**
+     * Property default value
+     */
+    final T defaultValue;
+    /**
+     * Property store
+     */
+    private final PropertyStore store;
+    /**
+     * Current property state. Replaced atomically on every change, so reads never block.
+     */
+    private final AtomicReference<State<T>> state =
+            new AtomicReference<>(State.<T>unset());
+    /**
+     * Lock guarding writes to persistent storage
+     */
+    private final ReentrantLock persistLock = new ReentrantLock();
+    /**
+     * Sequence number of the last state written to persistent storage
+     */
+    private long persistedSequence;
+    /**
+     * Whether value has been restored from persistent storage
+     */
+    private volatile boolean restored;
+    /**
+     * Whether value equal to the default one is removed from persistent storage instead of
+     * being written
+     */
+    private volatile boolean storeOnlyOverrides;
+    /**
+     * Number of writes skipped because property already had the same value
+     */
+    private final AtomicLong skippedWrites = new AtomicLong();
+    /**
+     * Listeners notified about changes of in-memory value. Copied on write, so notifying
+     * costs nothing on the write path while there are no listeners.
+     */
+    private final List<OnPropertyChangeListener> listeners = new CopyOnWriteArrayList<>();
+    /**
+     * Unique number defining order in which persist locks of many properties are acquired
+     */
+    private final long creationId = createdCount.incrementAndGet();
+
+    /**
+     * Creates property with provided name, value and persisting mechanism. Value is restored
+     * from persistent storage when property is accessed for the first time, so creating
+     * property never waits for the store.
+     *
+     * @param name         property name
+     * @param defaultValue default property value
+     * @param store        persisting mechanism
+     */
+    Property(@Nonnull String name, T defaultValue, @Nonnull PropertyStore store) {
+        Preconditions.checkNotNull(name, "name must not be null");
+        Preconditions.checkNotNull(store, "store must not be null");
+        this.name = name;
+        this.key = PropertyKey.existing(name);
+        this.defaultValue = defaultValue;
+        this.store = store;
+    }
+
+    /**
+     * Returns current state, restoring value from persistent storage first if needed
+     *
+     * @return current property state
+     */
+    private State<T> restoredState() {
+        if (!restored) {
+            restore();
+        }
+        return state.get();
+    }
+
+    /**
+     * Restores property value from persistent storage, unless it has already been restored
+     */
+    private void restore() {
+        persistLock.lock();
+        try {
+            if (restored) {
+                return;
+            }
+            final PropertyReader reader = store.getReader();
+            if (reader.contains(key)) {
+                final State<T> current = state.get();
+                State<T> next;
+                try {
+                    next = current.next(snapshot(readValue(reader)));
+                } catch (PropertyAccessException e) {
+                    Log.e(TAG, "Failed to read property '" + name + "', " + e.getMessage());
+                    next = current.nextUnset();
+                }
+                state.set(next);
+                persistedSequence = next.sequence;
+                notifyChanged();
+            }
+            restored = true;
+        } finally {
+            persistLock.unlock();
+        }
+    }
+
+    /**
+     * Reads property value from persistent storage with provided reader. Implementations
+     * don't fall back to default value, so callers can tell values which can't be read apart
+     * from values equal to the default one.
+     *
+     * @param reader property value reader
+     * @return property value
+     * @throws PropertyAccessException when property access failed or stored value can't be
+     *                                 decoded
+     */
+    abstract T readValue(@Nonnull PropertyReader reader) throws PropertyAccessException;
+
+    /**
+     * Writes current property value to persistent storage. Does nothing when the current
+     * value has already been written by another thread, so concurrent changes of this
+     * property are persisted with a single commit.
+     *
+     * @param async whether operation should be performed asynchronously
+     */
+    final void persist(boolean async) {
+        persistLock.lock();
+        try {
+            final State<T> current = state.get();
+            if (!current.valueSet || current.sequence <= persistedSequence) {
+                return;
+            }
+
+            final PropertyWriter writer = store.getWriter();
+            writer.edit();
+            if (storeOnlyOverrides && valueEquals(current.value, defaultValue)) {
+                writer.remove(key);
+            } else {
+                try {
+                    writeValue(writer, current.value);
+                } catch (PropertyAccessException e) {
+                    Log.e(TAG, "Failed to store property '" + name + "', " + e.getMessage());
+                }
+            }
+
+            if (async) {
+                writer.commitAsync();
+            } else {
+                writer.commit();
+            }
+            persistedSequence = current.sequence;
+        } finally {
+            persistLock.unlock();
+        }
+    }
+
+    /**
+     * Returns store of this property
+     *
+     * @return property store
+     */
+    final PropertyStore getStore() {
+        return store;
+    }
+
+    /**
+     * Returns lock guarding writes of this property to persistent storage. While it is held,
+     * no other thread persists value of this property. Locks of many properties must be
+     * acquired with {@link #lockAll(Collection)} instead.
+     *
+     * @return persist lock
+     */
+    final Lock getPersistLock() {
+        return persistLock;
+    }
+
+    /**
+     * Acquires persist locks of provided properties in order of their creation. Every
+     * operation holding locks of many properties must acquire them with this method, so
+     * operations on overlapping sets of properties never deadlock.
+     *
+     * @param properties properties to be locked
+     * @return locked properties, to be passed to {@link #unlockAll(List)}
+     */
+    static List<Property<?>> lockAll(Collection<? extends Property<?>> properties) {
+        final List<Property<?>> sorted = new ArrayList<Property<?>>(properties);
+        Collections.sort(sorted, CREATION_ORDER);
+        final List<Property<?>> locked = new ArrayList<>(sorted.size());
+        try {
+            for (Property<?> property : sorted) {
+                property.persistLock.lock();
+                locked.add(property);
+            }
+        } catch (RuntimeException | Error e) {
+            unlockAll(locked);
+            throw e;
+        }
+        return locked;
+    }
+
+    /**
+     * Releases persist locks acquired with {@link #lockAll(Collection)}
+     *
+     * @param locked locked properties
+     */
+    static void unlockAll(List<Property<?>> locked) {
+        for (Property<?> property : locked) {
+            property.persistLock.unlock();
+        }
+    }
+
+    /**
+     * Removes value of this property, if it is still the expected one, with provided writer.
+     * Caller must hold {@link #getPersistLock()} until the writer is committed, so the removal
+     * is never committed after a newer value.
+     *
+     * @param expected expected current value
+     * @param writer   writer in edit mode
+     * @return whether value has been removed
+     */
+    final boolean remove(T expected, @Nonnull PropertyWriter writer) {
+        final State<T> current = state.get();
+        if (!current.valueSet || current.value != expected
+                || !state.compareAndSet(current, current.nextUnset())) {
+            return false;
+        }
+        writer.remove(key);
+        persistedSequence = current.sequence + 1;
+        notifyChanged();
+        return true;
+    }
+
+    /**
+     * Removes stored value of this property with provided writer if it is equal to the default
+     * one and no other value is waiting to be persisted. Values which can't be read or decoded
+     * are kept. Caller must hold {@link #getPersistLock()} until the writer is committed.
+     *
+     * @param snapshot snapshot of this property store, taken while holding persist lock
+     * @param writer   writer in edit mode
+     * @return whether value has been removed
+     */
+    final boolean removeIfDefault(@Nonnull PropertySnapshot snapshot,
+                                  @Nonnull PropertyWriter writer) {
+        if (!snapshot.contains(key)) {
+            return false;
+        }
+        final State<T> current = state.get();
+        if (current.valueSet && (current.sequence > persistedSequence
+                || !valueEquals(current.value, defaultValue))) {
+            return false;
+        }
+        try {
+            if (!valueEquals(snapshot(readValue(snapshot)), defaultValue)) {
+                return false;
+            }
+        } catch (PropertyAccessException | ClassCastException e) {
+            Log.e(TAG, "Failed to read property '" + name + "', " + e.getMessage());
+            return false;
+        }
+        writer.remove(key);
+        return true;
+    }
+
+    /**
+     * Resets this property to its default value and removes stored value with provided writer.
+     * Caller must hold {@link #getPersistLock()} until the writer is committed.
+     *
+     * @param writer writer in edit mode
+     */
+    final void reset(@Nonnull PropertyWriter writer) {
+        State<T> current;
+        State<T> next;
+        do {
+            current = state.get();
+            next = current.nextUnset();
+        } while (!state.compareAndSet(current, next));
+        writer.remove(key);
+        persistedSequence = next.sequence;
+        restored = true;
+        notifyChanged();
+    }
+
+    /**
+     * Replaces in-memory value of this property with the one from provided snapshot, unless
+     * a newer value is waiting to be persisted. Caller must hold {@link #getPersistLock()}.
+     *
+     * @param snapshot snapshot of this property store
+     * @return whether value has changed
+     */
+    final boolean reload(@Nonnull PropertySnapshot snapshot) {
+        final State<T> current = state.get();
+        if (current.sequence > persistedSequence) {
+            return false;
+        }
+        State<T> next = current.nextUnset();
+        if (snapshot.contains(key)) {
+            try {
+                next = current.next(snapshot(readValue(snapshot)));
+            } catch (PropertyAccessException e) {
+                Log.e(TAG, "Failed to read property '" + name + "', " + e.getMessage());
+            }
+        }
+        final boolean unchanged = current.valueSet == next.valueSet
+                && (!next.valueSet || valueEquals(current.value, next.value));
+        if (unchanged || !state.compareAndSet(current, next)) {
+            restored = true;
+            return false;
+        }
+        persistedSequence = next.sequence;
+        restored = true;
+        notifyChanged();
+        return true;
+    }
+
+    /**
+     * Checks whether value has been restored from persistent storage
+     *
+     * @return whether value is held in memory
+     */
+    final boolean isRestored() {
+        return restored;
+    }
+
+    /**
+     * Registers listener notified whenever in-memory value of this property changes, either
+     * when it is set or restored from persistent storage
+     *
+     * @param listener listener to be notified
+     */
+    final void registerOnChangeListener(@Nonnull OnPropertyChangeListener listener) {
+        Preconditions.checkNotNull(listener, "listener must not be null");
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters listener previously registered with
+     * {@link #registerOnChangeListener(OnPropertyChangeListener)}
+     *
+     * @param listener listener to be unregistered
+     */
+    final void unregisterOnChangeListener(@Nonnull OnPropertyChangeListener listener) {
+        Preconditions.checkNotNull(listener, "listener must not be null");
+        listeners.remove(listener);
+    }
+
+    private void notifyChanged() {
+        for (OnPropertyChangeListener listener : listeners) {
+            listener.onPropertyChanged(store, name);
+        }
+    }
+
+    /**
+     * Writes property value to persistent storage with provided writer
+     *
+     * @param writer property value writer
+     * @param value  property value to be stored
+     * @throws PropertyAccessException when property access failed
+     */
+    abstract void writeValue(@Nonnull PropertyWriter writer, T value)
+            throws PropertyAccessException;
+
+    /**
+     * Checks whether two values of this property are equal. Boxed floating point values are
+     * compared by their bit patterns.
+     *
+     * @param first  first value
+     * @param second second value
+     * @return whether values are equal
+     */
+    boolean valueEquals(T first, T second) {
+        return first == second || (first != null && first.equals(second));
+    }
+
+    /**
+     * Returns value which is held in memory instead of the provided one. Properties of mutable
+     * types return immutable copy here, so values returned by {@link #get()} can be safely
+     * shared between threads.
+     *
+     * @param value property value
+     * @return value to be held in memory
+     */
+    T snapshot(T value) {
+        return value;
+    }
+
+    /**
+     * Checks whether provided state already holds provided value, counting skipped write if so
+     *
+     * @param current property state
+     * @param value   new property value
+     * @return whether property value would not be changed
+     */
+    private boolean isUnchanged(State<T> current, T value) {
+        if (current.valueSet && valueEquals(current.value, value)) {
+            skippedWrites.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Replaces in-memory value of this property
+     *
+     * @param value new property value
+     * @return whether value has been changed
+     */
+    private boolean replace(T value) {
+        value = snapshot(value);
+        State<T> current;
+        do {
+            current = restoredState();
+            if (isUnchanged(current, value)) {
+                return false;
+            }
+        } while (!state.compareAndSet(current, current.next(value)));
+        notifyChanged();
+        return true;
+    }
+
+    /**
+     * Sets new value for this property. Operation is performed on the same calling thread.
+     * Nothing is written when property already has an equal value.
+     *
+     * @param value new property value
+     */
+    public final void set(T value) {
+        if (replace(value)) {
+            persist(false);
+        }
+    }
+
+    /**
+     * Sets new value for this property. Value is persisted in underlying {@link PropertyStore}
+     * asynchronously. Nothing is written when property already has an equal value.
+     *
+     * @param value new property value
+     */
+    public final void setAsync(T value) {
+        if (replace(value)) {
+            persist(true);
+        }
+    }
+
+    /**
+     * Atomically replaces value of this property with the one computed by provided updater.
+     * Value is computed and swapped in memory without locking and then persisted on the same
+     * calling thread.
+     *
+     * @param updater function computing new value from the current one
+     * @return new property value
+     */
+    public final T update(@Nonnull PropertyUpdater<T> updater) {
+        Preconditions.checkNotNull(updater, "updater must not be null");
+        State<T> current;
+        T value;
+        do {
+            current = restoredState();
+            value = snapshot(updater.update(current.get(defaultValue)));
+            if (isUnchanged(current, value)) {
+                return value;
+            }
+        } while (!state.compareAndSet(current, current.next(value)));
+        notifyChanged();
+        persist(false);
+        return value;
+    }
+
+    /**
+     * Atomically sets new value of this property if the current value is equal to the expected
+     * one. Value is persisted on the same calling thread.
+     *
+     * @param expect expected current value
+     * @param value  new property value
+     * @return whether current value was equal to the expected one
+     */
+    public final boolean compareAndSet(T expect, T value) {
+        return compareAndSet(expect, value, false);
+    }
+
+    /**
+     * Atomically sets new value of this property if the current value is equal to the expected
+     * one
+     *
+     * @param expect expected current value
+     * @param value  new property value
+     * @param async  whether value should be persisted asynchronously
+     * @return whether current value was equal to the expected one
+     */
+    final boolean compareAndSet(T expect, T value, boolean async) {
+        value = snapshot(value);
+        State<T> current;
+        do {
+            current = restoredState();
+            if (!valueEquals(current.get(defaultValue), expect)) {
+                return false;
+            }
+            if (isUnchanged(current, value)) {
+                return true;
+            }
+        } while (!state.compareAndSet(current, current.next(value)));
+        notifyChanged();
+        persist(async);
+        return true;
+    }
+
+    /**
+     * Sets whether value equal to the default one is removed from persistent storage instead
+     * of being written, so the store holds only values overriding defaults
+     *
+     * @param storeOnlyOverrides whether default value is removed when set
+     * @see PropertyCompaction
+     */
+    public final void setStoreOnlyOverrides(boolean storeOnlyOverrides) {
+        this.storeOnlyOverrides = storeOnlyOverrides;
+    }
+
+    /**
+     * Checks whether value equal to the default one is removed from persistent storage
+     *
+     * @return whether default value is removed when set
+     */
+    public final boolean isStoreOnlyOverrides() {
+        return storeOnlyOverrides;
+    }
+
+    /**
+     * Returns number of writes skipped because property already had an equal value
+     *
+     * @return number of skipped writes
+     */
+    public final long getSkippedWriteCount() {
+        return skippedWrites.get();
+    }
+
+    /**
+     * Returns local change counter of this property instance, increased by every change of its
+     * in-memory value, either set through this instance or reloaded from the store. Counter
+     * starts from zero with every instance and is unrelated to
+     * {@link PropertyStore#getVersion()}, so it can only be compared with values previously
+     * returned by the same instance. Use {@link PropertyStore#getChangedKeys(long)} to poll the
+     * store for changes.
+     *
+     * @return local change counter
+     */
+    public final long getVersion() {
+        return restoredState().sequence;
+    }
+
+    /**
+     * Returns property value or default value if real has not been set
+     *
+     * @return property value or default one
+     */
+    public final T get() {
+        return restoredState().get(defaultValue);
+    }
+
+    /**
+     * Returns property value without blocking the calling thread. When value hasn't been
+     * restored from persistent storage yet, it is restored on a background thread.
+     *
+     * @return future property value
+     */
+    @Nonnull
+    public final Future<T> getAsync() {
+        final FutureTask<T> task = new FutureTask<>(new Callable<T>() {
+            @Override
+            public T call() {
+                return get();
+            }
+        });
+        if (restored) {
+            task.run();
+        } else {
+            PropertyExecutors.background().execute(task);
+        }
+        return task;
+    }
+
+    /**
+     * Returns property value from provided snapshot of this property store or default value
+     * if property doesn't exist in the snapshot. Reading related properties from the same
+     * snapshot guarantees their values are consistent.
+     *
+     * @param snapshot snapshot of this property store
+     * @return property value or default one
+     */
+    public final T get(@Nonnull PropertySnapshot snapshot) {
+        Preconditions.checkNotNull(snapshot, "snapshot must not be null");
+        if (snapshot.contains(key)) {
+            try {
+                return readValue(snapshot);
+            } catch (PropertyAccessException e) {
+                Log.e(TAG, "Failed to read property '" + name + "', " + e.getMessage());
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Immutable state of property value
+     *
+     * @param <T> property value type
+     */
+    private static final class State<T> {
+        private static final State<?> UNSET = new State<>(null, false, 0);
+        /**
+         * Property value
+         */
+        final T value;
+        /**
+         * Whether real value has been set
+         */
+        final boolean valueSet;
+        /**
+         * Sequence number of this state, increased with every change
+         */
+        final long sequence;
+
+        private State(T value, boolean valueSet, long sequence) {
+            this.value = value;
+            this.valueSet = valueSet;
+            this.sequence = sequence;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <T> State<T> unset() {
+            return (State<T>) UNSET;
+        }
+
+        State<T> next(T value) {
+            return new State<>(value, true, sequence + 1);
+        }
+
+        State<T> nextUnset() {
+            return new State<>(null, false, sequence + 1);
+        }
+
+        T get(T defaultValue) {
+            return valueSet ? value : defaultValue;
+        }
+    }
+}
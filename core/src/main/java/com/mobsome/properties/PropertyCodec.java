@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Interface for property value codec. Classes implementing this interface are responsible
+ * for converting property values of custom types to strings that can be persisted
+ * by {@link PropertyWriter} and back.
+ *
+ * @param <T> property value type
+ */
+public interface PropertyCodec<T> {
+    /**
+     * Encodes property value
+     *
+     * @param value property value, never null
+     * @return encoded value
+     * @throws PropertyAccessException when value can't be encoded
+     */
+    @Nonnull
+    String encode(@Nonnull T value) throws PropertyAccessException;
+
+    /**
+     * Decodes property value
+     *
+     * @param data encoded value, never null
+     * @return property value
+     * @throws PropertyAccessException when value can't be decoded
+     */
+    T decode(@Nonnull String data) throws PropertyAccessException;
+}
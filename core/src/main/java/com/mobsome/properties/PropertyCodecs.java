@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Codecs of basic value types, e.g. for {@link ExpiringProperty}
+ */
+public final class PropertyCodecs {
+    /**
+     * Codec storing strings as they are
+     */
+    public static final PropertyCodec<String> STRING = new PropertyCodec<String>() {
+        @Nonnull
+        @Override
+        public String encode(@Nonnull String value) {
+            return value;
+        }
+
+        @Override
+        public String decode(@Nonnull String data) {
+            return data;
+        }
+    };
+
+    public static final PropertyCodec<Integer> INTEGER = new PropertyCodec<Integer>() {
+        @Nonnull
+        @Override
+        public String encode(@Nonnull Integer value) {
+            return value.toString();
+        }
+
+        @Override
+        public Integer decode(@Nonnull String data) throws PropertyAccessException {
+            try {
+                return Integer.valueOf(data);
+            } catch (NumberFormatException e) {
+                throw new PropertyAccessException("Invalid integer value", e);
+            }
+        }
+    };
+
+    public static final PropertyCodec<Long> LONG = new PropertyCodec<Long>() {
+        @Nonnull
+        @Override
+        public String encode(@Nonnull Long value) {
+            return value.toString();
+        }
+
+        @Override
+        public Long decode(@Nonnull String data) throws PropertyAccessException {
+            try {
+                return Long.valueOf(data);
+            } catch (NumberFormatException e) {
+                throw new PropertyAccessException("Invalid long value", e);
+            }
+        }
+    };
+
+    public static final PropertyCodec<Float> FLOAT = new PropertyCodec<Float>() {
+        @Nonnull
+        @Override
+        public String encode(@Nonnull Float value) {
+            return value.toString();
+        }
+
+        @Override
+        public Float decode(@Nonnull String data) throws PropertyAccessException {
+            try {
+                return Float.valueOf(data);
+            } catch (NumberFormatException e) {
+                throw new PropertyAccessException("Invalid float value", e);
+            }
+        }
+    };
+
+    public static final PropertyCodec<Double> DOUBLE = new PropertyCodec<Double>() {
+        @Nonnull
+        @Override
+        public String encode(@Nonnull Double value) {
+            return value.toString();
+        }
+
+        @Override
+        public Double decode(@Nonnull String data) throws PropertyAccessException {
+            try {
+                return Double.valueOf(data);
+            } catch (NumberFormatException e) {
+                throw new PropertyAccessException("Invalid double value", e);
+            }
+        }
+    };
+
+    public static final PropertyCodec<Boolean> BOOLEAN = new PropertyCodec<Boolean>() {
+        @Nonnull
+        @Override
+        public String encode(@Nonnull Boolean value) {
+            return value.toString();
+        }
+
+        @Override
+        public Boolean decode(@Nonnull String data) throws PropertyAccessException {
+            if ("true".equals(data)) {
+                return Boolean.TRUE;
+            } else if ("false".equals(data)) {
+                return Boolean.FALSE;
+            }
+            throw new PropertyAccessException("Invalid boolean value");
+        }
+    };
+
+    private PropertyCodecs() {
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+/**
+ * One-shot removal of stored values equal to defaults of their properties, so stores hold
+ * only values overriding defaults. Values of every store are removed with a single commit,
+ * while persist locks of its properties are held, so no newer value is overwritten. Combined
+ * with {@link Property#setStoreOnlyOverrides(boolean)}, defaults are never stored again.
+ */
+public final class PropertyCompaction {
+    private static final String TAG = PropertyCompaction.class.getSimpleName();
+
+    private PropertyCompaction() {
+    }
+
+    /**
+     * Removes stored values of provided properties which are equal to their defaults. Values
+     * which can't be read or decoded are kept.
+     *
+     * @param properties properties to be compacted, possibly held by different stores
+     * @return number of removed values
+     * @throws RuntimeException when commit failed, in which case values of stores compacted
+     *                          before may have been removed
+     */
+    public static int compact(@Nonnull Collection<? extends Property<?>> properties) {
+        Preconditions.checkNotNull(properties, "properties must not be null");
+        final Map<PropertyStore, List<Property<?>>> byStore = new IdentityHashMap<>();
+        for (Property<?> property : properties) {
+            List<Property<?>> storeProperties = byStore.get(property.getStore());
+            if (storeProperties == null) {
+                storeProperties = new ArrayList<>();
+                byStore.put(property.getStore(), storeProperties);
+            }
+            storeProperties.add(property);
+        }
+
+        int removed = 0;
+        for (Map.Entry<PropertyStore, List<Property<?>>> entry : byStore.entrySet()) {
+            removed += compact(entry.getKey(), entry.getValue());
+        }
+        return removed;
+    }
+
+    /**
+     * Removes stored default values of properties held by provided store with a single commit
+     *
+     * @param store      store of the properties
+     * @param properties properties to be compacted
+     * @return number of removed values
+     */
+    private static int compact(PropertyStore store, List<Property<?>> properties) {
+        final List<Property<?>> locked = Property.lockAll(properties);
+        try {
+            final PropertyWriter writer;
+            int removed = 0;
+            try {
+                final PropertySnapshot snapshot = store.snapshot();
+                writer = store.getWriter();
+                writer.edit();
+                for (Property<?> property : properties) {
+                    if (property.removeIfDefault(snapshot, writer)) {
+                        removed++;
+                    }
+                }
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Failed to compact properties, " + e.getMessage());
+                return 0;
+            }
+            if (removed > 0) {
+                writer.commit();
+            }
+            return removed;
+        } finally {
+            Property.unlockAll(locked);
+        }
+    }
+}
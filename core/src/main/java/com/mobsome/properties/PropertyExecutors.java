@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Shared executors for background work of property stores. Threads are daemons, so they
+ * never keep the process alive.
+ */
+final class PropertyExecutors {
+
+    private PropertyExecutors() {
+    }
+
+    /**
+     * Returns executor for background tasks
+     *
+     * @return shared background executor
+     */
+    @Nonnull
+    static ExecutorService background() {
+        return BackgroundHolder.EXECUTOR;
+    }
+
+    /**
+     * Returns executor for short periodic tasks
+     *
+     * @return shared scheduled executor
+     */
+    @Nonnull
+    static ScheduledExecutorService scheduler() {
+        return SchedulerHolder.EXECUTOR;
+    }
+
+    private static final class BackgroundHolder {
+        static final ExecutorService EXECUTOR =
+                Executors.newCachedThreadPool(new DaemonThreadFactory("properties-background"));
+    }
+
+    private static final class SchedulerHolder {
+        static final ScheduledExecutorService EXECUTOR =
+                Executors.newSingleThreadScheduledExecutor(
+                        new DaemonThreadFactory("properties-scheduler"));
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        private final String name;
+        private final AtomicInteger count = new AtomicInteger();
+
+        DaemonThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(@Nonnull Runnable runnable) {
+            final Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+/**
+ * Interface definition for a function computing value of a {@link DerivedProperty} from values
+ * of other properties.
+ *
+ * @param <T> derived value type
+ */
+public interface PropertyFunction<T> {
+    /**
+     * Computes derived value, reading input properties with {@link Property#get()}. This is
+     * called again after any of the inputs changes, so it must not have side effects.
+     *
+     * @return derived value
+     */
+    T compute();
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Interned handle of property key. There is single handle for every key, so handles are
+ * compared by identity, and every handle has a dense index which stores may use as a slot
+ * index instead of looking up the key string. Handles are never released, so they should be
+ * created only for fixed keys, e.g. kept in constants. Properties use the handle of their name
+ * if it has been created before them, otherwise they read values by name.
+ */
+public final class PropertyKey {
+    private static final ConcurrentMap<String, PropertyKey> KEYS = new ConcurrentHashMap<>();
+    /**
+     * Index of handles which aren't interned
+     */
+    static final int UNINDEXED = -1;
+    /**
+     * Number of created handles, written with {@link #KEYS} lock held
+     */
+    private static volatile int count;
+
+    private final String name;
+    private final int hash;
+    /**
+     * Index of this handle, unique and smaller than {@link #getCount()}, or {@link #UNINDEXED}
+     */
+    final int index;
+
+    private PropertyKey(String name, int index) {
+        this.name = name;
+        this.hash = name.hashCode();
+        this.index = index;
+    }
+
+    /**
+     * Returns handle of provided key
+     *
+     * @param name property key
+     * @return key handle
+     */
+    @Nonnull
+    public static PropertyKey of(@Nonnull String name) {
+        Preconditions.checkNotNull(name, "name must not be null");
+        final PropertyKey key = KEYS.get(name);
+        if (key != null) {
+            return key;
+        }
+        synchronized (KEYS) {
+            PropertyKey created = KEYS.get(name);
+            if (created == null) {
+                created = new PropertyKey(name, count);
+                count++;
+                KEYS.put(name, created);
+            }
+            return created;
+        }
+    }
+
+    /**
+     * Returns interned handle of provided key if it has been created, otherwise a handle which
+     * isn't interned, so it doesn't have an index and isn't kept after it's no longer used
+     *
+     * @param name property key
+     * @return key handle
+     */
+    @Nonnull
+    static PropertyKey existing(@Nonnull String name) {
+        Preconditions.checkNotNull(name, "name must not be null");
+        final PropertyKey key = KEYS.get(name);
+        return key != null ? key : new PropertyKey(name, UNINDEXED);
+    }
+
+    /**
+     * Returns number of created handles
+     *
+     * @return handles count
+     */
+    static int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns property key
+     *
+     * @return property key
+     */
+    @Nonnull
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Interface for loggers receiving library diagnostics. Logger used by the library is set with
+ * {@link PropertyLogging#setLogger(PropertyLogger)}.
+ */
+public interface PropertyLogger {
+    /**
+     * Logs warning message
+     *
+     * @param tag     name of class logging the message
+     * @param message message
+     */
+    void warning(@Nonnull String tag, @Nonnull String message);
+
+    /**
+     * Logs error message
+     *
+     * @param tag     name of class logging the message
+     * @param message message
+     */
+    void error(@Nonnull String tag, @Nonnull String message);
+}
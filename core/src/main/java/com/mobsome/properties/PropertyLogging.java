@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.util.logging.Logger;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Holder of {@link PropertyLogger} used by the library. On Android messages go to logcat,
+ * elsewhere to {@link java.util.logging}.
+ */
+public final class PropertyLogging {
+    private static final String ANDROID_LOGGER = "com.mobsome.properties.AndroidPropertyLogger";
+
+    private static volatile PropertyLogger logger = createDefaultLogger();
+
+    private PropertyLogging() {
+    }
+
+    /**
+     * Sets logger used by the library
+     *
+     * @param logger library logger
+     */
+    public static void setLogger(@Nonnull PropertyLogger logger) {
+        Preconditions.checkNotNull(logger, "logger must not be null");
+        PropertyLogging.logger = logger;
+    }
+
+    /**
+     * Returns logger used by the library
+     *
+     * @return library logger
+     */
+    @Nonnull
+    public static PropertyLogger getLogger() {
+        return logger;
+    }
+
+    /**
+     * Creates logcat logger when Android module is available, {@link java.util.logging} one
+     * otherwise
+     *
+     * @return default logger
+     */
+    private static PropertyLogger createDefaultLogger() {
+        try {
+            return (PropertyLogger) Class.forName(ANDROID_LOGGER).newInstance();
+        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException e) {
+            return new JavaLogger();
+        }
+    }
+
+    /**
+     * Logger writing to {@link java.util.logging}, with a logger per tag
+     */
+    private static final class JavaLogger implements PropertyLogger {
+        private static final String PREFIX = PropertyLogging.class.getPackage().getName() + ".";
+
+        @Override
+        public void warning(@Nonnull String tag, @Nonnull String message) {
+            Logger.getLogger(PREFIX + tag).warning(message);
+        }
+
+        @Override
+        public void error(@Nonnull String tag, @Nonnull String message) {
+            Logger.getLogger(PREFIX + tag).severe(message);
+        }
+    }
+}
@@ -0,0 +1,603 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Migration of properties from one {@link PropertyStore} to another, e.g. from
+ * {@code SharedPreferencesStore} to {@code SecurePreferencesStore}. Properties are copied in the
+ * background in batches of bounded size, each committed with a single commit along with
+ * a progress checkpoint, so interrupted migration resumes where it stopped when started again.
+ * <p/>
+ * While migration is in progress, properties should be accessed through {@link #getStore()},
+ * which reads properties missing in destination store from source store and writes them to
+ * destination store. Properties already present in destination store are never overwritten
+ * by migration. Source store is left intact, except for properties removed through
+ * {@link #getStore()}, which are not migrated afterwards.
+ * <p/>
+ * Migration progress is stored in destination store under internal keys, which are not listed
+ * by snapshots of {@link #getStore()}. Once migration is finished, destination store keeps
+ * a single internal property marking it as finished.
+ */
+public class PropertyMigration {
+    private static final String TAG = PropertyMigration.class.getSimpleName();
+    /**
+     * Default number of properties copied with a single commit
+     */
+    public static final int DEFAULT_BATCH_SIZE = 50;
+    /**
+     * Destination store property holding name of the last migrated property
+     */
+    static final String PROGRESS_KEY = "com.mobsome.properties.migration.progress";
+    /**
+     * Destination store property set once migration is finished
+     */
+    static final String FINISHED_KEY = "com.mobsome.properties.migration.finished";
+
+    private final PropertyStore source;
+    private final PropertyStore destination;
+    private final int batchSize;
+    private final Executor executor;
+    /**
+     * Lock making batch commits atomic with respect to commits of {@link #getStore()}
+     */
+    private final Object commitLock = new Object();
+    private final AtomicInteger migratedCount = new AtomicInteger();
+    private volatile boolean finished;
+    private FutureTask<Void> task;
+
+    /**
+     * Creates migration copying {@link #DEFAULT_BATCH_SIZE} properties per commit on a shared
+     * background executor
+     *
+     * @param source      store properties are migrated from
+     * @param destination store properties are migrated to
+     */
+    public PropertyMigration(@Nonnull PropertyStore source, @Nonnull PropertyStore destination) {
+        this(source, destination, DEFAULT_BATCH_SIZE, PropertyExecutors.background());
+    }
+
+    /**
+     * Creates migration
+     *
+     * @param source      store properties are migrated from
+     * @param destination store properties are migrated to
+     * @param batchSize   maximum number of properties copied with a single commit
+     * @param executor    executor on which migration is performed
+     */
+    public PropertyMigration(@Nonnull PropertyStore source, @Nonnull PropertyStore destination,
+                             int batchSize, @Nonnull Executor executor) {
+        Preconditions.checkNotNull(source, "source must not be null");
+        Preconditions.checkNotNull(destination, "destination must not be null");
+        Preconditions.checkNotNull(executor, "executor must not be null");
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.source = source;
+        this.destination = destination;
+        this.batchSize = batchSize;
+        this.executor = executor;
+        finished = destination.getReader().contains(FINISHED_KEY);
+    }
+
+    /**
+     * Starts migration unless it has already been started
+     *
+     * @return future completed once migration is finished
+     */
+    @Nonnull
+    public synchronized Future<Void> start() {
+        if (task == null) {
+            task = new FutureTask<>(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    migrate();
+                    return null;
+                }
+            });
+            executor.execute(task);
+        }
+        return task;
+    }
+
+    /**
+     * Checks whether all properties have been migrated
+     *
+     * @return whether migration is finished
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Returns number of properties copied since migration has been started
+     *
+     * @return number of migrated properties
+     */
+    public int getMigratedCount() {
+        return migratedCount.get();
+    }
+
+    /**
+     * Returns store which should be used to access properties while migration is in progress
+     *
+     * @return store reading from destination store with fall back to source store
+     */
+    @Nonnull
+    public PropertyStore getStore() {
+        return store;
+    }
+
+    /**
+     * Copies all properties not yet migrated, in batches
+     *
+     * @throws PropertyAccessException when progress can't be read or stored
+     */
+    private void migrate() throws PropertyAccessException {
+        if (finished) {
+            return;
+        }
+
+        final PropertySnapshot snapshot = source.snapshot();
+        SortedSet<String> keys = new TreeSet<>(snapshot.keys());
+        keys.remove(PROGRESS_KEY);
+        keys.remove(FINISHED_KEY);
+        final String lastKey = destination.getReader().getString(PROGRESS_KEY, null);
+        if (lastKey != null) {
+            keys = keys.tailSet(lastKey + '\0');
+        }
+
+        final Iterator<String> iterator = keys.iterator();
+        final List<String> batch = new ArrayList<>(batchSize);
+        while (iterator.hasNext()) {
+            batch.clear();
+            while (iterator.hasNext() && batch.size() < batchSize) {
+                batch.add(iterator.next());
+            }
+            migrateBatch(snapshot, batch);
+        }
+
+        synchronized (commitLock) {
+            final PropertyWriter writer = destination.getWriter();
+            writer.edit();
+            writer.remove(PROGRESS_KEY);
+            writer.writeBoolean(FINISHED_KEY, true);
+            writer.commit();
+        }
+        finished = true;
+    }
+
+    /**
+     * Copies properties missing in destination store and stores progress with a single commit.
+     * Properties removed from source store since the snapshot was taken are skipped.
+     *
+     * @param snapshot snapshot of source store
+     * @param keys     names of properties to be copied
+     * @throws PropertyAccessException when progress can't be stored
+     */
+    private void migrateBatch(PropertySnapshot snapshot, List<String> keys)
+            throws PropertyAccessException {
+        synchronized (commitLock) {
+            final PropertyReader reader = destination.getReader();
+            final PropertyReader sourceReader = source.getReader();
+            final PropertyWriter writer = destination.getWriter();
+            writer.edit();
+            int count = 0;
+            for (String key : keys) {
+                if (reader.contains(key) || !sourceReader.contains(key)) {
+                    continue;
+                }
+                try {
+                    writeValue(writer, key, snapshot.getValue(key));
+                    count++;
+                } catch (PropertyAccessException e) {
+                    Log.e(TAG, "Failed to migrate property '" + key + "', " + e.getMessage());
+                }
+            }
+            writer.writeString(PROGRESS_KEY, keys.get(keys.size() - 1));
+            writer.commit();
+            migratedCount.addAndGet(count);
+        }
+    }
+
+    /**
+     * Writes property value of any type held by stores
+     *
+     * @param writer property writer
+     * @param key    property name
+     * @param value  property value
+     * @throws PropertyAccessException when property access failed
+     */
+    @SuppressWarnings("unchecked")
+    private static void writeValue(PropertyWriter writer, String key, Object value)
+            throws PropertyAccessException {
+        if (value instanceof Integer) {
+            writer.writeInt(key, (Integer) value);
+        } else if (value instanceof Long) {
+            writer.writeLong(key, (Long) value);
+        } else if (value instanceof Float) {
+            writer.writeFloat(key, (Float) value);
+        } else if (value instanceof Double) {
+            writer.writeDouble(key, (Double) value);
+        } else if (value instanceof Boolean) {
+            writer.writeBoolean(key, (Boolean) value);
+        } else if (value instanceof String) {
+            writer.writeString(key, (String) value);
+        } else if (value instanceof Set) {
+            writer.writeStringSet(key, (Set<String>) value);
+        }
+    }
+
+    /**
+     * Returns reader of the store which holds provided property
+     *
+     * @param key property name
+     * @return destination reader if property has been migrated or written, source reader
+     * otherwise
+     */
+    private PropertyReader readerFor(String key) {
+        final PropertyReader reader = destination.getReader();
+        return finished || reader.contains(key) ? reader : source.getReader();
+    }
+
+    private final PropertyStore store = new PropertyStore() {
+        @Override
+        @Nonnull
+        public PropertyReader getReader() {
+            return reader;
+        }
+
+        @Override
+        @Nonnull
+        public PropertyWriter getWriter() {
+            return writer;
+        }
+
+        @Override
+        @Nonnull
+        public PropertySnapshot snapshot() {
+            final PropertySnapshot destinationSnapshot = destination.snapshot();
+            return new MergedSnapshot(destinationSnapshot, finished ? null : source.snapshot());
+        }
+
+        @Override
+        @Nonnull
+        public Future<Void> preload() {
+            final Future<Void> destinationLoad = destination.preload();
+            if (finished) {
+                return destinationLoad;
+            }
+            final Future<Void> sourceLoad = source.preload();
+            return PropertyExecutors.background().submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    destinationLoad.get();
+                    sourceLoad.get();
+                    return null;
+                }
+            });
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p/>
+         * Version of destination store is returned, which changes also when properties are
+         * migrated.
+         */
+        @Override
+        public long getVersion() {
+            return destination.getVersion();
+        }
+
+        @Override
+        @Nullable
+        public Set<String> getChangedKeys(long version) {
+            return destination.getChangedKeys(version);
+        }
+
+        @Override
+        public void registerOnPropertyChangeListener(
+                @Nonnull OnPropertyChangeListener listener) {
+            destination.registerOnPropertyChangeListener(listener);
+        }
+
+        @Override
+        public void unregisterOnPropertyChangeListener(
+                @Nonnull OnPropertyChangeListener listener) {
+            destination.unregisterOnPropertyChangeListener(listener);
+        }
+    };
+
+    /**
+     * Migrating properties reader
+     */
+    private final PropertyReader reader = new AbstractPropertyReader() {
+        @Override
+        public boolean contains(@Nonnull String key) {
+            return readerFor(key).contains(key);
+        }
+
+        @Override
+        public int getInt(@Nonnull String key, int defaultValue)
+                throws PropertyAccessException {
+            return readerFor(key).getInt(key, defaultValue);
+        }
+
+        @Override
+        public long getLong(@Nonnull String key, long defaultValue)
+                throws PropertyAccessException {
+            return readerFor(key).getLong(key, defaultValue);
+        }
+
+        @Override
+        public float getFloat(@Nonnull String key, float defaultValue)
+                throws PropertyAccessException {
+            return readerFor(key).getFloat(key, defaultValue);
+        }
+
+        @Override
+        public double getDouble(@Nonnull String key, double defaultValue)
+                throws PropertyAccessException {
+            return readerFor(key).getDouble(key, defaultValue);
+        }
+
+        @Override
+        public boolean getBoolean(@Nonnull String key, boolean defaultValue)
+                throws PropertyAccessException {
+            return readerFor(key).getBoolean(key, defaultValue);
+        }
+
+        @Override
+        public String getString(@Nonnull String key, String defaultValue)
+                throws PropertyAccessException {
+            return readerFor(key).getString(key, defaultValue);
+        }
+
+        @Override
+        public Set<String> getStringSet(@Nonnull String key, Set<String> defaultValue)
+                throws PropertyAccessException {
+            return readerFor(key).getStringSet(key, defaultValue);
+        }
+    };
+
+    /**
+     * Migrating properties writer. Properties are written to destination store, removed
+     * properties are removed from source store as well, so they are not migrated afterwards.
+     */
+    private final PropertyWriter writer = new AbstractPropertyWriter() {
+        /**
+         * Keys removed by changes being edited by the current thread
+         */
+        private final ThreadLocal<List<String>> removedKeys = new ThreadLocal<>();
+
+        /**
+         * Ensures that {@link PropertyWriter#edit()} has been called
+         *
+         * @return keys removed by changes being edited by the current thread
+         */
+        private List<String> ensureInEditMode() {
+            final List<String> keys = removedKeys.get();
+            if (keys == null) {
+                throw new IllegalStateException();
+            }
+            return keys;
+        }
+
+        /**
+         * Removes properties removed from destination store from source store as well
+         */
+        private void removeFromSource(List<String> keys) {
+            if (keys.isEmpty() || finished) {
+                return;
+            }
+            final PropertyWriter sourceWriter = source.getWriter();
+            sourceWriter.edit();
+            for (String key : keys) {
+                sourceWriter.remove(key);
+            }
+            sourceWriter.commit();
+            keys.clear();
+        }
+
+        @Override
+        public void edit() {
+            destination.getWriter().edit();
+            removedKeys.set(new ArrayList<String>());
+        }
+
+        @Override
+        public void commit() {
+            final List<String> keys = ensureInEditMode();
+            synchronized (commitLock) {
+                removeFromSource(keys);
+                destination.getWriter().commit();
+            }
+        }
+
+        @Override
+        public void commitAsync() {
+            final List<String> keys = ensureInEditMode();
+            synchronized (commitLock) {
+                removeFromSource(keys);
+                destination.getWriter().commitAsync();
+            }
+        }
+
+        @Override
+        public void writeInt(@Nonnull String key, int value) throws PropertyAccessException {
+            ensureInEditMode();
+            destination.getWriter().writeInt(key, value);
+        }
+
+        @Override
+        public void writeLong(@Nonnull String key, long value) throws PropertyAccessException {
+            ensureInEditMode();
+            destination.getWriter().writeLong(key, value);
+        }
+
+        @Override
+        public void writeFloat(@Nonnull String key, float value)
+                throws PropertyAccessException {
+            ensureInEditMode();
+            destination.getWriter().writeFloat(key, value);
+        }
+
+        @Override
+        public void writeDouble(@Nonnull String key, double value)
+                throws PropertyAccessException {
+            ensureInEditMode();
+            destination.getWriter().writeDouble(key, value);
+        }
+
+        @Override
+        public void writeBoolean(@Nonnull String key, boolean value)
+                throws PropertyAccessException {
+            ensureInEditMode();
+            destination.getWriter().writeBoolean(key, value);
+        }
+
+        @Override
+        public void writeString(@Nonnull String key, String value)
+                throws PropertyAccessException {
+            final List<String> keys = ensureInEditMode();
+            if (value == null) {
+                keys.add(key);
+            }
+            destination.getWriter().writeString(key, value);
+        }
+
+        @Override
+        public void writeStringSet(@Nonnull String key, Set<String> value)
+                throws PropertyAccessException {
+            final List<String> keys = ensureInEditMode();
+            if (value == null) {
+                keys.add(key);
+            }
+            destination.getWriter().writeStringSet(key, value);
+        }
+
+        @Override
+        public void remove(@Nonnull String key) {
+            ensureInEditMode().add(key);
+            destination.getWriter().remove(key);
+        }
+    };
+
+    /**
+     * Snapshot of destination store with fall back to snapshot of source store, not listing
+     * internal migration properties
+     */
+    private static final class MergedSnapshot extends AbstractPropertyReader
+            implements PropertySnapshot {
+        private final PropertySnapshot destination;
+        private final PropertySnapshot source;
+
+        /**
+         * Creates merged snapshot
+         *
+         * @param destination snapshot of destination store
+         * @param source      snapshot of source store, null once migration is finished
+         */
+        MergedSnapshot(PropertySnapshot destination, @Nullable PropertySnapshot source) {
+            this.destination = destination;
+            this.source = source;
+        }
+
+        private PropertySnapshot snapshotFor(String key) {
+            return source == null || destination.contains(key) ? destination : source;
+        }
+
+        @Override
+        @Nonnull
+        public Set<String> keys() {
+            final Set<String> keys = new HashSet<>(destination.keys());
+            if (source != null) {
+                keys.addAll(source.keys());
+            }
+            keys.remove(PROGRESS_KEY);
+            keys.remove(FINISHED_KEY);
+            return Collections.unmodifiableSet(keys);
+        }
+
+        @Override
+        public Object getValue(@Nonnull String key) throws PropertyAccessException {
+            return snapshotFor(key).getValue(key);
+        }
+
+        @Override
+        public boolean contains(@Nonnull String key) {
+            return snapshotFor(key).contains(key);
+        }
+
+        @Override
+        public int getInt(@Nonnull String key, int defaultValue)
+                throws PropertyAccessException {
+            return snapshotFor(key).getInt(key, defaultValue);
+        }
+
+        @Override
+        public long getLong(@Nonnull String key, long defaultValue)
+                throws PropertyAccessException {
+            return snapshotFor(key).getLong(key, defaultValue);
+        }
+
+        @Override
+        public float getFloat(@Nonnull String key, float defaultValue)
+                throws PropertyAccessException {
+            return snapshotFor(key).getFloat(key, defaultValue);
+        }
+
+        @Override
+        public double getDouble(@Nonnull String key, double defaultValue)
+                throws PropertyAccessException {
+            return snapshotFor(key).getDouble(key, defaultValue);
+        }
+
+        @Override
+        public boolean getBoolean(@Nonnull String key, boolean defaultValue)
+                throws PropertyAccessException {
+            return snapshotFor(key).getBoolean(key, defaultValue);
+        }
+
+        @Override
+        public String getString(@Nonnull String key, String defaultValue)
+                throws PropertyAccessException {
+            return snapshotFor(key).getString(key, defaultValue);
+        }
+
+        @Override
+        public Set<String> getStringSet(@Nonnull String key, Set<String> defaultValue)
+                throws PropertyAccessException {
+            return snapshotFor(key).getStringSet(key, defaultValue);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Interface for properties reader. Classes implementing this interface are responsible
+ * for reading values of persisted properties.
+ */
+public interface PropertyReader {
+    /**
+     * Checks whether property with specified name exists in persistence storage
+     *
+     * @param key property name
+     * @return whether property with specified name exists
+     */
+    boolean contains(@Nonnull String key);
+
+    /**
+     * Gets integer property value or returns default value if provided property doesn't exist
+     *
+     * @param key          property name
+     * @param defaultValue default value which is returned if property doesn't exist
+     * @return property value or default value
+     * @throws PropertyAccessException when property access failed
+     */
+    int getInt(@Nonnull String key, int defaultValue) throws PropertyAccessException;
+
+    /**
+     * Gets long property value or returns default value if provided property doesn't exist
+     *
+     * @param key          property name
+     * @param defaultValue default value which is returned if property doesn't exist
+     * @return property value or default value
+     * @throws PropertyAccessException when property access failed
+     */
+    long getLong(@Nonnull String key, long defaultValue) throws PropertyAccessException;
+
+    /**
+     * Gets float property value or returns default value if provided property doesn't exist
+     *
+     * @param key          property name
+     * @param defaultValue default value which is returned if property doesn't exist
+     * @return property value or default value
+     * @throws PropertyAccessException when property access failed
+     */
+    float getFloat(@Nonnull String key, float defaultValue) throws PropertyAccessException;
+
+    /**
+     * Gets double property value or returns default value if provided property doesn't exist
+     *
+     * @param key          property name
+     * @param defaultValue default value which is returned if property doesn't exist
+     * @return property value or default value
+     * @throws PropertyAccessException when property access failed
+     */
+    double getDouble(@Nonnull String key, double defaultValue) throws PropertyAccessException;
+
+    /**
+     * Gets boolean property value or returns default value if provided property doesn't exist
+     *
+     * @param key          property name
+     * @param defaultValue default value which is returned if property doesn't exist
+     * @return property value or default value
+     * @throws PropertyAccessException when property access failed
+     */
+    boolean getBoolean(@Nonnull String key, boolean defaultValue) throws PropertyAccessException;
+
+    /**
+     * Gets string property value or returns default value if provided property doesn't exist
+     *
+     * @param key          property name
+     * @param defaultValue default value which is returned if property doesn't exist
+     * @return property value or default value
+     * @throws PropertyAccessException when property access failed
+     */
+    String getString(@Nonnull String key, String defaultValue) throws PropertyAccessException;
+
+    /**
+     * Gets string set property value or returns default value if provided property doesn't exist.
+     * Returned set must not be modified.
+     *
+     * @param key          property name
+     * @param defaultValue default value which is returned if property doesn't exist
+     * @return property value or default value
+     * @throws PropertyAccessException when property access failed
+     */
+    Set<String> getStringSet(@Nonnull String key, Set<String> defaultValue)
+            throws PropertyAccessException;
+
+    /**
+     * Same as {@link #contains(String)}, but takes precomputed key handle
+     *
+     * @param key property key handle
+     * @return whether property exists
+     */
+    boolean contains(@Nonnull PropertyKey key);
+
+    /**
+     * Same as {@link #getInt(String, int)}, but takes precomputed key handle
+     *
+     * @param key          property key handle
+     * @param defaultValue default value which is returned if property doesn't exist
+     * @return property value or default value
+     * @throws PropertyAccessException when property access failed
+     */
+    int getInt(@Nonnull PropertyKey key, int defaultValue) throws PropertyAccessException;
+
+    /**
+     * Same as {@link #getLong(String, long)}, but takes precomputed key handle
+     *
+     * @param key          property key handle
+     * @param defaultValue default value which is returned if property doesn't exist
+     * @return property value or default value
+     * @throws PropertyAccessException when property access failed
+     */
+    long getLong(@Nonnull PropertyKey key, long defaultValue) throws PropertyAccessException;
+
+    /**
+     * Same as {@link #getFloat(String, float)}, but takes precomputed key handle
+     *
+     * @param key          property key handle
+     * @param defaultValue default value which is returned if property doesn't exist
+     * @return property value or default value
+     * @throws PropertyAccessException when property access failed
+     */
+    float getFloat(@Nonnull PropertyKey key, float defaultValue) throws PropertyAccessException;
+
+    /**
+     * Same as {@link #getDouble(String, double)}, but takes precomputed key handle
+     *
+     * @param key          property key handle
+     * @param defaultValue default value which is returned if property doesn't exist
+     * @return property value or default value
+     * @throws PropertyAccessException when property access failed
+     */
+    double getDouble(@Nonnull PropertyKey key, double defaultValue) throws PropertyAccessException;
+
+    /**
+     * Same as {@link #getBoolean(String, boolean)}, but takes precomputed key handle
+     *
+     * @param key          property key handle
+     * @param defaultValue default value which is returned if property doesn't exist
+     * @return property value or default value
+     * @throws PropertyAccessException when property access failed
+     */
+    boolean getBoolean(@Nonnull PropertyKey key, boolean defaultValue)
+            throws PropertyAccessException;
+
+    /**
+     * Same as {@link #getString(String, String)}, but takes precomputed key handle
+     *
+     * @param key          property key handle
+     * @param defaultValue default value which is returned if property doesn't exist
+     * @return property value or default value
+     * @throws PropertyAccessException when property access failed
+     */
+    String getString(@Nonnull PropertyKey key, String defaultValue) throws PropertyAccessException;
+
+    /**
+     * Same as {@link #getStringSet(String, Set)}, but takes precomputed key handle
+     *
+     * @param key          property key handle
+     * @param defaultValue default value which is returned if property doesn't exist
+     * @return property value or default value
+     * @throws PropertyAccessException when property access failed
+     */
+    Set<String> getStringSet(@Nonnull PropertyKey key, Set<String> defaultValue)
+            throws PropertyAccessException;
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Immutable point-in-time view of all properties in {@link PropertyStore}. Snapshot is not
+ * affected by changes committed after it has been taken, so related properties read from it
+ * are always consistent. Snapshots can be read from any thread without locking.
+ */
+public interface PropertySnapshot extends PropertyReader {
+    /**
+     * Returns names of all properties in this snapshot
+     *
+     * @return unmodifiable set of property names
+     */
+    @Nonnull
+    Set<String> keys();
+
+    /**
+     * Returns property value as held by the store, which is {@link Integer}, {@link Long},
+     * {@link Float}, {@link Double}, {@link Boolean}, {@link String} or {@link Set} of strings.
+     * Stores may hold values of some types as strings.
+     *
+     * @param key property name
+     * @return property value or null if property doesn't exist
+     * @throws PropertyAccessException when property access failed
+     */
+    Object getValue(@Nonnull String key) throws PropertyAccessException;
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.util.Set;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Interface for property store. Class implementing this interface are responsible for delivering
+ * mechanism for storing and retrieving properties values from persistent storage.
+ * <p/>
+ * Snapshots, preloading and change versions were added to this interface after its first
+ * release. Custom stores extend {@link AbstractPropertyStore}, {@link AbstractPropertyReader}
+ * and {@link AbstractPropertyWriter}, which provide them on top of the original methods.
+ */
+public interface PropertyStore {
+    /**
+     * Returns properties reader
+     *
+     * @return properties reader for this store
+     */
+    @Nonnull
+    PropertyReader getReader();
+
+    /**
+     * Returns properties writer
+     *
+     * @return properties writer for this store
+     */
+    @Nonnull
+    PropertyWriter getWriter();
+
+    /**
+     * Returns immutable point-in-time view of all properties in this store. Snapshot is reused
+     * until next change is committed, so taking it repeatedly is cheap.
+     *
+     * @return snapshot of this store
+     */
+    @Nonnull
+    PropertySnapshot snapshot();
+
+    /**
+     * Starts loading contents of this store on a background thread, so later reads don't wait
+     * for persistent storage
+     *
+     * @return future completed once store is loaded
+     */
+    @Nonnull
+    Future<Void> preload();
+
+    /**
+     * Returns version of this store, which increases with every committed change. Comparing
+     * versions is a cheap way of checking whether anything has changed.
+     *
+     * @return current version
+     */
+    long getVersion();
+
+    /**
+     * Returns keys of properties changed after provided version
+     *
+     * @param version version previously returned by {@link #getVersion()}
+     * @return changed keys, or null if changes are no longer known and all properties need to
+     * be read again
+     * @see ChangeJournal
+     */
+    @Nullable
+    Set<String> getChangedKeys(long version);
+
+    /**
+     * Registers a callback to be invoked when a change happens to a property.
+     *
+     * @param listener The callback that will run.
+     * @see #unregisterOnPropertyChangeListener
+     */
+    void registerOnPropertyChangeListener(@Nonnull OnPropertyChangeListener listener);
+
+    /**
+     * Unregisters a previous callback.
+     *
+     * @param listener The callback that should be unregistered.
+     * @see #registerOnPropertyChangeListener
+     */
+    void unregisterOnPropertyChangeListener(@Nonnull OnPropertyChangeListener listener);
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+/**
+ * Interface definition for a function computing new value of a {@link Property} from
+ * the current one.
+ *
+ * @param <T> property value type
+ */
+public interface PropertyUpdater<T> {
+    /**
+     * Computes new property value. This may be called more than once for a single update
+     * when property is modified concurrently, so it must not have side effects.
+     *
+     * @param value current property value
+     * @return new property value
+     */
+    T update(T value);
+}
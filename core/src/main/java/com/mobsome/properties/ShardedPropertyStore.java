@@ -0,0 +1,698 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Store spreading properties across several underlying stores, e.g. one
+ * {@code SharedPreferencesStore} per preferences file. Every key is always kept in the same
+ * shard, chosen by its hash code, which is stable between runs. Shards are created, and so
+ * loaded, on first access to any of their keys, and commits touch only the shards having
+ * changed properties.
+ * <p/>
+ * Changes written to several shards with a single commit are committed shard by shard, so they
+ * are not atomic. For the same reason snapshots of this store are consistent per shard only.
+ * Number of shards must not change once properties have been stored, otherwise keys are looked
+ * up in wrong shards.
+ */
+public class ShardedPropertyStore implements PropertyStore {
+    /**
+     * Factory of shards
+     */
+    public interface ShardFactory {
+        /**
+         * Creates shard with provided index, e.g. store backed by file named after the index
+         *
+         * @param index shard index, from 0 to number of shards exclusive
+         * @return shard store
+         */
+        @Nonnull
+        PropertyStore createShard(int index);
+    }
+
+    private final ShardFactory factory;
+    private final AtomicReferenceArray<PropertyStore> shards;
+    private final List<OnPropertyChangeListener> listeners = new CopyOnWriteArrayList<>();
+    /**
+     * Changes of created shards, each batch of them recorded as a single version
+     */
+    private final ChangeJournal journal = new ChangeJournal();
+    /**
+     * Versions of created shards up to which their changes have been recorded in the journal,
+     * guarded by the journal
+     */
+    private final long[] shardVersions;
+
+    /**
+     * Creates store
+     *
+     * @param shardCount number of shards
+     * @param factory    factory creating shards on first access
+     */
+    public ShardedPropertyStore(int shardCount, @Nonnull ShardFactory factory) {
+        Preconditions.checkNotNull(factory, "factory must not be null");
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("shardCount must be positive");
+        }
+        this.factory = factory;
+        this.shards = new AtomicReferenceArray<>(shardCount);
+        this.shardVersions = new long[shardCount];
+    }
+
+    /**
+     * Returns number of shards
+     *
+     * @return number of shards
+     */
+    public int getShardCount() {
+        return shards.length();
+    }
+
+    /**
+     * Returns index of the shard holding provided key
+     *
+     * @param key property name
+     * @return shard index
+     */
+    public int getShardIndex(@Nonnull String key) {
+        Preconditions.checkNotNull(key, "key must not be null");
+        return indexOf(key.hashCode());
+    }
+
+    private int indexOf(@Nonnull PropertyKey key) {
+        Preconditions.checkNotNull(key, "key must not be null");
+        return indexOf(key.hashCode());
+    }
+
+    private int indexOf(int hash) {
+        return (hash & Integer.MAX_VALUE) % shards.length();
+    }
+
+    /**
+     * Returns shard with provided index, creating it if needed
+     *
+     * @param index shard index
+     * @return shard store
+     */
+    @Nonnull
+    PropertyStore shard(int index) {
+        final PropertyStore shard = shards.get(index);
+        if (shard != null) {
+            return shard;
+        }
+        synchronized (shards) {
+            PropertyStore created = shards.get(index);
+            if (created == null) {
+                created = factory.createShard(index);
+                Preconditions.checkNotNull(created, "created shard must not be null");
+                created.registerOnPropertyChangeListener(shardListener);
+                synchronized (journal) {
+                    shardVersions[index] = created.getVersion();
+                }
+                shards.set(index, created);
+            }
+            return created;
+        }
+    }
+
+    /**
+     * Checks whether shard with provided index has been created
+     *
+     * @param index shard index
+     * @return whether shard exists
+     */
+    boolean isShardCreated(int index) {
+        return shards.get(index) != null;
+    }
+
+    private PropertyReader readerFor(@Nonnull String key) {
+        return shard(getShardIndex(key)).getReader();
+    }
+
+    private PropertyReader readerFor(@Nonnull PropertyKey key) {
+        return shard(indexOf(key)).getReader();
+    }
+
+    @Override
+    @Nonnull
+    public PropertyReader getReader() {
+        return reader;
+    }
+
+    @Override
+    @Nonnull
+    public PropertyWriter getWriter() {
+        return writer;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Snapshots of created shards are taken right away. Shards which haven't been created yet
+     * are created, and their snapshots taken, on first access to one of their keys, so the
+     * snapshot is point-in-time per shard only. Listing its keys creates all shards.
+     */
+    @Override
+    @Nonnull
+    public PropertySnapshot snapshot() {
+        final AtomicReferenceArray<PropertySnapshot> snapshots =
+                new AtomicReferenceArray<>(shards.length());
+        for (int i = 0; i < snapshots.length(); i++) {
+            final PropertyStore shard = shards.get(i);
+            if (shard != null) {
+                snapshots.set(i, shard.snapshot());
+            }
+        }
+        return new ShardedSnapshot(snapshots);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Created shards are preloaded in parallel. Other shards are still loaded on first access
+     * to one of their keys.
+     */
+    @Override
+    @Nonnull
+    public Future<Void> preload() {
+        final Future<?>[] loads = new Future<?>[shards.length()];
+        for (int i = 0; i < loads.length; i++) {
+            final PropertyStore shard = shards.get(i);
+            if (shard != null) {
+                loads[i] = shard.preload();
+            }
+        }
+        return PropertyExecutors.background().submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                for (Future<?> load : loads) {
+                    if (load != null) {
+                        load.get();
+                    }
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Version follows versions of created shards. Changes of all shards committed with
+     * a single commit of this store are recorded as a single version.
+     */
+    @Override
+    public long getVersion() {
+        return recordShardChanges();
+    }
+
+    @Override
+    @Nullable
+    public Set<String> getChangedKeys(long version) {
+        recordShardChanges();
+        return journal.getChangedKeys(version);
+    }
+
+    /**
+     * Records changes of created shards, made since they were recorded last time, as a single
+     * version
+     *
+     * @return current version
+     */
+    private long recordShardChanges() {
+        synchronized (journal) {
+            final Set<String> changedKeys = new LinkedHashSet<>();
+            boolean changed = false;
+            boolean unknown = false;
+            for (int i = 0; i < shardVersions.length; i++) {
+                final PropertyStore shard = shards.get(i);
+                if (shard == null) {
+                    continue;
+                }
+                final long version = shard.getVersion();
+                if (version == shardVersions[i]) {
+                    continue;
+                }
+                final Set<String> keys = shard.getChangedKeys(shardVersions[i]);
+                if (keys != null) {
+                    changedKeys.addAll(keys);
+                } else {
+                    unknown = true;
+                }
+                shardVersions[i] = version;
+                changed = true;
+            }
+            if (unknown) {
+                return journal.recordUnknown();
+            }
+            return changed ? journal.record(changedKeys) : journal.getVersion();
+        }
+    }
+
+    @Override
+    public void registerOnPropertyChangeListener(@Nonnull OnPropertyChangeListener listener) {
+        Preconditions.checkNotNull(listener, "listener must not be null");
+        listeners.add(listener);
+    }
+
+    @Override
+    public void unregisterOnPropertyChangeListener(@Nonnull OnPropertyChangeListener listener) {
+        Preconditions.checkNotNull(listener, "listener must not be null");
+        listeners.remove(listener);
+    }
+
+    /**
+     * Listener of all created shards, notifying listeners of this store
+     */
+    private final OnPropertyChangeListener shardListener = new OnPropertyChangeListener() {
+        @Override
+        public void onPropertyChanged(PropertyStore propertyStore, String key) {
+            for (OnPropertyChangeListener listener : listeners) {
+                listener.onPropertyChanged(ShardedPropertyStore.this, key);
+            }
+        }
+    };
+
+    /**
+     * Sharded properties reader
+     */
+    private final PropertyReader reader = new AbstractPropertyReader() {
+        @Override
+        public boolean contains(@Nonnull String key) {
+            return readerFor(key).contains(key);
+        }
+
+        @Override
+        public int getInt(@Nonnull String key, int defaultValue)
+                throws PropertyAccessException {
+            return readerFor(key).getInt(key, defaultValue);
+        }
+
+        @Override
+        public long getLong(@Nonnull String key, long defaultValue)
+                throws PropertyAccessException {
+            return readerFor(key).getLong(key, defaultValue);
+        }
+
+        @Override
+        public float getFloat(@Nonnull String key, float defaultValue)
+                throws PropertyAccessException {
+            return readerFor(key).getFloat(key, defaultValue);
+        }
+
+        @Override
+        public double getDouble(@Nonnull String key, double defaultValue)
+                throws PropertyAccessException {
+            return readerFor(key).getDouble(key, defaultValue);
+        }
+
+        @Override
+        public boolean getBoolean(@Nonnull String key, boolean defaultValue)
+                throws PropertyAccessException {
+            return readerFor(key).getBoolean(key, defaultValue);
+        }
+
+        @Override
+        public String getString(@Nonnull String key, String defaultValue)
+                throws PropertyAccessException {
+            return readerFor(key).getString(key, defaultValue);
+        }
+
+        @Override
+        public Set<String> getStringSet(@Nonnull String key, Set<String> defaultValue)
+                throws PropertyAccessException {
+            return readerFor(key).getStringSet(key, defaultValue);
+        }
+
+        @Override
+        public boolean contains(@Nonnull PropertyKey key) {
+            return readerFor(key).contains(key);
+        }
+
+        @Override
+        public int getInt(@Nonnull PropertyKey key, int defaultValue)
+                throws PropertyAccessException {
+            return readerFor(key).getInt(key, defaultValue);
+        }
+
+        @Override
+        public long getLong(@Nonnull PropertyKey key, long defaultValue)
+                throws PropertyAccessException {
+            return readerFor(key).getLong(key, defaultValue);
+        }
+
+        @Override
+        public float getFloat(@Nonnull PropertyKey key, float defaultValue)
+                throws PropertyAccessException {
+            return readerFor(key).getFloat(key, defaultValue);
+        }
+
+        @Override
+        public double getDouble(@Nonnull PropertyKey key, double defaultValue)
+                throws PropertyAccessException {
+            return readerFor(key).getDouble(key, defaultValue);
+        }
+
+        @Override
+        public boolean getBoolean(@Nonnull PropertyKey key, boolean defaultValue)
+                throws PropertyAccessException {
+            return readerFor(key).getBoolean(key, defaultValue);
+        }
+
+        @Override
+        public String getString(@Nonnull PropertyKey key, String defaultValue)
+                throws PropertyAccessException {
+            return readerFor(key).getString(key, defaultValue);
+        }
+
+        @Override
+        public Set<String> getStringSet(@Nonnull PropertyKey key, Set<String> defaultValue)
+                throws PropertyAccessException {
+            return readerFor(key).getStringSet(key, defaultValue);
+        }
+    };
+
+    /**
+     * Sharded properties writer. Shard writers are put in edit mode once the first change of
+     * their shard is written, and only those are committed.
+     */
+    private final PropertyWriter writer = new AbstractPropertyWriter() {
+        /**
+         * Writers of shards changed by the current thread, indexed by shard
+         */
+        private final ThreadLocal<PropertyWriter[]> editedWriters = new ThreadLocal<>();
+
+        /**
+         * Ensures that {@link PropertyWriter#edit()} has been called
+         *
+         * @return writers of shards changed by the current thread
+         */
+        private PropertyWriter[] ensureInEditMode() {
+            final PropertyWriter[] writers = editedWriters.get();
+            if (writers == null) {
+                throw new IllegalStateException();
+            }
+            return writers;
+        }
+
+        /**
+         * Returns writer of shard with provided index, starting its edit if needed
+         */
+        private PropertyWriter writerFor(int index) {
+            final PropertyWriter[] writers = ensureInEditMode();
+            PropertyWriter shardWriter = writers[index];
+            if (shardWriter == null) {
+                shardWriter = shard(index).getWriter();
+                shardWriter.edit();
+                writers[index] = shardWriter;
+            }
+            return shardWriter;
+        }
+
+        @Override
+        public void edit() {
+            editedWriters.set(new PropertyWriter[shards.length()]);
+        }
+
+        @Override
+        public void commit() {
+            final PropertyWriter[] writers = ensureInEditMode();
+            edit();
+            for (PropertyWriter writer : writers) {
+                if (writer != null) {
+                    writer.commit();
+                }
+            }
+            recordShardChanges();
+        }
+
+        @Override
+        public void commitAsync() {
+            final PropertyWriter[] writers = ensureInEditMode();
+            edit();
+            for (PropertyWriter writer : writers) {
+                if (writer != null) {
+                    writer.commitAsync();
+                }
+            }
+            recordShardChanges();
+        }
+
+        @Override
+        public void writeInt(@Nonnull String key, int value)
+                throws PropertyAccessException {
+            writerFor(getShardIndex(key)).writeInt(key, value);
+        }
+
+        @Override
+        public void writeInt(@Nonnull PropertyKey key, int value)
+                throws PropertyAccessException {
+            writerFor(indexOf(key)).writeInt(key, value);
+        }
+
+        @Override
+        public void writeLong(@Nonnull String key, long value)
+                throws PropertyAccessException {
+            writerFor(getShardIndex(key)).writeLong(key, value);
+        }
+
+        @Override
+        public void writeLong(@Nonnull PropertyKey key, long value)
+                throws PropertyAccessException {
+            writerFor(indexOf(key)).writeLong(key, value);
+        }
+
+        @Override
+        public void writeFloat(@Nonnull String key, float value)
+                throws PropertyAccessException {
+            writerFor(getShardIndex(key)).writeFloat(key, value);
+        }
+
+        @Override
+        public void writeFloat(@Nonnull PropertyKey key, float value)
+                throws PropertyAccessException {
+            writerFor(indexOf(key)).writeFloat(key, value);
+        }
+
+        @Override
+        public void writeDouble(@Nonnull String key, double value)
+                throws PropertyAccessException {
+            writerFor(getShardIndex(key)).writeDouble(key, value);
+        }
+
+        @Override
+        public void writeDouble(@Nonnull PropertyKey key, double value)
+                throws PropertyAccessException {
+            writerFor(indexOf(key)).writeDouble(key, value);
+        }
+
+        @Override
+        public void writeBoolean(@Nonnull String key, boolean value)
+                throws PropertyAccessException {
+            writerFor(getShardIndex(key)).writeBoolean(key, value);
+        }
+
+        @Override
+        public void writeBoolean(@Nonnull PropertyKey key, boolean value)
+                throws PropertyAccessException {
+            writerFor(indexOf(key)).writeBoolean(key, value);
+        }
+
+        @Override
+        public void writeString(@Nonnull String key, String value)
+                throws PropertyAccessException {
+            writerFor(getShardIndex(key)).writeString(key, value);
+        }
+
+        @Override
+        public void writeString(@Nonnull PropertyKey key, String value)
+                throws PropertyAccessException {
+            writerFor(indexOf(key)).writeString(key, value);
+        }
+
+        @Override
+        public void writeStringSet(@Nonnull String key, Set<String> value)
+                throws PropertyAccessException {
+            writerFor(getShardIndex(key)).writeStringSet(key, value);
+        }
+
+        @Override
+        public void writeStringSet(@Nonnull PropertyKey key, Set<String> value)
+                throws PropertyAccessException {
+            writerFor(indexOf(key)).writeStringSet(key, value);
+        }
+
+        @Override
+        public void remove(@Nonnull String key) {
+            writerFor(getShardIndex(key)).remove(key);
+        }
+
+        @Override
+        public void remove(@Nonnull PropertyKey key) {
+            writerFor(indexOf(key)).remove(key);
+        }
+    };
+
+    /**
+     * Snapshots of shards, taken on first access for shards which weren't created before
+     */
+    private final class ShardedSnapshot extends AbstractPropertyReader
+            implements PropertySnapshot {
+        private final AtomicReferenceArray<PropertySnapshot> snapshots;
+
+        ShardedSnapshot(AtomicReferenceArray<PropertySnapshot> snapshots) {
+            this.snapshots = snapshots;
+        }
+
+        private PropertySnapshot snapshotFor(int index) {
+            final PropertySnapshot snapshot = snapshots.get(index);
+            if (snapshot != null) {
+                return snapshot;
+            }
+            snapshots.compareAndSet(index, null, shard(index).snapshot());
+            return snapshots.get(index);
+        }
+
+        private PropertySnapshot snapshotFor(@Nonnull String key) {
+            return snapshotFor(getShardIndex(key));
+        }
+
+        private PropertySnapshot snapshotFor(@Nonnull PropertyKey key) {
+            return snapshotFor(indexOf(key));
+        }
+
+        @Override
+        @Nonnull
+        public Set<String> keys() {
+            final Set<String> keys = new HashSet<>();
+            for (int i = 0; i < snapshots.length(); i++) {
+                keys.addAll(snapshotFor(i).keys());
+            }
+            return Collections.unmodifiableSet(keys);
+        }
+
+        @Override
+        public Object getValue(@Nonnull String key) throws PropertyAccessException {
+            return snapshotFor(key).getValue(key);
+        }
+
+        @Override
+        public boolean contains(@Nonnull String key) {
+            return snapshotFor(key).contains(key);
+        }
+
+        @Override
+        public int getInt(@Nonnull String key, int defaultValue)
+                throws PropertyAccessException {
+            return snapshotFor(key).getInt(key, defaultValue);
+        }
+
+        @Override
+        public long getLong(@Nonnull String key, long defaultValue)
+                throws PropertyAccessException {
+            return snapshotFor(key).getLong(key, defaultValue);
+        }
+
+        @Override
+        public float getFloat(@Nonnull String key, float defaultValue)
+                throws PropertyAccessException {
+            return snapshotFor(key).getFloat(key, defaultValue);
+        }
+
+        @Override
+        public double getDouble(@Nonnull String key, double defaultValue)
+                throws PropertyAccessException {
+            return snapshotFor(key).getDouble(key, defaultValue);
+        }
+
+        @Override
+        public boolean getBoolean(@Nonnull String key, boolean defaultValue)
+                throws PropertyAccessException {
+            return snapshotFor(key).getBoolean(key, defaultValue);
+        }
+
+        @Override
+        public String getString(@Nonnull String key, String defaultValue)
+                throws PropertyAccessException {
+            return snapshotFor(key).getString(key, defaultValue);
+        }
+
+        @Override
+        public Set<String> getStringSet(@Nonnull String key, Set<String> defaultValue)
+                throws PropertyAccessException {
+            return snapshotFor(key).getStringSet(key, defaultValue);
+        }
+
+        @Override
+        public boolean contains(@Nonnull PropertyKey key) {
+            return snapshotFor(key).contains(key);
+        }
+
+        @Override
+        public int getInt(@Nonnull PropertyKey key, int defaultValue)
+                throws PropertyAccessException {
+            return snapshotFor(key).getInt(key, defaultValue);
+        }
+
+        @Override
+        public long getLong(@Nonnull PropertyKey key, long defaultValue)
+                throws PropertyAccessException {
+            return snapshotFor(key).getLong(key, defaultValue);
+        }
+
+        @Override
+        public float getFloat(@Nonnull PropertyKey key, float defaultValue)
+                throws PropertyAccessException {
+            return snapshotFor(key).getFloat(key, defaultValue);
+        }
+
+        @Override
+        public double getDouble(@Nonnull PropertyKey key, double defaultValue)
+                throws PropertyAccessException {
+            return snapshotFor(key).getDouble(key, defaultValue);
+        }
+
+        @Override
+        public boolean getBoolean(@Nonnull PropertyKey key, boolean defaultValue)
+                throws PropertyAccessException {
+            return snapshotFor(key).getBoolean(key, defaultValue);
+        }
+
+        @Override
+        public String getString(@Nonnull PropertyKey key, String defaultValue)
+                throws PropertyAccessException {
+            return snapshotFor(key).getString(key, defaultValue);
+        }
+
+        @Override
+        public Set<String> getStringSet(@Nonnull PropertyKey key, Set<String> defaultValue)
+                throws PropertyAccessException {
+            return snapshotFor(key).getStringSet(key, defaultValue);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Holder of the latest {@link PropertySnapshot} of a store. Snapshot is created on demand and
+ * reused until store is changed, so repeated snapshots of unchanged store are free.
+ */
+abstract class SnapshotCache {
+    /**
+     * Number of store changes, incremented on every invalidation
+     */
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Entry latest;
+
+    /**
+     * Creates new snapshot of current store content
+     *
+     * @return store snapshot
+     */
+    @Nonnull
+    abstract PropertySnapshot create();
+
+    /**
+     * Returns snapshot of current store content
+     *
+     * @return store snapshot
+     */
+    @Nonnull
+    final PropertySnapshot get() {
+        final Entry entry = latest;
+        final long currentGeneration = generation.get();
+        if (entry != null && entry.generation == currentGeneration) {
+            return entry.snapshot;
+        }
+
+        // Snapshot created while store is being changed is reused only until invalidation
+        final PropertySnapshot snapshot = create();
+        latest = new Entry(currentGeneration, snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Discards cached snapshot. Must be called after every change of store content.
+     */
+    final void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    private static final class Entry {
+        final long generation;
+        final PropertySnapshot snapshot;
+
+        Entry(long generation, PropertySnapshot snapshot) {
+            this.generation = generation;
+            this.snapshot = snapshot;
+        }
+    }
+}
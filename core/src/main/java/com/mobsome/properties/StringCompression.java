@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Compression of string property values. Compressed values are stored as Base64 of deflated
+ * UTF-8 bytes behind a header marker, so compressed and uncompressed values can coexist.
+ * Uncompressed values starting with the marker character are escaped.
+ */
+final class StringCompression {
+    /**
+     * Default length of string value above which it is compressed
+     */
+    static final int DEFAULT_THRESHOLD = 512;
+    /**
+     * Prefix of values which are stored compressed or escaped
+     */
+    private static final char MARKER = '\uE001';
+    /**
+     * Header of compressed values
+     */
+    private static final String HEADER = MARKER + "z";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int BUFFER_SIZE = 4 * 1024;
+
+    private StringCompression() {
+    }
+
+    /**
+     * Compresses string value if it is longer than provided threshold and compressed form
+     * is shorter than the value itself
+     *
+     * @param value     string value
+     * @param threshold length of string value above which it is compressed
+     * @return value to be stored
+     */
+    @Nonnull
+    static String compress(@Nonnull String value, int threshold) {
+        if (value.length() > threshold) {
+            final byte[] bytes = value.getBytes(UTF_8);
+            final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            try {
+                deflater.setInput(bytes);
+                deflater.finish();
+                final ByteArrayOutputStream output = new ByteArrayOutputStream(bytes.length / 2);
+                final byte[] buffer = new byte[BUFFER_SIZE];
+                while (!deflater.finished()) {
+                    output.write(buffer, 0, deflater.deflate(buffer));
+                }
+                if ((output.size() + 2) / 3 * 4 + HEADER.length() < value.length()) {
+                    return HEADER + Base64.encode(output.toByteArray());
+                }
+            } finally {
+                deflater.end();
+            }
+        }
+        return !value.isEmpty() && value.charAt(0) == MARKER ? MARKER + value : value;
+    }
+
+    /**
+     * Restores string value stored by {@link #compress(String, int)}. Values stored without
+     * compression are returned unchanged.
+     *
+     * @param storedValue stored value
+     * @return string value
+     * @throws PropertyAccessException when compressed value is corrupted
+     */
+    @Nonnull
+    static String decompress(@Nonnull String storedValue) throws PropertyAccessException {
+        if (storedValue.isEmpty() || storedValue.charAt(0) != MARKER) {
+            return storedValue;
+        }
+        if (!storedValue.startsWith(HEADER)) {
+            return storedValue.substring(1);
+        }
+
+        final Inflater inflater = new Inflater(true);
+        try {
+            final byte[] bytes = Base64.decode(storedValue.substring(HEADER.length()));
+            // Extra byte is required by inflater to finish raw deflate stream
+            final byte[] input = new byte[bytes.length + 1];
+            System.arraycopy(bytes, 0, input, 0, bytes.length);
+            inflater.setInput(input);
+            final ByteArrayOutputStream output = new ByteArrayOutputStream(bytes.length * 3);
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                final int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new PropertyAccessException("Truncated compressed value");
+                }
+                output.write(buffer, 0, length);
+            }
+            return new String(output.toByteArray(), UTF_8);
+        } catch (DataFormatException | IllegalArgumentException e) {
+            throw new PropertyAccessException("Failed to decompress value", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.mobsome.properties;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of {@link AbstractPropertyStore} on top of a store implementing only the original
+ * {@link PropertyStore} methods
+ */
+public class AbstractPropertyStoreTest {
+    @Test
+    public void testCustomStoreSupportsNewCapabilities() throws Exception {
+        final MapStore store = new MapStore();
+        store.preload().get();
+        final long version = store.getVersion();
+
+        final Properties.IntProperty property = new Properties.IntProperty("int", 1, store);
+        property.set(2);
+
+        assertEquals(version + 1, store.getVersion());
+        assertEquals(Collections.singleton("int"), store.getChangedKeys(version));
+        assertEquals(Collections.singleton("int"), store.snapshot().keys());
+        assertEquals(2, property.get(store.snapshot()).intValue());
+    }
+
+    /**
+     * Store keeping values in memory, as written against the original interface
+     */
+    private static final class MapStore extends AbstractPropertyStore {
+        private final Map<String, Object> values = new ConcurrentHashMap<>();
+        private final List<OnPropertyChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+        private final PropertyReader reader = new AbstractPropertyReader() {
+            @Override
+            public boolean contains(String key) {
+                return values.containsKey(key);
+            }
+
+            @Override
+            public int getInt(String key, int defaultValue) {
+                final Integer value = (Integer) values.get(key);
+                return value != null ? value : defaultValue;
+            }
+
+            @Override
+            public long getLong(String key, long defaultValue) {
+                final Long value = (Long) values.get(key);
+                return value != null ? value : defaultValue;
+            }
+
+            @Override
+            public float getFloat(String key, float defaultValue) {
+                final Float value = (Float) values.get(key);
+                return value != null ? value : defaultValue;
+            }
+
+            @Override
+            public double getDouble(String key, double defaultValue) {
+                final Double value = (Double) values.get(key);
+                return value != null ? value : defaultValue;
+            }
+
+            @Override
+            public boolean getBoolean(String key, boolean defaultValue) {
+                final Boolean value = (Boolean) values.get(key);
+                return value != null ? value : defaultValue;
+            }
+
+            @Override
+            public String getString(String key, String defaultValue) {
+                final String value = (String) values.get(key);
+                return value != null ? value : defaultValue;
+            }
+        };
+
+        private final PropertyWriter writer = new AbstractPropertyWriter() {
+            @Override
+            public void edit() {
+            }
+
+            @Override
+            public void commit() {
+            }
+
+            @Override
+            public void commitAsync() {
+            }
+
+            @Override
+            public void writeInt(String key, int value) {
+                put(key, value);
+            }
+
+            @Override
+            public void writeLong(String key, long value) {
+                put(key, value);
+            }
+
+            @Override
+            public void writeFloat(String key, float value) {
+                put(key, value);
+            }
+
+            @Override
+            public void writeDouble(String key, double value) {
+                put(key, value);
+            }
+
+            @Override
+            public void writeBoolean(String key, boolean value) {
+                put(key, value);
+            }
+
+            @Override
+            public void writeString(String key, String value) {
+                put(key, value);
+            }
+
+            @Override
+            public void remove(String key) {
+                values.remove(key);
+                notifyChanged(key);
+            }
+        };
+
+        private void put(String key, Object value) {
+            values.put(key, value);
+            notifyChanged(key);
+        }
+
+        private void notifyChanged(String key) {
+            for (OnPropertyChangeListener listener : listeners) {
+                listener.onPropertyChanged(this, key);
+            }
+        }
+
+        @Override
+        protected Map<String, ?> getAll() {
+            return values;
+        }
+
+        @Override
+        public PropertyReader getReader() {
+            return reader;
+        }
+
+        @Override
+        public PropertyWriter getWriter() {
+            return writer;
+        }
+
+        @Override
+        public void registerOnPropertyChangeListener(OnPropertyChangeListener listener) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public void unregisterOnPropertyChangeListener(OnPropertyChangeListener listener) {
+            listeners.remove(listener);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.mobsome.properties;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Throughput comparison of {@link AesGcmCipher} and a naive cipher looking up {@link Cipher}
+ * and creating key on every call. Runs only when {@code benchmark} system property is set,
+ * e.g. {@code ./gradlew test -Dbenchmark=true}
+ */
+public class AesGcmCipherBenchmark {
+    private static final int[] THREADS = {1, 2, 4, 8};
+    private static final int WARMUP_ITERATIONS = 2000;
+    private static final int ITERATIONS = 20000;
+    private static final String VALUE = "{\"id\":12345,\"name\":\"user name\",\"token\":\"abcdef\"}";
+
+    private final byte[] key = new byte[16];
+
+    @Before
+    public void setup() throws Exception {
+        Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+        new SecureRandom().nextBytes(key);
+    }
+
+    @Test
+    public void benchmarkDecrypt() throws Exception {
+        System.out.println(String.format(Locale.US, "%8s %16s %16s %8s",
+                "threads", "naive [ops/s]", "pooled [ops/s]", "speedup"));
+        final ICipher naive = new NaiveCipher(key);
+        final ICipher pooled = new AesGcmCipher(key);
+        final String encrypted = pooled.encrypt(VALUE);
+        assertEquals(VALUE, naive.decrypt(encrypted));
+        assertEquals(VALUE, pooled.decrypt(naive.encrypt(VALUE)));
+
+        for (int threads : THREADS) {
+            final double naiveOps = measure(naive, encrypted, threads);
+            final double pooledOps = measure(pooled, encrypted, threads);
+            System.out.println(String.format(Locale.US, "%8d %16.0f %16.0f %8.2f",
+                    threads, naiveOps, pooledOps, pooledOps / naiveOps));
+        }
+    }
+
+    /**
+     * Measures decryption throughput of provided cipher
+     *
+     * @param cipher    measured cipher
+     * @param encrypted value to be decrypted
+     * @param threads   number of decrypting threads
+     * @return decryptions per second
+     */
+    private static double measure(final ICipher cipher, final String encrypted, int threads)
+            throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final List<Callable<Long>> tasks = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            tasks.add(new Callable<Long>() {
+                @Override
+                public Long call() throws Exception {
+                    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                        cipher.decrypt(encrypted);
+                    }
+                    final long start = System.nanoTime();
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        cipher.decrypt(encrypted);
+                    }
+                    return System.nanoTime() - start;
+                }
+            });
+        }
+        long longest = 0;
+        for (Future<Long> future : executor.invokeAll(tasks)) {
+            longest = Math.max(longest, future.get());
+        }
+        executor.shutdown();
+        return (double) threads * ITERATIONS * 1e9 / longest;
+    }
+
+    /**
+     * Cipher doing all setup on every call, as most hand written ciphers do
+     */
+    private static final class NaiveCipher implements ICipher {
+        private static final Charset UTF_8 = Charset.forName("UTF-8");
+        private final byte[] key;
+
+        NaiveCipher(byte[] key) {
+            this.key = key;
+        }
+
+        @Override
+        public String encrypt(String plainText) {
+            try {
+                final byte[] iv = new byte[12];
+                new SecureRandom().nextBytes(iv);
+                final Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+                cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"),
+                        new GCMParameterSpec(128, iv));
+                final byte[] encrypted = cipher.doFinal(plainText.getBytes(UTF_8));
+                final byte[] output = new byte[iv.length + encrypted.length];
+                System.arraycopy(iv, 0, output, 0, iv.length);
+                System.arraycopy(encrypted, 0, output, iv.length, encrypted.length);
+                return Base64.encode(output);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public String decrypt(String secretText) {
+            try {
+                final byte[] input = Base64.decode(secretText);
+                final Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+                cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(key, "AES"),
+                        new GCMParameterSpec(128, input, 0, 12));
+                return new String(cipher.doFinal(input, 12, input.length - 12), UTF_8);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
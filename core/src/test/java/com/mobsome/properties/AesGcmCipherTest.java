@@ -0,0 +1,83 @@
+package com.mobsome.properties;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Tests of {@link AesGcmCipher}
+ */
+public class AesGcmCipherTest {
+    private final AesGcmCipher cipher = new AesGcmCipher(new byte[16]);
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final StringBuilder longValue = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            longValue.append("za\u017c\u00f3\u0142\u0107 ").append(i);
+        }
+        for (String value : new String[]{"", "value", longValue.toString()}) {
+            assertEquals(value, cipher.decrypt(cipher.encrypt(value)));
+        }
+    }
+
+    @Test
+    public void testFreshIv() throws Exception {
+        assertNotEquals(cipher.encrypt("value"), cipher.encrypt("value"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTamperedValue() throws Exception {
+        final char[] encrypted = cipher.encrypt("value").toCharArray();
+        encrypted[20] = encrypted[20] == 'A' ? 'B' : 'A';
+        cipher.decrypt(new String(encrypted));
+    }
+
+    @Test
+    public void testKeyBoundRoundTrip() throws Exception {
+        assertEquals("value", cipher.decrypt(cipher.encrypt("value", "key"), "key"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testValueOfOtherKey() throws Exception {
+        cipher.decrypt(cipher.encrypt("value", "key"), "other_key");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongKey() throws Exception {
+        final byte[] key = new byte[16];
+        key[0] = 1;
+        new AesGcmCipher(key).decrypt(cipher.encrypt("value"));
+    }
+
+    @Test
+    public void testConcurrentUse() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final List<Future<Void>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final int thread = t;
+            futures.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    for (int i = 0; i < 500; i++) {
+                        final String value = "value " + thread + " " + i;
+                        assertEquals(value, cipher.decrypt(cipher.encrypt(value)));
+                    }
+                    return null;
+                }
+            }));
+        }
+        for (Future<Void> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+    }
+}
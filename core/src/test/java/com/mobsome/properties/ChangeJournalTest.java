@@ -0,0 +1,52 @@
+package com.mobsome.properties;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests of {@link ChangeJournal}
+ */
+public class ChangeJournalTest {
+    @Test
+    public void testChangedKeysSinceVersion() {
+        final ChangeJournal journal = new ChangeJournal();
+        journal.record(Arrays.asList("a", "b"));
+        final long version = journal.record(Collections.singleton("c"));
+        journal.record(Arrays.asList("a", "d"));
+
+        assertEquals(3, journal.getVersion());
+        assertEquals(new HashSet<>(Arrays.asList("a", "d")), journal.getChangedKeys(version));
+        assertEquals(new HashSet<>(Arrays.asList("a", "b", "c", "d")),
+                journal.getChangedKeys(0));
+    }
+
+    @Test
+    public void testTruncatedHistoryIsReported() {
+        final ChangeJournal journal = new ChangeJournal(2, 10);
+        journal.record(Collections.singleton("a"));
+        journal.record(Collections.singleton("b"));
+        journal.record(Collections.singleton("c"));
+
+        assertNull(journal.getChangedKeys(10));
+        assertEquals(Collections.singleton("c"), journal.getChangedKeys(12));
+    }
+
+    @Test
+    public void testUnknownChangesAreReported() {
+        final ChangeJournal journal = new ChangeJournal();
+        final long version = journal.record(Collections.singleton("a"));
+        final long unknownVersion = journal.recordUnknown();
+
+        assertEquals(version + 1, unknownVersion);
+        assertNull(journal.getChangedKeys(version));
+        assertEquals(Collections.<String>emptySet(), journal.getChangedKeys(unknownVersion));
+        journal.record(Collections.singleton("b"));
+        assertEquals(Collections.singleton("b"), journal.getChangedKeys(unknownVersion));
+    }
+}
@@ -0,0 +1,316 @@
+package com.mobsome.properties;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Throughput, latency and consistency of {@link Property} reads and writes shared by many
+ * threads. Threads are ramped from 1 up to {@code benchmark.threads} for every combination of
+ * store, read ratio and key distribution. Writes increment counters, so updates lost in memory
+ * or in the store are detected, and some of them change a pair of keys with a single commit,
+ * which must never be seen torn in a store snapshot.
+ * <p/>
+ * Runs only when {@code benchmark} system property is set, e.g.
+ * {@code ./gradlew :core:test -Dbenchmark=true}. Workload is generated from
+ * {@code benchmark.seed}, so runs with the same settings are repeatable. Other settings are
+ * {@code benchmark.ops} (operations per thread) and {@code benchmark.keys}.
+ */
+public class ContentionBenchmark {
+    private static final double[] READ_RATIOS = {0.5, 0.9, 0.99};
+    private static final double ZIPF_EXPONENT = 0.99;
+    /**
+     * Every this many writes, a pair of keys is written with a single commit
+     */
+    private static final int PAIR_WRITE_INTERVAL = 16;
+    /**
+     * Every this many reads, a pair of keys is read from a store snapshot
+     */
+    private static final int PAIR_READ_INTERVAL = 16;
+    private static final String PAIR_FIRST = "pair_first";
+    private static final String PAIR_SECOND = "pair_second";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    private int maxThreads;
+    private int operations;
+    private int keys;
+    private long seed;
+
+    @Before
+    public void setup() throws Exception {
+        Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+        maxThreads = Integer.getInteger("benchmark.threads", 8);
+        operations = Integer.getInteger("benchmark.ops", 2000);
+        keys = Integer.getInteger("benchmark.keys", 64);
+        seed = Long.getLong("benchmark.seed", 42);
+    }
+
+    @Test
+    public void benchmarkContention() throws Exception {
+        System.out.println(String.format(Locale.US, "seed %d, %d operations per thread, %d keys",
+                seed, operations, keys));
+        System.out.println(String.format(Locale.US, "%-7s %-8s %5s %7s %12s %9s %9s %9s %6s %5s",
+                "store", "keys", "reads", "threads", "ops/s", "p50 [us]", "p99 [us]",
+                "p99.9[us]", "lost", "torn"));
+
+        run(StoreType.FILE, Distribution.UNIFORM, 0.9, 1);
+        long anomalies = 0;
+        for (StoreType storeType : StoreType.values()) {
+            for (Distribution distribution : Distribution.values()) {
+                for (double readRatio : READ_RATIOS) {
+                    for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                        final Result result = run(storeType, distribution, readRatio, threads);
+                        anomalies += result.lostUpdates + result.tornReads;
+                        System.out.println(String.format(Locale.US,
+                                "%-7s %-8s %4.0f%% %7d %12.0f %9.1f %9.1f %9.1f %6d %5d",
+                                storeType.name().toLowerCase(Locale.US),
+                                distribution.name().toLowerCase(Locale.US), readRatio * 100,
+                                threads, result.opsPerSecond, result.percentile(0.5),
+                                result.percentile(0.99), result.percentile(0.999),
+                                result.lostUpdates, result.tornReads));
+                    }
+                }
+            }
+        }
+        assertEquals("lost updates and torn reads", 0, anomalies);
+    }
+
+    /**
+     * Runs single benchmark configuration on a new store
+     *
+     * @param storeType    type of store shared by all threads
+     * @param distribution distribution of accessed keys
+     * @param readRatio    fraction of operations which are reads
+     * @param threads      number of threads
+     * @return benchmark result
+     */
+    private Result run(StoreType storeType, final Distribution distribution,
+                       final double readRatio, int threads) throws Exception {
+        final File file = folder.newFile();
+        if (!file.delete()) {
+            throw new IllegalStateException("Failed to delete " + file);
+        }
+        final PropertyStore store = storeType.create(file);
+        final AtomicLong notifications = new AtomicLong();
+        final OnPropertyChangeListener listener = new OnPropertyChangeListener() {
+            @Override
+            public void onPropertyChanged(PropertyStore propertyStore, String key) {
+                notifications.incrementAndGet();
+            }
+        };
+        store.registerOnPropertyChangeListener(listener);
+
+        final List<Properties.LongProperty> counters = new ArrayList<>();
+        for (int i = 0; i < keys; i++) {
+            counters.add(new Properties.LongProperty("counter_" + i, 0L, store));
+        }
+        final double[] zipf = zipfDistribution(keys);
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final List<Future<Worker>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final Worker worker = new Worker(store, counters, new Random(seed + t));
+            futures.add(executor.submit(new Callable<Worker>() {
+                @Override
+                public Worker call() throws Exception {
+                    start.await();
+                    worker.run(distribution, zipf, readRatio);
+                    return worker;
+                }
+            }));
+        }
+
+        final long startTime = System.nanoTime();
+        start.countDown();
+        final List<Worker> workers = new ArrayList<>();
+        for (Future<Worker> future : futures) {
+            workers.add(future.get());
+        }
+        final long duration = System.nanoTime() - startTime;
+        executor.shutdown();
+        store.unregisterOnPropertyChangeListener(listener);
+
+        final long[] increments = new long[keys];
+        final long[] latencies = new long[threads * operations];
+        long tornReads = 0;
+        for (int t = 0; t < threads; t++) {
+            final Worker worker = workers.get(t);
+            for (int i = 0; i < keys; i++) {
+                increments[i] += worker.increments[i];
+            }
+            System.arraycopy(worker.latencies, 0, latencies, t * operations, operations);
+            tornReads += worker.tornReads;
+        }
+        tornReads += isTorn(store.snapshot()) ? 1 : 0;
+
+        final PropertyStore reopened = storeType.create(file);
+        long lostUpdates = 0;
+        for (int i = 0; i < keys; i++) {
+            final String key = "counter_" + i;
+            lostUpdates += Math.abs(increments[i] - counters.get(i).get());
+            lostUpdates += Math.abs(increments[i] - reopened.getReader().getLong(key, 0));
+        }
+
+        Arrays.sort(latencies);
+        return new Result((double) latencies.length * 1e9 / duration, latencies, lostUpdates,
+                tornReads);
+    }
+
+    /**
+     * Checks whether pair of keys written together has different values in provided snapshot
+     *
+     * @param snapshot store snapshot
+     * @return whether pair is torn
+     */
+    private static boolean isTorn(PropertySnapshot snapshot) throws PropertyAccessException {
+        return snapshot.getLong(PAIR_FIRST, 0) != snapshot.getLong(PAIR_SECOND, 0);
+    }
+
+    /**
+     * Returns cumulative probabilities of Zipf distribution
+     *
+     * @param size number of keys
+     * @return cumulative probability of every key rank
+     */
+    private static double[] zipfDistribution(int size) {
+        final double[] cumulative = new double[size];
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += 1 / Math.pow(i + 1, ZIPF_EXPONENT);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    private enum StoreType {
+        FILE {
+            @Override
+            PropertyStore create(File file) {
+                return new FilePropertyStore(file);
+            }
+        },
+        CACHED {
+            @Override
+            PropertyStore create(File file) {
+                return new CachingPropertyStore(new FilePropertyStore(file));
+            }
+        };
+
+        abstract PropertyStore create(File file);
+    }
+
+    private enum Distribution {
+        UNIFORM,
+        ZIPF
+    }
+
+    /**
+     * Operations of single thread, generated from its own random generator
+     */
+    private final class Worker {
+        private final PropertyStore store;
+        private final List<Properties.LongProperty> counters;
+        private final Random random;
+        final long[] increments = new long[keys];
+        final long[] latencies = new long[operations];
+        long tornReads;
+
+        Worker(PropertyStore store, List<Properties.LongProperty> counters, Random random) {
+            this.store = store;
+            this.counters = counters;
+            this.random = random;
+        }
+
+        void run(Distribution distribution, double[] zipf, double readRatio)
+                throws PropertyAccessException {
+            int reads = 0;
+            int writes = 0;
+            for (int i = 0; i < operations; i++) {
+                final int key;
+                if (distribution == Distribution.ZIPF) {
+                    final int index = Arrays.binarySearch(zipf, random.nextDouble());
+                    key = Math.min(index >= 0 ? index : -index - 1, keys - 1);
+                } else {
+                    key = random.nextInt(keys);
+                }
+                final boolean read = random.nextDouble() < readRatio;
+
+                final long start = System.nanoTime();
+                if (read && ++reads % PAIR_READ_INTERVAL == 0) {
+                    if (isTorn(store.snapshot())) {
+                        tornReads++;
+                    }
+                } else if (read) {
+                    counters.get(key).get();
+                } else if (++writes % PAIR_WRITE_INTERVAL == 0) {
+                    writePair(random.nextLong());
+                } else {
+                    counters.get(key).update(INCREMENT);
+                    increments[key]++;
+                }
+                latencies[i] = System.nanoTime() - start;
+            }
+        }
+
+        private void writePair(long value) throws PropertyAccessException {
+            final PropertyWriter writer = store.getWriter();
+            writer.edit();
+            writer.writeLong(PAIR_FIRST, value);
+            writer.writeLong(PAIR_SECOND, value);
+            writer.commit();
+        }
+    }
+
+    private static final PropertyUpdater<Long> INCREMENT = new PropertyUpdater<Long>() {
+        @Override
+        public Long update(Long value) {
+            return value + 1;
+        }
+    };
+
+    private static final class Result {
+        final double opsPerSecond;
+        final long[] sortedLatencies;
+        final long lostUpdates;
+        final long tornReads;
+
+        Result(double opsPerSecond, long[] sortedLatencies, long lostUpdates, long tornReads) {
+            this.opsPerSecond = opsPerSecond;
+            this.sortedLatencies = sortedLatencies;
+            this.lostUpdates = lostUpdates;
+            this.tornReads = tornReads;
+        }
+
+        /**
+         * Returns latency percentile in microseconds
+         *
+         * @param fraction percentile as a fraction
+         * @return latency in microseconds
+         */
+        double percentile(double fraction) {
+            final int index = (int) Math.ceil(fraction * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, index)] / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.mobsome.properties;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link DerivedProperty}
+ */
+public class DerivedPropertyTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    private Properties.BooleanProperty premium;
+    private Properties.LongProperty trialEnd;
+    private Properties.LongProperty now;
+    private DerivedProperty<Boolean> active;
+
+    @Before
+    public void setup() throws Exception {
+        final PropertyStore store =
+                new FilePropertyStore(new File(folder.getRoot(), "properties.bin"));
+        premium = new Properties.BooleanProperty("premium", false, store);
+        trialEnd = new Properties.LongProperty("trial_end", 0L, store);
+        now = new Properties.LongProperty("now", 0L, store);
+        active = new DerivedProperty<>(new PropertyFunction<Boolean>() {
+            @Override
+            public Boolean compute() {
+                return premium.get() || trialEnd.get() > now.get();
+            }
+        }, premium, trialEnd, now);
+    }
+
+    @Test
+    public void testValueIsComputedOnlyAfterInputChanges() throws Exception {
+        assertFalse(active.get());
+        assertFalse(active.get());
+        assertEquals(1, active.getComputationCount());
+
+        trialEnd.set(100L);
+        assertTrue(active.get());
+        now.update(new PropertyUpdater<Long>() {
+            @Override
+            public Long update(Long value) {
+                return 200L;
+            }
+        });
+        assertFalse(active.get());
+        premium.set(true);
+        assertTrue(active.get());
+        assertTrue(active.get());
+        assertEquals(4, active.getComputationCount());
+
+        premium.set(true);
+        assertTrue(active.get());
+        assertEquals(4, active.getComputationCount());
+    }
+
+    @Test
+    public void testDetachedValueIsAlwaysComputed() throws Exception {
+        active.get();
+        active.detach();
+        premium.set(true);
+        assertTrue(active.get());
+        assertTrue(active.get());
+        assertEquals(3, active.getComputationCount());
+    }
+}
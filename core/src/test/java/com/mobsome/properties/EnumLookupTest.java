@@ -0,0 +1,113 @@
+package com.mobsome.properties;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests of {@link EnumLookup} and {@link Properties.EnumProperty} code storage
+ */
+public class EnumLookupTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSmallCodesAreLookedUpInTable() {
+        final EnumLookup<Small> lookup = EnumLookup.of(Small.class);
+        assertSame(Small.ZERO, lookup.forCode(0));
+        assertSame(Small.FIVE, lookup.forCode(5));
+        assertSame(Small.MAX, lookup.forCode(1024));
+        assertNull(lookup.forCode(1));
+        assertNull(lookup.forCode(-1));
+        assertNull(lookup.forCode(1025));
+        assertSame(Small.FIVE, lookup.forName("FIVE"));
+        assertNull(lookup.forName("SIX"));
+    }
+
+    @Test
+    public void testSparseCodesAreLookedUpBySearch() {
+        final EnumLookup<Sparse> lookup = EnumLookup.of(Sparse.class);
+        assertSame(Sparse.NEGATIVE, lookup.forCode(-7));
+        assertSame(Sparse.ZERO, lookup.forCode(0));
+        assertSame(Sparse.LARGE, lookup.forCode(1000000));
+        assertNull(lookup.forCode(1));
+        assertNull(lookup.forCode(Integer.MIN_VALUE));
+        assertNull(lookup.forCode(Integer.MAX_VALUE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateCodesAreRejected() {
+        EnumLookup.of(Duplicate.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCodeStorageRequiresCodedEnum() {
+        new Properties.EnumProperty<>("plain", Plain.FIRST,
+                new FilePropertyStore(new File(folder.getRoot(), "x.bin")),
+                Properties.EnumProperty.Storage.CODE);
+    }
+
+    @Test
+    public void testCodesAreStored() throws Exception {
+        final PropertyStore store = new FilePropertyStore(new File(folder.getRoot(), "x.bin"));
+        final Properties.EnumProperty<Sparse> property = new Properties.EnumProperty<>("sparse",
+                Sparse.ZERO, store, Properties.EnumProperty.Storage.CODE);
+        property.set(Sparse.NEGATIVE);
+        assertEquals(-7, store.getReader().getInt("sparse", 0));
+
+        final PropertyWriter writer = store.getWriter();
+        writer.edit();
+        writer.writeInt("sparse", 1000000);
+        writer.commit();
+        assertSame(Sparse.LARGE, property.get(store.snapshot()));
+    }
+
+    private enum Plain {
+        FIRST
+    }
+
+    private enum Small implements CodedEnum {
+        ZERO(0), FIVE(5), MAX(1024);
+
+        private final int code;
+
+        Small(int code) {
+            this.code = code;
+        }
+
+        @Override
+        public int getCode() {
+            return code;
+        }
+    }
+
+    private enum Sparse implements CodedEnum {
+        LARGE(1000000), NEGATIVE(-7), ZERO(0);
+
+        private final int code;
+
+        Sparse(int code) {
+            this.code = code;
+        }
+
+        @Override
+        public int getCode() {
+            return code;
+        }
+    }
+
+    private enum Duplicate implements CodedEnum {
+        FIRST, SECOND;
+
+        @Override
+        public int getCode() {
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.mobsome.properties;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link ExpiringProperty} and {@link ExpirySweeper}
+ */
+public class ExpiringPropertyTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    private File file;
+    private TestSweeper sweeper;
+
+    @Before
+    public void setup() throws Exception {
+        file = new File(folder.getRoot(), "properties.bin");
+        sweeper = new TestSweeper();
+    }
+
+    @Test
+    public void testValueExpires() throws Exception {
+        final FilePropertyStore store = new FilePropertyStore(file);
+        final ExpiringProperty<String> token = createToken(store);
+        token.set("secret");
+        assertEquals("secret", token.get());
+
+        sweeper.now += TimeUnit.MINUTES.toMillis(10);
+        assertEquals("none", token.get());
+
+        token.set("other", 1, TimeUnit.HOURS);
+        final ExpiringProperty<String> restored = createToken(new FilePropertyStore(file));
+        assertEquals("other", restored.get());
+        assertEquals(sweeper.now + TimeUnit.HOURS.toMillis(1), restored.getExpirationTime());
+    }
+
+    @Test
+    public void testExpiredValuesAreRemovedWithSingleCommit() throws Exception {
+        final FilePropertyStore store = new FilePropertyStore(file);
+        final ExpiringProperty<String> first = createToken(store);
+        final ExpiringProperty<String> second =
+                new ExpiringProperty<>("second", null, PropertyCodecs.STRING, 5, TimeUnit.MINUTES,
+                        store, sweeper);
+        final ExpiringProperty<String> third =
+                new ExpiringProperty<>("third", null, PropertyCodecs.STRING, 1, TimeUnit.DAYS,
+                        store, sweeper);
+        first.set("a");
+        second.set("b");
+        third.set("c");
+        assertEquals(3, sweeper.getScheduledCount());
+
+        sweeper.now += TimeUnit.MINUTES.toMillis(6);
+        final long writes = store.getFileWriteCount();
+        assertEquals(2, sweeper.sweep());
+        assertEquals(writes + 1, store.getFileWriteCount());
+        assertEquals(1, sweeper.getScheduledCount());
+
+        final FilePropertyStore reopened = new FilePropertyStore(file);
+        assertFalse(reopened.getReader().contains("token"));
+        assertFalse(reopened.getReader().contains("second"));
+        assertTrue(reopened.getReader().contains("third"));
+    }
+
+    @Test
+    public void testValueSetAgainIsNotRemoved() throws Exception {
+        final FilePropertyStore store = new FilePropertyStore(file);
+        final ExpiringProperty<String> token = createToken(store);
+        token.set("first");
+        sweeper.now += TimeUnit.MINUTES.toMillis(4);
+        token.set("second");
+
+        sweeper.now += TimeUnit.MINUTES.toMillis(2);
+        assertEquals(0, sweeper.sweep());
+        assertEquals("second", token.get());
+        assertEquals(1, sweeper.getScheduledCount());
+    }
+
+    @Test
+    public void testRestoredValueIsScheduledOnAccess() throws Exception {
+        final ExpiringProperty<Long> counter = new ExpiringProperty<>("counter", 0L,
+                PropertyCodecs.LONG, 5, TimeUnit.MINUTES, new FilePropertyStore(file), sweeper);
+        counter.set(7L);
+
+        final TestSweeper restoredSweeper = new TestSweeper();
+        final ExpiringProperty<Long> restored = new ExpiringProperty<>("counter", 0L,
+                PropertyCodecs.LONG, 5, TimeUnit.MINUTES, new FilePropertyStore(file),
+                restoredSweeper);
+        assertEquals(0, restoredSweeper.getScheduledCount());
+        assertEquals(7L, restored.get().longValue());
+        assertEquals(1, restoredSweeper.getScheduledCount());
+    }
+
+    @Test
+    public void testDerivedPropertyIsRecomputedWhenValueIsRemoved() throws Exception {
+        final FilePropertyStore store = new FilePropertyStore(file);
+        final ExpiringProperty<Boolean> flag = new ExpiringProperty<>("flag", false,
+                PropertyCodecs.BOOLEAN, 5, TimeUnit.MINUTES, store, sweeper);
+        final DerivedProperty<String> label = new DerivedProperty<>(new PropertyFunction<String>() {
+            @Override
+            public String compute() {
+                return flag.get() ? "on" : "off";
+            }
+        }, flag.getProperty());
+        assertEquals("off", label.get());
+
+        flag.set(true);
+        assertEquals("on", label.get());
+
+        sweeper.now += TimeUnit.MINUTES.toMillis(6);
+        assertEquals(1, sweeper.sweep());
+        assertEquals("off", label.get());
+    }
+
+    private ExpiringProperty<String> createToken(PropertyStore store) {
+        return new ExpiringProperty<>("token", "none", PropertyCodecs.STRING, 5, TimeUnit.MINUTES,
+                store, sweeper);
+    }
+
+    /**
+     * Sweeper with manually advanced clock, swept only by tests
+     */
+    private static final class TestSweeper extends ExpirySweeper {
+        volatile long now = 1000000;
+
+        TestSweeper() {
+            super(1, TimeUnit.SECONDS, 64);
+        }
+
+        @Override
+        long currentTimeMillis() {
+            return now;
+        }
+
+        @Override
+        void onTick() {
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.mobsome.properties;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link FilePropertyStore}
+ */
+public class FilePropertyStoreTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    private File file;
+
+    @Before
+    public void setup() throws Exception {
+        file = new File(folder.getRoot(), "properties.bin");
+    }
+
+    @Test
+    public void testValuesArePersisted() throws Exception {
+        final FilePropertyStore store = new FilePropertyStore(file);
+        new Properties.IntProperty("int_prop", 0, store).set(5);
+        new Properties.DoubleProperty("double_prop", 0, store).set(1.5);
+
+        final FilePropertyStore reopened = new FilePropertyStore(file);
+        assertEquals(5, new Properties.IntProperty("int_prop", 0, reopened).get().intValue());
+        assertEquals(1.5, new Properties.DoubleProperty("double_prop", 0, reopened).get(), 0);
+    }
+
+    @Test
+    public void testChangesOfOtherProcessArePropagated() throws Exception {
+        final FilePropertyStore store = new FilePropertyStore(file, 10);
+        final List<String> changedKeys = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch changed = new CountDownLatch(1);
+        store.registerOnPropertyChangeListener(new OnPropertyChangeListener() {
+            @Override
+            public void onPropertyChanged(PropertyStore propertyStore, String key) {
+                changedKeys.add(key);
+                changed.countDown();
+            }
+        });
+
+        writeInOtherProcess("string_prop", "first");
+        assertTrue(changed.await(5, TimeUnit.SECONDS));
+        assertEquals("string_prop", changedKeys.get(0));
+        assertEquals("first", store.getReader().getString("string_prop", null));
+
+        // Same length, so the file likely keeps its length and modification time
+        writeInOtherProcess("string_prop", "other");
+        assertEquals("other", store.getReader().getString("string_prop", null));
+    }
+
+    @Test
+    public void testChangedKeysSinceVersion() throws Exception {
+        final FilePropertyStore store = new FilePropertyStore(file);
+        new Properties.IntProperty("first", 0, store).set(1);
+        final long version = store.getVersion();
+        new Properties.IntProperty("second", 0, store).set(2);
+        new Properties.IntProperty("third", 0, store).set(3);
+
+        assertTrue(store.getVersion() > version);
+        assertEquals(new HashSet<>(Arrays.asList("second", "third")),
+                store.getChangedKeys(version));
+        assertTrue(store.getChangedKeys(store.getVersion()).isEmpty());
+
+        final FilePropertyStore reopened = new FilePropertyStore(file);
+        assertEquals(store.getVersion(), reopened.getVersion());
+    }
+
+    @Test
+    public void testConcurrentCommitsAreGrouped() throws Exception {
+        final int threads = 8;
+        final FilePropertyStore store = new FilePropertyStore(file,
+                FilePropertyStore.DEFAULT_POLL_INTERVAL, 50000);
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final List<Future<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            final Properties.IntProperty property =
+                    new Properties.IntProperty("int_prop_" + i, 0, store);
+            final int value = i + 1;
+            futures.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    start.await();
+                    property.set(value);
+                    return null;
+                }
+            }));
+        }
+        start.countDown();
+        for (Future<Void> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertTrue(store.getFileWriteCount() < threads);
+        final FilePropertyStore reopened = new FilePropertyStore(file);
+        for (int i = 0; i < threads; i++) {
+            assertEquals(i + 1, reopened.getReader().getInt("int_prop_" + i, 0));
+        }
+    }
+
+    @Test
+    public void testFailedWriteIsRetried() throws Exception {
+        final FilePropertyStore store = new FilePropertyStore(file);
+        final File tempFile = new File(file.getPath() + ".tmp");
+        assertTrue(tempFile.mkdir());
+
+        final long version = store.getVersion();
+        new Properties.IntProperty("first", 0, store).set(1);
+
+        assertEquals(version, store.getVersion());
+        assertEquals(1, store.getReader().getInt("first", 0));
+        assertFalse(new FilePropertyStore(file).getReader().contains("first"));
+
+        assertTrue(tempFile.delete());
+        new Properties.IntProperty("second", 0, store).set(2);
+
+        final FilePropertyStore reopened = new FilePropertyStore(file);
+        assertEquals(1, reopened.getReader().getInt("first", 0));
+        assertEquals(2, reopened.getReader().getInt("second", 0));
+    }
+
+    @Test
+    public void testInvalidFileIsReplaced() throws Exception {
+        final FileOutputStream output = new FileOutputStream(file);
+        output.write("not a properties file".getBytes("UTF-8"));
+        output.close();
+
+        final FilePropertyStore store = new FilePropertyStore(file);
+        assertTrue(store.snapshot().keys().isEmpty());
+        new Properties.IntProperty("int_prop", 0, store).set(5);
+        assertEquals(1, store.getFileWriteCount());
+
+        final FilePropertyStore reopened = new FilePropertyStore(file);
+        assertEquals(5, reopened.getReader().getInt("int_prop", 0));
+    }
+
+    /**
+     * Writes string property to the tested file from a new JVM process
+     */
+    private void writeInOtherProcess(String key, String value) throws Exception {
+        final String java = System.getProperty("java.home") + File.separator + "bin"
+                + File.separator + "java";
+        final Process process = new ProcessBuilder(java, "-cp",
+                System.getProperty("java.class.path"), FilePropertyStoreTest.class.getName(),
+                file.getPath(), key, value).inheritIO().start();
+        assertEquals(0, process.waitFor());
+    }
+
+    /**
+     * Entry point of the process started by {@link #writeInOtherProcess(String, String)}
+     *
+     * @param args file path, property name and value
+     */
+    public static void main(String[] args) throws Exception {
+        final PropertyWriter writer = new FilePropertyStore(new File(args[0])).getWriter();
+        writer.edit();
+        writer.writeString(args[1], args[2]);
+        writer.commit();
+    }
+}
@@ -0,0 +1,147 @@
+package com.mobsome.properties;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of value files lifecycle of {@link LargeValuePropertyStore}
+ */
+public class LargeValuePropertyStoreTest {
+    private static final String LARGE = "0123456789";
+    private static final String OTHER_LARGE = "9876543210";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    private File directory;
+    private LargeValuePropertyStore store;
+
+    @Before
+    public void setup() {
+        directory = new File(folder.getRoot(), "large");
+        store = new LargeValuePropertyStore(
+                new FilePropertyStore(new File(folder.getRoot(), "x.bin")), directory, 8);
+    }
+
+    private int fileCount() {
+        final String[] fileNames = directory.list();
+        return fileNames != null ? fileNames.length : 0;
+    }
+
+    @Test
+    public void testReplacedFileIsDeletedAfterCommit() throws Exception {
+        final PropertyWriter writer = store.getWriter();
+        writer.edit();
+        writer.writeString("a", LARGE);
+        writer.commit();
+        assertEquals(1, fileCount());
+
+        writer.edit();
+        writer.writeString("a", OTHER_LARGE);
+        writer.commit();
+        assertEquals(1, fileCount());
+        assertEquals(OTHER_LARGE, store.getReader().getString("a", null));
+    }
+
+    @Test
+    public void testAsyncReplacedFileIsKeptUntilCommit() throws Exception {
+        final PropertyWriter writer = store.getWriter();
+        writer.edit();
+        writer.writeString("a", LARGE);
+        writer.commit();
+
+        writer.edit();
+        writer.writeString("a", OTHER_LARGE);
+        writer.commitAsync();
+        assertEquals(2, fileCount());
+
+        writer.edit();
+        writer.writeInt("b", 1);
+        writer.commit();
+        assertEquals(1, fileCount());
+        assertEquals(OTHER_LARGE, store.getReader().getString("a", null));
+    }
+
+    @Test
+    public void testFileWrittenTwiceInOneEditIsDeleted() throws Exception {
+        final PropertyWriter writer = store.getWriter();
+        writer.edit();
+        writer.writeString("a", LARGE);
+        writer.writeString("a", OTHER_LARGE);
+        writer.commit();
+
+        assertEquals(1, fileCount());
+        assertEquals(OTHER_LARGE, store.getReader().getString("a", null));
+    }
+
+    @Test
+    public void testFileOfAbandonedEditIsDeleted() throws Exception {
+        final PropertyWriter writer = store.getWriter();
+        writer.edit();
+        writer.writeString("a", LARGE);
+        assertEquals(1, fileCount());
+
+        writer.edit();
+        writer.writeInt("b", 1);
+        writer.commit();
+        assertEquals(0, fileCount());
+        assertFalse(store.getReader().contains("a"));
+    }
+
+    @Test
+    public void testUnreferencedFileIsSwept() throws Exception {
+        final PropertyWriter writer = store.getWriter();
+        writer.edit();
+        writer.writeString("a", LARGE);
+        writer.commit();
+        // File left behind by a commit which failed before the process died
+        new FileOutputStream(new File(directory, "orphan.blob")).close();
+
+        // File of changes being edited by another thread
+        final Thread editor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writer.edit();
+                try {
+                    writer.writeString("b", OTHER_LARGE);
+                } catch (PropertyAccessException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        });
+        editor.start();
+        editor.join();
+        assertEquals(1, store.sweep());
+
+        assertEquals(2, fileCount());
+        assertTrue(!new File(directory, "orphan.blob").exists());
+        assertEquals(LARGE, store.getReader().getString("a", null));
+    }
+
+    @Test
+    public void testSnapshotReadsReplacedValue() throws Exception {
+        final PropertyWriter writer = store.getWriter();
+        writer.edit();
+        writer.writeString("a", LARGE);
+        writer.commit();
+        final PropertySnapshot snapshot = store.snapshot();
+
+        writer.edit();
+        writer.writeString("a", "short");
+        writer.commit();
+        assertEquals(0, store.sweep());
+
+        assertEquals(1, fileCount());
+        assertEquals(LARGE, snapshot.getString("a", null));
+        assertEquals(LARGE, snapshot.getValue("a"));
+        assertEquals("short", store.getReader().getString("a", null));
+    }
+}
@@ -0,0 +1,116 @@
+package com.mobsome.properties;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of bulk operations of {@link PropertiesGroup}
+ */
+public class PropertiesGroupTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    private PropertyStore store;
+    private Group group;
+
+    @Before
+    public void setup() {
+        store = new FilePropertyStore(new File(folder.getRoot(), "x.bin"));
+        group = new Group(store);
+    }
+
+    @Test
+    public void testResetAllCommitsOnce() {
+        group.intValue.set(2);
+        group.stringValue.set("value");
+        final long version = store.getVersion();
+
+        group.resetAll();
+
+        assertEquals(version + 1, store.getVersion());
+        assertTrue(store.snapshot().keys().isEmpty());
+        assertEquals(1, group.intValue.get().intValue());
+        assertEquals("default", group.stringValue.get());
+    }
+
+    @Test
+    public void testReloadAllReadsStoreChanges() throws Exception {
+        group.intValue.set(2);
+        group.stringValue.get();
+
+        final PropertyWriter writer = store.getWriter();
+        writer.edit();
+        writer.writeInt("int", 3);
+        writer.writeString("string", "changed");
+        writer.commit();
+
+        assertEquals(2, group.reloadAll());
+        assertEquals(3, group.intValue.get().intValue());
+        assertEquals("changed", group.stringValue.get());
+        assertEquals(0, group.reloadAll());
+    }
+
+    @Test
+    public void testExportAll() {
+        group.intValue.set(2);
+        final Map<String, Object> values = new Group(store).exportAll();
+
+        assertEquals(Arrays.asList("int", "string", "set"),
+                Arrays.asList(values.keySet().toArray()));
+        assertEquals(2, values.get("int"));
+        assertEquals("default", values.get("string"));
+        assertEquals(null, values.get("set"));
+    }
+
+    @Test
+    public void testExpiringPropertyIsCovered() {
+        final TokenGroup tokenGroup = new TokenGroup(store);
+        tokenGroup.token.set("secret");
+        assertEquals("secret", tokenGroup.exportAll().get("token"));
+
+        tokenGroup.resetAll();
+        assertTrue(store.snapshot().keys().isEmpty());
+        assertEquals("none", tokenGroup.token.get());
+        assertEquals("none", tokenGroup.exportAll().get("token"));
+    }
+
+    private static final class Group extends PropertiesGroup {
+        final Properties.IntProperty intValue = createProperty("int", 1);
+        final Properties.StringProperty stringValue = createProperty("string", "default");
+        final Properties.StringSetProperty setValue =
+                createProperty("set", (Set<String>) null);
+
+        Group(PropertyStore store) {
+            super(store);
+        }
+    }
+
+    private static final class TokenGroup extends PropertiesGroup {
+        final ExpiringProperty<String> token = createExpiringProperty("token", "none",
+                new PropertyCodec<String>() {
+                    @Override
+                    public String encode(String value) {
+                        return value;
+                    }
+
+                    @Override
+                    public String decode(String data) {
+                        return data;
+                    }
+                }, 1, TimeUnit.HOURS);
+
+        TokenGroup(PropertyStore store) {
+            super(store);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.mobsome.properties;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link PropertiesStartup} and lazily restored properties
+ */
+public class PropertiesStartupTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testGroupsAreCreatedInBackground() throws Exception {
+        final File userFile = new File(folder.getRoot(), "user.bin");
+        final File settingsFile = new File(folder.getRoot(), "settings.bin");
+        new TestGroup(new FilePropertyStore(userFile)).counter.set(3);
+        new TestGroup(new FilePropertyStore(settingsFile)).counter.set(7);
+
+        final PropertiesStartup startup = new PropertiesStartup();
+        final Future<TestGroup> user = startup.add(factory(userFile));
+        final Future<TestGroup> settings = startup.add(factory(settingsFile));
+        startup.await();
+
+        assertTrue(user.isDone());
+        assertEquals(3, user.get().counter.get().intValue());
+        assertEquals(7, settings.get().counter.getAsync().get(1, TimeUnit.SECONDS).intValue());
+    }
+
+    @Test
+    public void testValueIsRestoredOnFirstAccess() throws Exception {
+        final File file = new File(folder.getRoot(), "properties.bin");
+        final TestGroup group = new TestGroup(new FilePropertyStore(file));
+        new TestGroup(new FilePropertyStore(file)).counter.set(5);
+
+        assertEquals(5, group.counter.getAsync().get(1, TimeUnit.SECONDS).intValue());
+        group.counter.set(6);
+        assertEquals(6, group.counter.getAsync().get().intValue());
+    }
+
+    private static Callable<TestGroup> factory(final File file) {
+        return new Callable<TestGroup>() {
+            @Override
+            public TestGroup call() {
+                return new TestGroup(new FilePropertyStore(file));
+            }
+        };
+    }
+
+    private static final class TestGroup extends PropertiesGroup {
+        final Properties.IntProperty counter;
+
+        TestGroup(PropertyStore store) {
+            super(store);
+            counter = createProperty("counter", 0);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.mobsome.properties;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link PropertyCompaction} and of properties storing only overrides
+ */
+public class PropertyCompactionTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    private PropertyStore store;
+
+    @Before
+    public void setup() {
+        store = new FilePropertyStore(new File(folder.getRoot(), "x.bin"));
+    }
+
+    @Test
+    public void testDefaultValueIsRemoved() throws Exception {
+        final Properties.IntProperty property = new Properties.IntProperty("int", 1, store);
+        property.setStoreOnlyOverrides(true);
+        property.set(2);
+        assertEquals(2, store.getReader().getInt("int", 0));
+
+        property.set(1);
+        assertEquals(1, property.get().intValue());
+        assertFalse(store.getReader().contains("int"));
+    }
+
+    @Test
+    public void testStoredDefaultsAreCompacted() throws Exception {
+        final PropertyWriter writer = store.getWriter();
+        writer.edit();
+        writer.writeInt("int", 1);
+        writer.writeString("string", "default");
+        writer.writeLong("long", 5);
+        writer.writeString("unknown", "value");
+        writer.commit();
+        final long version = store.getVersion();
+
+        final Group group = new Group(store);
+        assertEquals(5L, group.longValue.get().longValue());
+        assertEquals(2, group.compact());
+
+        assertEquals(new HashSet<>(Arrays.asList("long", "unknown")), store.snapshot().keys());
+        assertEquals(new HashSet<>(Arrays.asList("int", "string")),
+                store.getChangedKeys(version));
+        assertEquals(1, group.intValue.get().intValue());
+        assertEquals("default", group.stringValue.get());
+        assertEquals(0, group.compact());
+
+        group.stringValue.set("default");
+        assertFalse(store.getReader().contains("string"));
+        group.intValue.set(3);
+        assertTrue(store.getReader().contains("int"));
+    }
+
+    @Test
+    public void testUnreadableValuesAreKept() throws Exception {
+        final PropertyWriter writer = store.getWriter();
+        writer.edit();
+        writer.writeString("enum", "REMOVED");
+        writer.writeString("int", "text");
+        writer.commit();
+
+        final Properties.EnumProperty<Mode> enumProperty =
+                new Properties.EnumProperty<>("enum", Mode.DEFAULT, store);
+        final Properties.IntProperty intProperty = new Properties.IntProperty("int", 1, store);
+        assertEquals(Mode.DEFAULT, enumProperty.get());
+        assertEquals(0, PropertyCompaction.compact(
+                Arrays.<Property<?>>asList(enumProperty, intProperty)));
+        assertEquals("REMOVED", store.getReader().getString("enum", null));
+        assertEquals("text", store.getReader().getString("int", null));
+    }
+
+    @Test
+    public void testLocksAreAcquiredInCreationOrder() throws Exception {
+        final Group group = new Group(store);
+        final List<Property<?>> locked = Property.lockAll(Arrays.<Property<?>>asList(
+                group.longValue, group.intValue, group.stringValue));
+        try {
+            assertEquals(Arrays.<Property<?>>asList(
+                    group.intValue, group.stringValue, group.longValue), locked);
+        } finally {
+            Property.unlockAll(locked);
+        }
+    }
+
+    private static final class Group extends PropertiesGroup {
+        final Properties.IntProperty intValue = createProperty("int", 1);
+        final Properties.StringProperty stringValue = createProperty("string", "default");
+        final Properties.LongProperty longValue = createProperty("long", 0L);
+
+        Group(PropertyStore store) {
+            super(store, true);
+        }
+    }
+
+    private enum Mode {
+        DEFAULT, OTHER
+    }
+}
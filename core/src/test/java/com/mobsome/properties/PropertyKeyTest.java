@@ -0,0 +1,70 @@
+package com.mobsome.properties;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link PropertyKey}
+ */
+public class PropertyKeyTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testKeysAreInterned() {
+        final PropertyKey key = PropertyKey.of("interned");
+        assertSame(key, PropertyKey.of(new String("interned")));
+        assertTrue(key != PropertyKey.of("other"));
+        assertEquals("interned", key.getName());
+    }
+
+    @Test
+    public void testPropertiesInternOnlyExistingKeys() throws Exception {
+        final PropertyStore store = new FilePropertyStore(new File(folder.getRoot(), "x.bin"));
+        final int count = PropertyKey.getCount();
+        final Properties.IntProperty dynamic =
+                new Properties.IntProperty("dynamic_" + count, 1, store);
+        assertEquals(count, PropertyKey.getCount());
+        assertEquals(PropertyKey.UNINDEXED, dynamic.key.index);
+
+        final PropertyKey constant = PropertyKey.of("constant");
+        assertSame(constant, new Properties.IntProperty("constant", 1, store).key);
+
+        dynamic.set(2);
+        assertEquals(2, dynamic.get(store.snapshot()).intValue());
+    }
+
+    @Test
+    public void testSnapshotReadsByHandle() throws Exception {
+        final PropertyStore store = new FilePropertyStore(new File(folder.getRoot(), "x.bin"));
+        final PropertyWriter writer = store.getWriter();
+        writer.edit();
+        writer.writeInt(PropertyKey.of("int"), 7);
+        writer.writeString("string", "value");
+        writer.commit();
+
+        final PropertySnapshot snapshot = store.snapshot();
+        final PropertyKey missing = PropertyKey.of("missing");
+        for (int i = 0; i < 2; i++) {
+            assertEquals(7, snapshot.getInt(PropertyKey.of("int"), 0));
+            assertEquals("value", snapshot.getString(PropertyKey.of("string"), null));
+            assertTrue(snapshot.contains(PropertyKey.of("string")));
+            assertFalse(snapshot.contains(missing));
+            assertEquals(3L, snapshot.getLong(missing, 3L));
+        }
+
+        writer.edit();
+        writer.remove(PropertyKey.of("string"));
+        writer.commit();
+        assertFalse(store.snapshot().contains(PropertyKey.of("string")));
+        assertEquals("value", snapshot.getString(PropertyKey.of("string"), null));
+    }
+}
@@ -0,0 +1,61 @@
+package com.mobsome.properties;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link PropertyLogging}
+ */
+public class PropertyLoggingTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    private final PropertyLogger defaultLogger = PropertyLogging.getLogger();
+
+    @After
+    public void tearDown() throws Exception {
+        PropertyLogging.setLogger(defaultLogger);
+    }
+
+    @Test
+    public void testErrorsAreLoggedWithCustomLogger() throws Exception {
+        final List<String> errors = new ArrayList<>();
+        PropertyLogging.setLogger(new PropertyLogger() {
+            @Override
+            public void warning(@Nonnull String tag, @Nonnull String message) {
+            }
+
+            @Override
+            public void error(@Nonnull String tag, @Nonnull String message) {
+                errors.add(message);
+            }
+        });
+
+        final FilePropertyStore store = new FilePropertyStore(new File(folder.getRoot(), "p.bin"));
+        final PropertyCodec<Integer> failingCodec = new PropertyCodec<Integer>() {
+            @Override
+            public String encode(@Nonnull Integer value) throws PropertyAccessException {
+                throw new PropertyAccessException("can't encode");
+            }
+
+            @Override
+            public Integer decode(@Nonnull String data) throws PropertyAccessException {
+                throw new PropertyAccessException("can't decode");
+            }
+        };
+        new Properties.ObjectProperty<>("object_prop", 0, failingCodec, store).set(1);
+
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0).contains("object_prop"));
+    }
+}
@@ -0,0 +1,133 @@
+package com.mobsome.properties;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link ShardedPropertyStore}
+ */
+public class ShardedPropertyStoreTest {
+    private static final int SHARDS = 4;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    private ShardedPropertyStore.ShardFactory factory;
+
+    @Before
+    public void setup() {
+        factory = new ShardedPropertyStore.ShardFactory() {
+            @Nonnull
+            @Override
+            public PropertyStore createShard(int index) {
+                return new FilePropertyStore(shardFile(index));
+            }
+        };
+    }
+
+    private File shardFile(int index) {
+        return new File(folder.getRoot(), "shard_" + index + ".bin");
+    }
+
+    @Test
+    public void testCommitTouchesOnlyChangedShards() throws Exception {
+        final ShardedPropertyStore store = new ShardedPropertyStore(SHARDS, factory);
+        final String key = "key";
+        final int index = store.getShardIndex(key);
+        final PropertyWriter writer = store.getWriter();
+        writer.edit();
+        writer.writeString(key, "value");
+        writer.commit();
+
+        for (int i = 0; i < SHARDS; i++) {
+            assertEquals(i == index, store.isShardCreated(i));
+            assertEquals(i == index, shardFile(i).exists());
+        }
+
+        final ShardedPropertyStore reopened = new ShardedPropertyStore(SHARDS, factory);
+        assertEquals("value", reopened.getReader().getString(key, null));
+        assertEquals("value", reopened.getReader().getString(PropertyKey.of(key), null));
+        for (int i = 0; i < SHARDS; i++) {
+            assertEquals(i == index, reopened.isShardCreated(i));
+        }
+    }
+
+    @Test
+    public void testListenersAndSnapshotCoverAllShards() throws Exception {
+        final ShardedPropertyStore store = new ShardedPropertyStore(SHARDS, factory);
+        final List<String> changedKeys = new ArrayList<>();
+        store.registerOnPropertyChangeListener(new OnPropertyChangeListener() {
+            @Override
+            public void onPropertyChanged(PropertyStore propertyStore, String key) {
+                changedKeys.add(key);
+            }
+        });
+        final long version = store.getVersion();
+
+        final List<String> keys = new ArrayList<>();
+        final PropertyWriter writer = store.getWriter();
+        writer.edit();
+        for (int i = 0; i < 16; i++) {
+            keys.add("key_" + i);
+            writer.writeInt("key_" + i, i);
+        }
+        writer.commit();
+
+        assertEquals(new HashSet<>(keys), new HashSet<>(changedKeys));
+        assertEquals(version + 1, store.getVersion());
+        assertEquals(new HashSet<>(keys), store.getChangedKeys(version));
+        final PropertySnapshot snapshot = store.snapshot();
+        assertEquals(new HashSet<>(keys), snapshot.keys());
+        for (int i = 0; i < 16; i++) {
+            assertEquals(i, snapshot.getInt("key_" + i, -1));
+        }
+
+        writer.edit();
+        writer.remove("key_0");
+        writer.commit();
+        assertEquals(Collections.singleton("key_0"), store.getChangedKeys(version + 1));
+        assertFalse(store.getReader().contains("key_0"));
+        assertTrue(snapshot.contains("key_0"));
+        assertEquals(Arrays.asList("key_0"), changedKeys.subList(16, changedKeys.size()));
+    }
+
+    @Test
+    public void testSnapshotCreatesShardsOnAccess() throws Exception {
+        final ShardedPropertyStore store = new ShardedPropertyStore(SHARDS, factory);
+        final String key = "key";
+        final int index = store.getShardIndex(key);
+        store.getReader().contains(key);
+        String otherKey = "other";
+        for (int i = 0; store.getShardIndex(otherKey) == index; i++) {
+            otherKey = "other_" + i;
+        }
+        final int otherIndex = store.getShardIndex(otherKey);
+
+        final PropertySnapshot snapshot = store.snapshot();
+        store.preload().get();
+        for (int i = 0; i < SHARDS; i++) {
+            assertEquals(i == index, store.isShardCreated(i));
+        }
+
+        assertFalse(snapshot.contains(otherKey));
+        assertTrue(store.isShardCreated(otherIndex));
+        snapshot.keys();
+        for (int i = 0; i < SHARDS; i++) {
+            assertTrue(store.isShardCreated(i));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.mobsome.properties;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Size and latency benchmark of {@link StringCompression}. Runs only when {@code benchmark}
+ * system property is set, e.g. {@code ./gradlew test -Dbenchmark=true}
+ */
+public class StringCompressionBenchmark {
+    private static final int[] SIZES = {256, 1024, 4 * 1024, 16 * 1024, 64 * 1024};
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int ITERATIONS = 1000;
+
+    @Before
+    public void setup() throws Exception {
+        Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+    }
+
+    @Test
+    public void benchmarkJsonValues() throws Exception {
+        System.out.println(String.format(Locale.US, "%10s %12s %8s %14s %16s",
+                "chars", "stored chars", "ratio", "compress [us]", "decompress [us]"));
+        for (int size : SIZES) {
+            final String value = createJson(size, new Random(size));
+            final String stored = StringCompression.compress(value, 0);
+            assertEquals(value, StringCompression.decompress(stored));
+
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                StringCompression.decompress(StringCompression.compress(value, 0));
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                StringCompression.compress(value, 0);
+            }
+            final double compressMicros = (System.nanoTime() - start) / 1000.0 / ITERATIONS;
+
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                StringCompression.decompress(stored);
+            }
+            final double decompressMicros = (System.nanoTime() - start) / 1000.0 / ITERATIONS;
+
+            System.out.println(String.format(Locale.US, "%10d %12d %8.2f %14.1f %16.1f",
+                    value.length(), stored.length(), (double) stored.length() / value.length(),
+                    compressMicros, decompressMicros));
+        }
+    }
+
+    /**
+     * Creates JSON array of objects resembling cached API payloads
+     *
+     * @param size   approximate length of created string
+     * @param random source of field values
+     * @return JSON string
+     */
+    private static String createJson(int size, Random random) {
+        final StringBuilder json = new StringBuilder(size + 128).append('[');
+        for (int i = 0; json.length() < size; i++) {
+            json.append("{\"id\":").append(random.nextInt(100000))
+                    .append(",\"name\":\"item ").append(i)
+                    .append("\",\"price\":").append(random.nextInt(10000) / 100.0)
+                    .append(",\"available\":").append(random.nextBoolean())
+                    .append(",\"tags\":[\"tag").append(random.nextInt(20))
+                    .append("\",\"tag").append(random.nextInt(20)).append("\"]},");
+        }
+        json.setCharAt(json.length() - 1, ']');
+        return json.toString();
+    }
+}
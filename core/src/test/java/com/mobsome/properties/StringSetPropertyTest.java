@@ -0,0 +1,51 @@
+package com.mobsome.properties;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link Properties.StringSetProperty} membership changes
+ */
+public class StringSetPropertyTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    private PropertyStore store;
+    private Properties.StringSetProperty property;
+
+    @Before
+    public void setup() {
+        store = new FilePropertyStore(new File(folder.getRoot(), "x.bin"));
+        property = new Properties.StringSetProperty("set",
+                Collections.singleton("default"), store);
+    }
+
+    @Test
+    public void testAddingContainedValueWritesNothing() throws Exception {
+        assertFalse(property.addAll(Collections.singleton("default")));
+        assertFalse(property.removeAll(Collections.singleton("missing")));
+        assertFalse(store.getReader().contains("set"));
+        assertEquals(0, store.getVersion());
+    }
+
+    @Test
+    public void testMembershipChangesAreWritten() throws Exception {
+        assertTrue(property.addAll(Arrays.asList("first", "second")));
+        assertEquals(new HashSet<>(Arrays.asList("default", "first", "second")),
+                store.getReader().getStringSet("set", null));
+
+        assertTrue(property.removeAll(Arrays.asList("default", "missing")));
+        assertEquals(new HashSet<>(Arrays.asList("first", "second")), property.get());
+        assertEquals(property.get(), store.getReader().getStringSet("set", null));
+    }
+}
@@ -0,0 +1,4 @@
+# Logcat logger is instantiated by name when the library is initialized
+-keep class com.mobsome.properties.AndroidPropertyLogger {
+    <init>();
+}
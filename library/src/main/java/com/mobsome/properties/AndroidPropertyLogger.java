@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+/**
+ * {@link PropertyLogger} writing to logcat. It is used by default when Android module is
+ * available.
+ */
+public class AndroidPropertyLogger implements PropertyLogger {
+    @Override
+    public void warning(@NonNull String tag, @NonNull String message) {
+        Log.w(tag, message);
+    }
+
+    @Override
+    public void error(@NonNull String tag, @NonNull String message) {
+        Log.e(tag, message);
+    }
+}
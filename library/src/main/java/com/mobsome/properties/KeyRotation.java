@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import android.support.annotation.NonNull;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background re-encryption of {@link SecurePreferencesStore} with a new key, started with
+ * {@link SecurePreferencesStore#rotateKey(int, ICipher)}. Values are re-encrypted in small
+ * batches, each committed with a single commit, while the store stays readable and writable.
+ * Values which can't be decrypted with any registered key are skipped and reported by
+ * {@link #getFailedKeys()}, so they don't stop rotation of other values.
+ */
+public class KeyRotation {
+    /**
+     * Default number of values re-encrypted with a single commit
+     */
+    public static final int DEFAULT_BATCH_SIZE = 20;
+
+    private final SecurePreferences preferences;
+    private final int batchSize;
+    private final AtomicInteger rotatedCount = new AtomicInteger();
+    private final AtomicInteger totalCount = new AtomicInteger();
+    private final Set<String> failedKeys = new CopyOnWriteArraySet<>();
+    private final FutureTask<Void> task;
+    private volatile boolean finished;
+
+    KeyRotation(@NonNull SecurePreferences preferences, int batchSize,
+                @NonNull Executor executor) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.preferences = preferences;
+        this.batchSize = batchSize;
+        task = new FutureTask<>(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                rotate();
+                return null;
+            }
+        });
+        executor.execute(task);
+    }
+
+    /**
+     * Re-encrypts values until all of them are encrypted with the current key. Values written
+     * with previous key by editors created before rotation has started are picked up by
+     * subsequent passes. Values which failed to be re-encrypted are not retried.
+     */
+    private void rotate() {
+        List<String> keys = preferences.getKeysToReencrypt();
+        totalCount.set(keys.size());
+        while (!keys.isEmpty()) {
+            for (int start = 0; start < keys.size(); start += batchSize) {
+                rotatedCount.addAndGet(preferences.reencrypt(
+                        keys.subList(start, Math.min(start + batchSize, keys.size())),
+                        failedKeys));
+            }
+            keys = preferences.getKeysToReencrypt();
+            keys.removeAll(failedKeys);
+            totalCount.addAndGet(keys.size());
+        }
+        finished = true;
+    }
+
+    /**
+     * Returns future completed once all values are encrypted with the new key
+     *
+     * @return rotation future
+     */
+    @NonNull
+    public Future<Void> getFuture() {
+        return task;
+    }
+
+    /**
+     * Checks whether all values are encrypted with the new key
+     *
+     * @return whether rotation is finished
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Returns number of values re-encrypted so far
+     *
+     * @return number of re-encrypted values
+     */
+    public int getRotatedCount() {
+        return rotatedCount.get();
+    }
+
+    /**
+     * Returns number of values found to be encrypted with previous keys so far
+     *
+     * @return number of values to be re-encrypted
+     */
+    public int getTotalCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * Returns keys of properties which can't be decrypted with any registered key, or whose
+     * key version can't be determined, and thus have been left encrypted with their key
+     *
+     * @return keys of properties which failed to be re-encrypted
+     */
+    @NonNull
+    public Set<String> getFailedKeys() {
+        return Collections.unmodifiableSet(failedKeys);
+    }
+
+    /**
+     * Returns rotation progress
+     *
+     * @return progress from 0 to 1
+     */
+    public float getProgress() {
+        if (finished) {
+            return 1;
+        }
+        final int total = totalCount.get();
+        return total > 0 ? Math.min(1f, (float) rotatedCount.get() / total) : 0;
+    }
+}
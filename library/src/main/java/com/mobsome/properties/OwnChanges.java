@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties;
+
+import android.content.SharedPreferences;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Values committed by a store to its shared preferences, used to tell changes reported by
+ * preferences listeners which have been made by other editors. Changes committed by the store
+ * are recorded in its journal right away, while listeners are notified later on the main thread.
+ */
+final class OwnChanges {
+    /**
+     * Marker of removed value
+     */
+    private static final Object REMOVED = new Object();
+    /**
+     * Last committed values which listeners haven't been notified about yet, by key
+     */
+    private final Map<String, Object> values = new ConcurrentHashMap<>();
+
+    /**
+     * Remembers values about to be committed. Values which are already stored are skipped, as
+     * listeners aren't notified about them, so they would never be consumed.
+     *
+     * @param preferences preferences to which values are committed
+     * @param changes     stored values by key, null for removed values
+     */
+    void add(SharedPreferences preferences, Map<String, Object> changes) {
+        for (Map.Entry<String, Object> change : changes.entrySet()) {
+            final Object value = change.getValue() != null ? change.getValue() : REMOVED;
+            if (!isStored(preferences, change.getKey(), value)) {
+                values.put(change.getKey(), value);
+            }
+        }
+    }
+
+    /**
+     * Checks whether change reported by preferences listener has been committed by the store.
+     * Change is considered own when stored value is still the committed one.
+     *
+     * @param preferences changed preferences
+     * @param key         changed key
+     * @return whether change has been committed by the store
+     */
+    boolean isOwnChange(SharedPreferences preferences, String key) {
+        final Object value = key != null ? values.remove(key) : null;
+        return value != null && isStored(preferences, key, value);
+    }
+
+    /**
+     * Checks whether provided value is stored in preferences
+     *
+     * @param preferences preferences
+     * @param key         preference key
+     * @param value       stored value or {@link #REMOVED}
+     * @return whether preferences hold the value
+     */
+    private static boolean isStored(SharedPreferences preferences, String key, Object value) {
+        if (value == REMOVED) {
+            return !preferences.contains(key);
+        }
+        if (!preferences.contains(key)) {
+            return false;
+        }
+        try {
+            if (value instanceof Integer) {
+                return value.equals(preferences.getInt(key, 0));
+            } else if (value instanceof Long) {
+                return value.equals(preferences.getLong(key, 0));
+            } else if (value instanceof Float) {
+                return value.equals(preferences.getFloat(key, 0));
+            } else if (value instanceof Boolean) {
+                return value.equals(preferences.getBoolean(key, false));
+            } else if (value instanceof String) {
+                return value.equals(preferences.getString(key, null));
+            } else if (value instanceof Set) {
+                return value.equals(preferences.getStringSet(key, null));
+            }
+        } catch (ClassCastException e) {
+            // Value of other type has been stored by another editor
+        }
+        return false;
+    }
+}
@@ -21,16 +21,64 @@ import android.os.Build;
 import android.preference.PreferenceManager;
 import android.text.TextUtils;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
  * Encrypted implementation of {@link android.content.SharedPreferences}
  */
 class SecurePreferences {
+    private static final String TAG = SecurePreferences.class.getSimpleName();
     private final SharedPreferences sharedPreferences;
-    private final ICipher cipher;
+    /**
+     * Prefix of values encrypted with a key of non-zero version, followed by the version
+     * and a separator
+     */
+    private static final char KEY_VERSION_TAG = '\uE002';
+    private static final char KEY_VERSION_SEPARATOR = ':';
+    /**
+     * Reserved preference keeping version of the key used for encryption, stored unencrypted
+     * and hidden from snapshots and listeners
+     */
+    private static final String KEY_VERSION_PREFERENCE = KEY_VERSION_TAG + "key_version";
+    /**
+     * Key version which hasn't been restored from preferences yet
+     */
+    private static final int UNKNOWN_KEY_VERSION = -1;
+    /**
+     * Ciphers by key version. Values encrypted with key of version 0 are not tagged.
+     */
+    private final Map<Integer, ICipher> ciphers = new ConcurrentHashMap<>();
+    /**
+     * Version of the key used for encryption, restored from preferences on first use, so
+     * creating preferences doesn't wait for them to be loaded
+     */
+    private final AtomicInteger keyVersion = new AtomicInteger(UNKNOWN_KEY_VERSION);
+    /**
+     * Lock making commits atomic with respect to re-encryption batches
+     */
+    private final Object commitLock = new Object();
+    /**
+     * Encrypted members of string sets mapped to their plain values, by preference key. Used to
+     * avoid decrypting known members on read and re-encrypting unchanged members on write.
+     */
+    private final Map<String, Map<String, String>> stringSetMembers =
+            new ConcurrentHashMap<>();
+    /**
+     * Last decrypted string values along with their encrypted form, by preference key, in
+     * access order. Null unless enabled with {@link #setDecryptedValuesCacheSize(int)}, so
+     * plain values are not kept in memory by default.
+     */
+    private volatile Map<String, Decrypted> decryptedValues;
 
     /**
      * Constructor.
@@ -40,7 +88,7 @@ class SecurePreferences {
      */
     public SecurePreferences(Context context, ICipher cipher) {
         this.sharedPreferences = PreferenceManager.getDefaultSharedPreferences(context);
-        this.cipher = cipher;
+        ciphers.put(0, cipher);
     }
 
     /**
@@ -52,14 +100,14 @@ class SecurePreferences {
      */
     public SecurePreferences(Context context, ICipher cipher, String fileName) {
         this.sharedPreferences = context.getSharedPreferences(fileName, Context.MODE_PRIVATE);
-        this.cipher = cipher;
+        ciphers.put(0, cipher);
     }
 
 
     public String getString(String key, String defaultValue) throws PropertyEncryptionException {
         final String encryptedValue = sharedPreferences.getString(
                 key, null);
-        return (encryptedValue != null) ? decrypt(encryptedValue) : defaultValue;
+        return (encryptedValue != null) ? decrypt(key, encryptedValue) : defaultValue;
     }
 
     public Set<String> getStringSet(String key, Set<String> defaultValues) throws PropertyEncryptionException {
@@ -68,11 +116,30 @@ class SecurePreferences {
         if (encryptedSet == null) {
             return defaultValues;
         }
-        final Set<String> decryptedSet = new HashSet<>(encryptedSet.size());
+        return decryptStringSet(key, encryptedSet);
+    }
+
+    /**
+     * Decrypts members of string set, reusing already known plain values
+     *
+     * @param key          preference key
+     * @param encryptedSet encrypted members
+     * @return decrypted set
+     * @throws PropertyEncryptionException when decryption failed
+     */
+    private Set<String> decryptStringSet(String key, Set<String> encryptedSet)
+            throws PropertyEncryptionException {
+        final Map<String, String> knownMembers = stringSetMembers.get(key);
+        final Map<String, String> members = new HashMap<>(encryptedSet.size());
         for (String encryptedValue : encryptedSet) {
-            decryptedSet.add(decrypt(encryptedValue));
+            String value = knownMembers != null ? knownMembers.get(encryptedValue) : null;
+            if (value == null) {
+                value = decryptValue(key, encryptedValue);
+            }
+            members.put(encryptedValue, value);
         }
-        return decryptedSet;
+        stringSetMembers.put(key, Collections.unmodifiableMap(members));
+        return new HashSet<>(members.values());
     }
 
     public int getInt(String key, int defaultValue) throws PropertyEncryptionException {
@@ -81,7 +148,7 @@ class SecurePreferences {
             return defaultValue;
         }
 
-        return Integer.parseInt(decrypt(encryptedValue));
+        return Integer.parseInt(decrypt(key, encryptedValue));
     }
 
     public long getLong(String key, long defaultValue) throws PropertyEncryptionException {
@@ -91,7 +158,7 @@ class SecurePreferences {
             return defaultValue;
         }
 
-        return Long.parseLong(decrypt(encryptedValue));
+        return Long.parseLong(decrypt(key, encryptedValue));
     }
 
     public float getFloat(String key, float defaultValue) throws PropertyEncryptionException {
@@ -100,7 +167,7 @@ class SecurePreferences {
             return defaultValue;
         }
 
-        return Float.parseFloat(decrypt(encryptedValue));
+        return Float.parseFloat(decrypt(key, encryptedValue));
     }
 
     public boolean getBoolean(String key, boolean defaultValue) throws PropertyEncryptionException {
@@ -109,7 +176,7 @@ class SecurePreferences {
             return defaultValue;
         }
 
-        return Boolean.parseBoolean(decrypt(encryptedValue));
+        return Boolean.parseBoolean(decrypt(key, encryptedValue));
     }
 
     public boolean contains(String key) {
@@ -120,30 +187,415 @@ class SecurePreferences {
         return new Editor();
     }
 
-    private String encrypt(String cleartext) throws PropertyEncryptionException {
+    /**
+     * Returns immutable view of current preferences. Values are decrypted when they are read
+     * for the first time.
+     *
+     * @return preferences snapshot
+     */
+    public PropertySnapshot snapshot() {
+        final Map<String, ?> values = new HashMap<>(sharedPreferences.getAll());
+        values.remove(KEY_VERSION_PREFERENCE);
+        return new Snapshot(values);
+    }
+
+    /**
+     * Enables cache of decrypted string values, so values which haven't changed are not
+     * decrypted again when they are read
+     *
+     * @param maxSize maximum number of cached values, 0 to disable the cache
+     */
+    void setDecryptedValuesCacheSize(final int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative");
+        }
+        decryptedValues = maxSize == 0 ? null : Collections.synchronizedMap(
+                new LinkedHashMap<String, Decrypted>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, Decrypted> eldest) {
+                        return size() > maxSize;
+                    }
+                });
+    }
+
+    /**
+     * Waits until preferences are loaded and, if decrypted values are cached, decrypts all
+     * values, so they are not decrypted again when they are read
+     */
+    void preload() {
+        final Map<String, ?> values = sharedPreferences.getAll();
+        if (decryptedValues == null) {
+            return;
+        }
+        for (Map.Entry<String, ?> entry : values.entrySet()) {
+            final String key = entry.getKey();
+            try {
+                if (entry.getValue() instanceof String) {
+                    decrypt(key, (String) entry.getValue());
+                } else if (entry.getValue() instanceof Set) {
+                    @SuppressWarnings("unchecked")
+                    final Set<String> encryptedSet = (Set<String>) entry.getValue();
+                    decryptStringSet(key, encryptedSet);
+                }
+            } catch (PropertyEncryptionException e) {
+                Log.e(TAG, "Failed to decrypt preference '" + key + "', " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Registers key which can be used for decryption
+     *
+     * @param version key version
+     * @param cipher  cipher using the key
+     */
+    public void addKey(int version, ICipher cipher) {
+        ciphers.put(version, cipher);
+    }
+
+    /**
+     * Sets version of the key used for encryption of new values and stores it, so it's used
+     * after preferences are created again. Key must be registered with
+     * {@link #addKey(int, ICipher)} first.
+     *
+     * @param version key version
+     */
+    public void setKeyVersion(int version) {
+        if (!ciphers.containsKey(version)) {
+            throw new IllegalArgumentException("Unknown key version " + version);
+        }
+        synchronized (commitLock) {
+            final SharedPreferences.Editor editor = sharedPreferences.edit();
+            if (version == 0) {
+                editor.remove(KEY_VERSION_PREFERENCE);
+            } else {
+                editor.putInt(KEY_VERSION_PREFERENCE, version);
+            }
+            editor.commit();
+            keyVersion.set(version);
+        }
+    }
+
+    /**
+     * Returns version of the key used for encryption of new values
+     *
+     * @return key version
+     */
+    public int getKeyVersion() {
+        final int version = keyVersion.get();
+        if (version != UNKNOWN_KEY_VERSION) {
+            return version;
+        }
+        keyVersion.compareAndSet(UNKNOWN_KEY_VERSION,
+                sharedPreferences.getInt(KEY_VERSION_PREFERENCE, 0));
+        return keyVersion.get();
+    }
+
+    /**
+     * Checks whether provided preference is reserved for internal use
+     *
+     * @param key preference key
+     * @return whether preference is reserved
+     */
+    static boolean isReserved(String key) {
+        return KEY_VERSION_PREFERENCE.equals(key);
+    }
+
+    /**
+     * Encrypts value of provided preference with the current key. Ciphers implementing
+     * {@link IKeyBoundCipher} bind the value to the preference key.
+     *
+     * @param key       preference key
+     * @param cleartext plain value
+     * @return encrypted value
+     * @throws PropertyEncryptionException when encryption failed
+     * @throws IllegalStateException       when key of the stored version isn't registered
+     */
+    private String encrypt(String key, String cleartext) throws PropertyEncryptionException {
         if (TextUtils.isEmpty(cleartext)) {
             return cleartext;
         }
 
+        final int version = getKeyVersion();
+        final ICipher cipher = ciphers.get(version);
+        if (cipher == null) {
+            throw new IllegalStateException("Key version " + version
+                    + " is used for encryption, but it's not registered");
+        }
         try {
-            return cipher.encrypt(cleartext);
+            final String ciphertext = cipher instanceof IKeyBoundCipher
+                    ? ((IKeyBoundCipher) cipher).encrypt(cleartext, key)
+                    : cipher.encrypt(cleartext);
+            return version == 0 ? ciphertext
+                    : KEY_VERSION_TAG + Integer.toString(version) + KEY_VERSION_SEPARATOR
+                    + ciphertext;
         } catch (Exception e) {
             throw new PropertyEncryptionException(e);
         }
     }
 
-    private String decrypt(String ciphertext) throws PropertyEncryptionException {
+    /**
+     * Decrypts value of provided preference, reusing cached plain value if it hasn't changed
+     * since it was decrypted last time
+     *
+     * @param key        preference key
+     * @param ciphertext encrypted value
+     * @return decrypted value
+     * @throws PropertyEncryptionException when decryption failed
+     */
+    private String decrypt(String key, String ciphertext) throws PropertyEncryptionException {
+        final Map<String, Decrypted> cache = decryptedValues;
+        if (cache == null) {
+            return decryptValue(key, ciphertext);
+        }
+        final Decrypted known = cache.get(key);
+        if (known != null && known.ciphertext.equals(ciphertext)) {
+            return known.value;
+        }
+        final String value = decryptValue(key, ciphertext);
+        cache.put(key, new Decrypted(ciphertext, value));
+        return value;
+    }
+
+    /**
+     * Decrypts value of provided preference with the key it has been encrypted with
+     *
+     * @param key        preference key
+     * @param ciphertext encrypted value
+     * @return decrypted value
+     * @throws PropertyEncryptionException when decryption failed
+     */
+    private String decryptValue(String key, String ciphertext)
+            throws PropertyEncryptionException {
         if (TextUtils.isEmpty(ciphertext)) {
             return ciphertext;
         }
 
+        final int version = keyVersionOf(ciphertext);
+        final ICipher cipher = ciphers.get(version);
+        if (cipher == null) {
+            throw new PropertyEncryptionException("Unknown key version " + version);
+        }
+        final String secretText = version == 0 ? ciphertext
+                : ciphertext.substring(ciphertext.indexOf(KEY_VERSION_SEPARATOR) + 1);
         try {
-            return cipher.decrypt(ciphertext);
+            return cipher instanceof IKeyBoundCipher
+                    ? ((IKeyBoundCipher) cipher).decrypt(secretText, key)
+                    : cipher.decrypt(secretText);
         } catch (Exception e) {
             throw new PropertyEncryptionException(e);
         }
     }
 
+    /**
+     * Returns version of the key used to encrypt provided value
+     *
+     * @param ciphertext encrypted value
+     * @return key version
+     */
+    private static int keyVersionOf(String ciphertext) {
+        if (ciphertext.isEmpty() || ciphertext.charAt(0) != KEY_VERSION_TAG) {
+            return 0;
+        }
+        final int separator = ciphertext.indexOf(KEY_VERSION_SEPARATOR);
+        try {
+            return Integer.parseInt(ciphertext.substring(1, separator));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Checks whether provided value is encrypted with the current key
+     *
+     * @param value stored value
+     * @return whether value is encrypted with the current key
+     */
+    private boolean isCurrentKey(Object value) {
+        if (value instanceof String) {
+            final String ciphertext = (String) value;
+            return ciphertext.isEmpty() || keyVersionOf(ciphertext) == getKeyVersion();
+        }
+        if (value instanceof Set) {
+            for (Object member : (Set<?>) value) {
+                if (!isCurrentKey(member)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns keys of preferences which are not encrypted with the current key
+     *
+     * @return preference keys
+     */
+    List<String> getKeysToReencrypt() {
+        final List<String> keys = new ArrayList<>();
+        for (Map.Entry<String, ?> entry : sharedPreferences.getAll().entrySet()) {
+            if (!isCurrentKey(entry.getValue())) {
+                keys.add(entry.getKey());
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Encrypts provided preferences with the current key and commits them with a single commit.
+     * Preferences already encrypted with the current key are skipped, as well as preferences
+     * which can't be decrypted or encrypted, which are added to provided set instead.
+     *
+     * @param keys       preference keys
+     * @param failedKeys set to which keys of preferences which failed to be re-encrypted are
+     *                   added
+     * @return number of re-encrypted preferences
+     */
+    int reencrypt(List<String> keys, Set<String> failedKeys) {
+        synchronized (commitLock) {
+            final Map<String, ?> values = sharedPreferences.getAll();
+            final SharedPreferences.Editor editor = sharedPreferences.edit();
+            int count = 0;
+            for (String key : keys) {
+                final Object value = values.get(key);
+                if (isCurrentKey(value)) {
+                    continue;
+                }
+                try {
+                    if (value instanceof String) {
+                        editor.putString(key, encrypt(key, decryptValue(key, (String) value)));
+                    } else {
+                        @SuppressWarnings("unchecked")
+                        final Set<String> encryptedSet = (Set<String>) value;
+                        final Set<String> reencryptedSet = new HashSet<>(encryptedSet.size());
+                        for (String member : encryptedSet) {
+                            reencryptedSet.add(encrypt(key, decryptValue(key, member)));
+                        }
+                        editor.putStringSet(key, reencryptedSet);
+                        stringSetMembers.remove(key);
+                    }
+                    count++;
+                } catch (PropertyEncryptionException e) {
+                    Log.e(TAG, "Failed to re-encrypt preference '" + key + "', "
+                            + e.getMessage());
+                    failedKeys.add(key);
+                }
+            }
+            if (count > 0) {
+                editor.commit();
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Snapshot of encrypted preferences
+     */
+    private class Snapshot extends AbstractPropertyReader implements PropertySnapshot {
+        private final Map<String, ?> encryptedValues;
+        /**
+         * Decrypted string values by preference key
+         */
+        private final Map<String, String> values = new ConcurrentHashMap<>();
+
+        Snapshot(Map<String, ?> encryptedValues) {
+            this.encryptedValues = encryptedValues;
+        }
+
+        /**
+         * Returns decrypted string value
+         *
+         * @param key preference key
+         * @return decrypted value or null if preference doesn't exist
+         * @throws PropertyEncryptionException when decryption failed
+         */
+        private String decrypted(String key) throws PropertyEncryptionException {
+            String value = values.get(key);
+            if (value == null) {
+                final String encryptedValue = (String) encryptedValues.get(key);
+                if (encryptedValue == null) {
+                    return null;
+                }
+                value = decrypt(key, encryptedValue);
+                values.put(key, value);
+            }
+            return value;
+        }
+
+        @Override
+        public Set<String> keys() {
+            return Collections.unmodifiableSet(encryptedValues.keySet());
+        }
+
+        @Override
+        public Object getValue(String key) throws PropertyEncryptionException {
+            final Object encryptedValue = encryptedValues.get(key);
+            if (encryptedValue instanceof Set) {
+                return getStringSet(key, null);
+            }
+            return decrypted(key);
+        }
+
+        @Override
+        public boolean contains(String key) {
+            return encryptedValues.containsKey(key);
+        }
+
+        @Override
+        public int getInt(String key, int defaultValue) throws PropertyEncryptionException {
+            final String value = decrypted(key);
+            return value != null ? Integer.parseInt(value) : defaultValue;
+        }
+
+        @Override
+        public long getLong(String key, long defaultValue) throws PropertyEncryptionException {
+            final String value = decrypted(key);
+            return value != null ? Long.parseLong(value) : defaultValue;
+        }
+
+        @Override
+        public float getFloat(String key, float defaultValue)
+                throws PropertyEncryptionException {
+            final String value = decrypted(key);
+            return value != null ? Float.parseFloat(value) : defaultValue;
+        }
+
+        @Override
+        public double getDouble(String key, double defaultValue)
+                throws PropertyEncryptionException {
+            final String value = decrypted(key);
+            try {
+                return value != null ? Double.parseDouble(value) : defaultValue;
+            } catch (NumberFormatException ex) {
+                return defaultValue;
+            }
+        }
+
+        @Override
+        public boolean getBoolean(String key, boolean defaultValue)
+                throws PropertyEncryptionException {
+            final String value = decrypted(key);
+            return value != null ? Boolean.parseBoolean(value) : defaultValue;
+        }
+
+        @Override
+        public String getString(String key, String defaultValue)
+                throws PropertyEncryptionException {
+            final String value = decrypted(key);
+            return value != null ? value : defaultValue;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Set<String> getStringSet(String key, Set<String> defaultValue)
+                throws PropertyEncryptionException {
+            final Set<String> encryptedSet = (Set<String>) encryptedValues.get(key);
+            return encryptedSet != null
+                    ? Collections.unmodifiableSet(decryptStringSet(key, encryptedSet))
+                    : defaultValue;
+        }
+    }
+
     /**
      * Wrapper for Android's {@link android.content.SharedPreferences.Editor}.
      * <p/>
@@ -154,6 +606,11 @@ class SecurePreferences {
      */
     public class Editor {
         private SharedPreferences.Editor editor;
+        /**
+         * Stored values written since last commit, by key, null for removed values. Not
+         * affected by {@link #clear()}.
+         */
+        private final Map<String, Object> changes = new HashMap<>();
 
         /**
          * Constructor.
@@ -164,67 +621,138 @@ class SecurePreferences {
 
         public SecurePreferences.Editor putString(String key, String value)
                 throws PropertyEncryptionException {
-            editor.putString(key, encrypt(value));
+            put(key, encrypt(key, value));
             return this;
         }
 
+        /**
+         * Sets encrypted string set value. Members already present in the stored set are not
+         * encrypted again.
+         */
         public SecurePreferences.Editor putStringSet(String key, Set<String> values)
                 throws PropertyEncryptionException {
-            final Set<String> encryptedValues = new HashSet<>(values.size());
+            checkNotReserved(key);
+            if (values == null) {
+                editor.putStringSet(key, null);
+                changes.put(key, null);
+                stringSetMembers.remove(key);
+                return this;
+            }
+
+            final Map<String, String> knownMembers = stringSetMembers.get(key);
+            final Map<String, String> encryptedByValue = new HashMap<>();
+            if (knownMembers != null) {
+                for (Map.Entry<String, String> member : knownMembers.entrySet()) {
+                    encryptedByValue.put(member.getValue(), member.getKey());
+                }
+            }
+
+            final Map<String, String> members = new HashMap<>(values.size());
             for (String value : values) {
-                encryptedValues.add(encrypt(value));
+                String encryptedValue = encryptedByValue.get(value);
+                if (encryptedValue == null || !isCurrentKey(encryptedValue)) {
+                    encryptedValue = encrypt(key, value);
+                }
+                members.put(encryptedValue, value);
             }
-            editor.putStringSet(key, encryptedValues);
+            final Set<String> encryptedSet = new HashSet<>(members.keySet());
+            editor.putStringSet(key, encryptedSet);
+            changes.put(key, encryptedSet);
+            stringSetMembers.put(key, Collections.unmodifiableMap(members));
             return this;
         }
 
         public SecurePreferences.Editor putInt(String key, int value)
                 throws PropertyEncryptionException {
-            editor.putString(key, encrypt(Integer.toString(value)));
+            put(key, encrypt(key, Integer.toString(value)));
             return this;
         }
 
         public SecurePreferences.Editor putLong(String key, long value)
                 throws PropertyEncryptionException {
-            editor.putString(key, encrypt(Long.toString(value)));
+            put(key, encrypt(key, Long.toString(value)));
             return this;
         }
 
         public SecurePreferences.Editor putFloat(String key, float value)
                 throws PropertyEncryptionException {
-            editor.putString(key, encrypt(Float.toString(value)));
+            put(key, encrypt(key, Float.toString(value)));
             return this;
         }
 
         public SecurePreferences.Editor putBoolean(String key, boolean value)
                 throws PropertyEncryptionException {
-            editor.putString(key, encrypt(Boolean.toString(value)));
+            put(key, encrypt(key, Boolean.toString(value)));
             return this;
         }
 
+        private void put(String key, String encryptedValue) {
+            checkNotReserved(key);
+            editor.putString(key, encryptedValue);
+            changes.put(key, encryptedValue);
+        }
+
         public SecurePreferences.Editor remove(String key) {
+            checkNotReserved(key);
             editor.remove(key);
+            changes.put(key, null);
+            stringSetMembers.remove(key);
             return this;
         }
 
         public SecurePreferences.Editor clear() {
             editor.clear();
+            final int version = getKeyVersion();
+            if (version != 0) {
+                editor.putInt(KEY_VERSION_PREFERENCE, version);
+            }
+            stringSetMembers.clear();
             return this;
         }
 
+        private void checkNotReserved(String key) {
+            if (isReserved(key)) {
+                throw new IllegalArgumentException("Preference '" + key + "' is reserved");
+            }
+        }
+
+        /**
+         * Returns stored values written since last commit and starts new changes
+         *
+         * @return stored values by key, null for removed values
+         */
+        Map<String, Object> takeChanges() {
+            final Map<String, Object> taken = new HashMap<>(changes);
+            changes.clear();
+            return taken;
+        }
+
         public boolean commit() {
-            return editor.commit();
+            synchronized (commitLock) {
+                return editor.commit();
+            }
         }
 
         public void apply() {
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.GINGERBREAD) {
-                editor.apply();
+                synchronized (commitLock) {
+                    editor.apply();
+                }
             } else {
                 commit();
             }
         }
     }
 
+    /**
+     * Returns underlying preferences holding encrypted values
+     *
+     * @return underlying preferences
+     */
+    SharedPreferences getStoredPreferences() {
+        return sharedPreferences;
+    }
+
     public void registerOnSharedPreferenceChangeListener(
             final SharedPreferences.OnSharedPreferenceChangeListener listener) {
         sharedPreferences.registerOnSharedPreferenceChangeListener(listener);
@@ -234,4 +762,17 @@ class SecurePreferences {
             final SharedPreferences.OnSharedPreferenceChangeListener listener) {
         sharedPreferences.unregisterOnSharedPreferenceChangeListener(listener);
     }
+
+    /**
+     * Encrypted value along with its decrypted form
+     */
+    private static final class Decrypted {
+        final String ciphertext;
+        final String value;
+
+        Decrypted(String ciphertext, String value) {
+            this.ciphertext = ciphertext;
+            this.value = value;
+        }
+    }
 }
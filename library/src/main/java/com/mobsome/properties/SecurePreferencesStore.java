@@ -18,13 +18,27 @@ package com.mobsome.properties;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
 
 /**
  * Properties persistent store that uses {@link com.mobsome.properties.SecurePreferences} to store
  * properties values
+ * <p/>
+ * Version of the key used for encryption is stored in a reserved preference, so it's selected
+ * again when the store is created. After the key has been rotated, every new instance must
+ * register all keys which values may still be encrypted with using
+ * {@link #addKey(int, ICipher)} before properties are written, otherwise writes fail with
+ * {@link IllegalStateException}. Rotation should be started again with
+ * {@link #rotateKey(int, ICipher)} if it may not have been finished.
  */
 public class SecurePreferencesStore implements PropertyStore {
     private final SecurePreferences sharedPreferences;
@@ -42,6 +56,7 @@ public class SecurePreferencesStore implements PropertyStore {
         Preconditions.checkNotNull(cipher, "cipher must not be null");
 
         sharedPreferences = new SecurePreferences(context, cipher);
+        sharedPreferences.registerOnSharedPreferenceChangeListener(snapshotListener);
     }
 
     /**
@@ -59,6 +74,7 @@ public class SecurePreferencesStore implements PropertyStore {
         Preconditions.checkNotNull(fileName, "fileName must not be null");
 
         sharedPreferences = new SecurePreferences(context, cipher, fileName);
+        sharedPreferences.registerOnSharedPreferenceChangeListener(snapshotListener);
     }
 
     /**
@@ -69,6 +85,7 @@ public class SecurePreferencesStore implements PropertyStore {
      */
     public SecurePreferencesStore(SecurePreferences sharedPreferences) {
         this.sharedPreferences = sharedPreferences;
+        sharedPreferences.registerOnSharedPreferenceChangeListener(snapshotListener);
     }
 
     @Override
@@ -83,6 +100,134 @@ public class SecurePreferencesStore implements PropertyStore {
         return writer;
     }
 
+    @Override
+    @NonNull
+    public PropertySnapshot snapshot() {
+        return snapshots.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * If decrypted values are cached, values are also decrypted, so properties restored later
+     * don't wait for decryption.
+     *
+     * @see #setDecryptedValuesCacheSize(int)
+     */
+    @Override
+    @NonNull
+    public Future<Void> preload() {
+        return PropertyExecutors.background().submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                sharedPreferences.preload();
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Enables cache of decrypted string values, so values which haven't changed are not
+     * decrypted again when properties are restored or read from snapshots. Cached values are
+     * kept in memory as plain text, so the cache is disabled by default.
+     *
+     * @param maxSize maximum number of cached values, 0 to disable the cache
+     */
+    public void setDecryptedValuesCacheSize(int maxSize) {
+        sharedPreferences.setDecryptedValuesCacheSize(maxSize);
+    }
+
+    /**
+     * Registers key which can be used for decryption of values encrypted with it, e.g. when
+     * rotation to a newer key has been interrupted. Key used by ciphers passed to constructors
+     * has version 0.
+     *
+     * @param version key version
+     * @param cipher  cipher using the key
+     */
+    public void addKey(int version, @NonNull ICipher cipher) {
+        Preconditions.checkNotNull(cipher, "cipher must not be null");
+        sharedPreferences.addKey(version, cipher);
+    }
+
+    /**
+     * Selects registered key used for encryption of new values. Selected version is stored, so
+     * it's used by stores created later as well.
+     *
+     * @param version key version, 0 for the key used by ciphers passed to constructors
+     * @throws IllegalArgumentException when key with provided version is not registered
+     */
+    public void setKeyVersion(int version) {
+        sharedPreferences.setKeyVersion(version);
+    }
+
+    /**
+     * Returns version of the key used for encryption of new values
+     *
+     * @return key version
+     */
+    public int getKeyVersion() {
+        return sharedPreferences.getKeyVersion();
+    }
+
+    /**
+     * Starts using new key for encryption and re-encrypts stored values with it in
+     * the background. Values are tagged with the version of their key, so both old and new
+     * values are readable during rotation. If the application is restarted before rotation is
+     * finished, rotation should be started again with the same key. Values which can't be
+     * decrypted are left as they are and reported by {@link KeyRotation#getFailedKeys()}.
+     *
+     * @param version positive version of the new key, increased with every rotation
+     * @param cipher  cipher using the new key
+     * @return rotation progress handle
+     */
+    @NonNull
+    public KeyRotation rotateKey(int version, @NonNull ICipher cipher) {
+        return rotateKey(version, cipher, KeyRotation.DEFAULT_BATCH_SIZE,
+                PropertyExecutors.background());
+    }
+
+    /**
+     * Starts using new key for encryption and re-encrypts stored values with it
+     *
+     * @param version   positive version of the new key, increased with every rotation
+     * @param cipher    cipher using the new key
+     * @param batchSize maximum number of values re-encrypted with a single commit
+     * @param executor  executor on which values are re-encrypted
+     * @return rotation progress handle
+     * @see #rotateKey(int, ICipher)
+     */
+    @NonNull
+    public KeyRotation rotateKey(int version, @NonNull ICipher cipher, int batchSize,
+                                 @NonNull Executor executor) {
+        Preconditions.checkNotNull(cipher, "cipher must not be null");
+        Preconditions.checkNotNull(executor, "executor must not be null");
+        if (version <= 0) {
+            throw new IllegalArgumentException("version must be positive");
+        }
+        sharedPreferences.addKey(version, cipher);
+        sharedPreferences.setKeyVersion(version);
+        return new KeyRotation(sharedPreferences, batchSize, executor);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Version starts from 0 in every process and is increased by every commit of this store.
+     * Changes made by other editors increase it once preferences listeners are notified about
+     * them, which happens on the main thread.
+     */
+    @Override
+    public long getVersion() {
+        return journal.getVersion();
+    }
+
+    @Override
+    @Nullable
+    public Set<String> getChangedKeys(long version) {
+        return journal.getChangedKeys(version);
+    }
+
     @Override
     public void registerOnPropertyChangeListener(@NonNull OnPropertyChangeListener listener) {
         Preconditions.checkNotNull(listener, "listener must not be null");
@@ -117,7 +262,7 @@ public class SecurePreferencesStore implements PropertyStore {
     /**
      * Shared preferences properties reader
      */
-    private final PropertyReader reader = new PropertyReader() {
+    private final PropertyReader reader = new AbstractPropertyReader() {
         @Override
         public boolean contains(@NonNull String key) {
             Preconditions.checkNotNull(key, "key must not be null");
@@ -174,100 +319,164 @@ public class SecurePreferencesStore implements PropertyStore {
             Preconditions.checkNotNull(key, "key must not be null");
             return sharedPreferences.getString(key, defaultValue);
         }
+
+        @Override
+        public Set<String> getStringSet(@NonNull String key, Set<String> defaultValue)
+                throws PropertyAccessException {
+            Preconditions.checkNotNull(key, "key must not be null");
+            return sharedPreferences.getStringSet(key, defaultValue);
+        }
     };
 
     /**
      * Shared preferences value writer
      */
-    private final PropertyWriter writer = new PropertyWriter() {
-        private SecurePreferences.Editor editor;
+    private final PropertyWriter writer = new AbstractPropertyWriter() {
+        /**
+         * Editor used by the current thread
+         */
+        private final ThreadLocal<SecurePreferences.Editor> editors = new ThreadLocal<>();
 
         /**
          * Ensures that {@link PropertyWriter#edit()} has been called
+         *
+         * @return editor used by the current thread
          */
-        private void ensureInEditMode() {
+        private SecurePreferences.Editor ensureInEditMode() {
+            final SecurePreferences.Editor editor = editors.get();
             if (editor == null) {
                 throw new IllegalStateException();
             }
+            return editor;
         }
 
         @Override
         public void edit() {
-            editor = sharedPreferences.edit();
+            editors.set(sharedPreferences.edit());
         }
 
         @Override
         public void commit() {
-            ensureInEditMode();
+            final SecurePreferences.Editor editor = ensureInEditMode();
+            final Map<String, Object> committed = editor.takeChanges();
+            ownChanges.add(sharedPreferences.getStoredPreferences(), committed);
             editor.commit();
+            snapshots.invalidate();
+            if (!committed.isEmpty()) {
+                journal.record(committed.keySet());
+            }
         }
 
         @Override
         public void commitAsync() {
-            ensureInEditMode();
+            final SecurePreferences.Editor editor = ensureInEditMode();
+            final Map<String, Object> committed = editor.takeChanges();
+            ownChanges.add(sharedPreferences.getStoredPreferences(), committed);
             editor.apply();
+            snapshots.invalidate();
+            if (!committed.isEmpty()) {
+                journal.record(committed.keySet());
+            }
         }
 
         @Override
         public void writeInt(@NonNull String key, int value)
                 throws PropertyAccessException {
             Preconditions.checkNotNull(key, "key must not be null");
-            ensureInEditMode();
-            editor.putInt(key, value);
+            ensureInEditMode().putInt(key, value);
         }
 
         @Override
         public void writeLong(@NonNull String key, long value)
                 throws PropertyAccessException {
             Preconditions.checkNotNull(key, "key must not be null");
-            ensureInEditMode();
-            editor.putLong(key, value);
+            ensureInEditMode().putLong(key, value);
         }
 
         @Override
         public void writeFloat(@NonNull String key, float value)
                 throws PropertyAccessException {
             Preconditions.checkNotNull(key, "key must not be null");
-            ensureInEditMode();
-            editor.putFloat(key, value);
+            ensureInEditMode().putFloat(key, value);
         }
 
         @Override
         public void writeDouble(@NonNull String key, double value)
                 throws PropertyAccessException {
             Preconditions.checkNotNull(key, "key must not be null");
-            ensureInEditMode();
-            editor.putString(key, String.valueOf(value));
+            ensureInEditMode().putString(key, String.valueOf(value));
         }
 
         @Override
         public void writeBoolean(@NonNull String key, boolean value)
                 throws PropertyAccessException {
             Preconditions.checkNotNull(key, "key must not be null");
-            ensureInEditMode();
-            editor.putBoolean(key, value);
+            ensureInEditMode().putBoolean(key, value);
         }
 
         @Override
         public void writeString(@NonNull String key, String value)
                 throws PropertyAccessException {
             Preconditions.checkNotNull(key, "key must not be null");
-            ensureInEditMode();
-            editor.putString(key, value);
+            ensureInEditMode().putString(key, value);
+        }
+
+        @Override
+        public void writeStringSet(@NonNull String key, Set<String> value)
+                throws PropertyAccessException {
+            Preconditions.checkNotNull(key, "key must not be null");
+            ensureInEditMode().putStringSet(key, value);
         }
 
         @Override
         public void remove(@NonNull String key) {
             Preconditions.checkNotNull(key, "key must not be null");
-            ensureInEditMode();
-            editor.remove(key);
+            ensureInEditMode().remove(key);
+        }
+    };
+
+    /**
+     * Journal of changes committed by this store and made by other editors
+     */
+    private final ChangeJournal journal = new ChangeJournal();
+    /**
+     * Encrypted values committed by this store
+     */
+    private final OwnChanges ownChanges = new OwnChanges();
+    /**
+     * Latest snapshot of secure preferences
+     */
+    private final SnapshotCache snapshots = new SnapshotCache() {
+        @Override
+        @NonNull
+        PropertySnapshot create() {
+            return sharedPreferences.snapshot();
         }
     };
 
+    /**
+     * Invalidates snapshot and records change when preferences are changed by other editors
+     */
+    private final SharedPreferences.OnSharedPreferenceChangeListener snapshotListener =
+            new SharedPreferences.OnSharedPreferenceChangeListener() {
+                @Override
+                public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
+                    if (SecurePreferences.isReserved(key)
+                            || ownChanges.isOwnChange(sharedPreferences, key)) {
+                        return;
+                    }
+                    snapshots.invalidate();
+                    journal.record(Collections.singleton(key));
+                }
+            };
+
     private final SharedPreferences.OnSharedPreferenceChangeListener globalListener =
             new SharedPreferences.OnSharedPreferenceChangeListener() {
                 @Override
                 public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
+                    if (SecurePreferences.isReserved(key)) {
+                        return;
+                    }
                     final List<OnPropertyChangeListener> listenersCopy;
                     synchronized (this) {
                         listenersCopy = new ArrayList<>(listeners);
@@ -19,9 +19,17 @@ import android.content.Context;
 import android.content.SharedPreferences;
 import android.preference.PreferenceManager;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 /**
  * Properties persistent store that uses {@link android.content.SharedPreferences} to store
@@ -40,6 +48,7 @@ public class SharedPreferencesStore implements PropertyStore {
     public SharedPreferencesStore(@NonNull final Context context) {
         Preconditions.checkNotNull(context, "context must not be null");
         sharedPreferences = PreferenceManager.getDefaultSharedPreferences(context);
+        sharedPreferences.registerOnSharedPreferenceChangeListener(snapshotListener);
     }
 
     /**
@@ -53,6 +62,7 @@ public class SharedPreferencesStore implements PropertyStore {
         Preconditions.checkNotNull(context, "context must not be null");
         Preconditions.checkNotNull(fileName, "fileName must not be null");
         sharedPreferences = context.getSharedPreferences(fileName, Context.MODE_PRIVATE);
+        sharedPreferences.registerOnSharedPreferenceChangeListener(snapshotListener);
     }
 
     /**
@@ -64,6 +74,7 @@ public class SharedPreferencesStore implements PropertyStore {
     public SharedPreferencesStore(@NonNull SharedPreferences sharedPreferences) {
         Preconditions.checkNotNull(sharedPreferences, "sharedPreferences must not be null");
         this.sharedPreferences = sharedPreferences;
+        sharedPreferences.registerOnSharedPreferenceChangeListener(snapshotListener);
     }
 
     @Override
@@ -78,6 +89,42 @@ public class SharedPreferencesStore implements PropertyStore {
         return writer;
     }
 
+    @Override
+    @NonNull
+    public PropertySnapshot snapshot() {
+        return snapshots.get();
+    }
+
+    @Override
+    @NonNull
+    public Future<Void> preload() {
+        return PropertyExecutors.background().submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                snapshots.get();
+                return null;
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Version starts from 0 in every process and is increased by every commit of this store.
+     * Changes made by other editors increase it once preferences listeners are notified about
+     * them, which happens on the main thread.
+     */
+    @Override
+    public long getVersion() {
+        return journal.getVersion();
+    }
+
+    @Override
+    @Nullable
+    public Set<String> getChangedKeys(long version) {
+        return journal.getChangedKeys(version);
+    }
+
     @Override
     public void registerOnPropertyChangeListener(@NonNull OnPropertyChangeListener listener) {
         Preconditions.checkNotNull(listener, "listener must not be null");
@@ -112,7 +159,7 @@ public class SharedPreferencesStore implements PropertyStore {
     /**
      * Shared preferences properties reader
      */
-    private final PropertyReader reader = new PropertyReader() {
+    private final PropertyReader reader = new AbstractPropertyReader() {
         @Override
         public boolean contains(@NonNull String key) {
             Preconditions.checkNotNull(key, "key must not be null");
@@ -163,90 +210,182 @@ public class SharedPreferencesStore implements PropertyStore {
             Preconditions.checkNotNull(key, "key must not be null");
             return sharedPreferences.getString(key, defaultValue);
         }
+
+        @Override
+        public Set<String> getStringSet(@NonNull String key, Set<String> defaultValue) {
+            Preconditions.checkNotNull(key, "key must not be null");
+            return sharedPreferences.getStringSet(key, defaultValue);
+        }
     };
 
     /**
      * Shared preferences value writer
      */
-    private final PropertyWriter writer = new PropertyWriter() {
-        private SharedPreferences.Editor editor;
+    private final PropertyWriter writer = new AbstractPropertyWriter() {
+        /**
+         * Editor used by the current thread
+         */
+        private final ThreadLocal<SharedPreferences.Editor> editors = new ThreadLocal<>();
+        /**
+         * Values written by the current thread, by key
+         */
+        private final ThreadLocal<Map<String, Object>> changes = new ThreadLocal<>();
 
         /**
          * Ensures that {@link PropertyWriter#edit()} has been called
+         *
+         * @return editor used by the current thread
          */
-        private void ensureInEditMode() {
+        private SharedPreferences.Editor ensureInEditMode() {
+            final SharedPreferences.Editor editor = editors.get();
             if (editor == null) {
                 throw new IllegalStateException();
             }
+            return editor;
+        }
+
+        /**
+         * Remembers value written by the current thread
+         *
+         * @param key   preference key
+         * @param value stored value, null if removed
+         */
+        private void changed(String key, Object value) {
+            changes.get().put(key, value);
+        }
+
+        /**
+         * Returns values written by the current thread and starts new changes
+         *
+         * @return values written by the current thread
+         */
+        private Map<String, Object> takeChanges() {
+            final Map<String, Object> current = changes.get();
+            changes.set(new HashMap<String, Object>());
+            return current;
         }
 
         @Override
         public void edit() {
-            editor = sharedPreferences.edit();
+            editors.set(sharedPreferences.edit());
+            changes.set(new HashMap<String, Object>());
         }
 
         @Override
         public void commit() {
-            ensureInEditMode();
+            final SharedPreferences.Editor editor = ensureInEditMode();
+            final Map<String, Object> committed = takeChanges();
+            ownChanges.add(sharedPreferences, committed);
             editor.commit();
+            snapshots.invalidate();
+            if (!committed.isEmpty()) {
+                journal.record(committed.keySet());
+            }
         }
 
         @Override
         public void commitAsync() {
-            ensureInEditMode();
+            final SharedPreferences.Editor editor = ensureInEditMode();
+            final Map<String, Object> committed = takeChanges();
+            ownChanges.add(sharedPreferences, committed);
             editor.apply();
+            snapshots.invalidate();
+            if (!committed.isEmpty()) {
+                journal.record(committed.keySet());
+            }
         }
 
         @Override
         public void writeInt(@NonNull String key, int value) {
             Preconditions.checkNotNull(key, "key must not be null");
-            ensureInEditMode();
-            editor.putInt(key, value);
+            ensureInEditMode().putInt(key, value);
+            changed(key, value);
         }
 
         @Override
         public void writeLong(@NonNull String key, long value) {
             Preconditions.checkNotNull(key, "key must not be null");
-            ensureInEditMode();
-            editor.putLong(key, value);
+            ensureInEditMode().putLong(key, value);
+            changed(key, value);
         }
 
         @Override
         public void writeFloat(@NonNull String key, float value) {
             Preconditions.checkNotNull(key, "key must not be null");
-            ensureInEditMode();
-            editor.putFloat(key, value);
+            ensureInEditMode().putFloat(key, value);
+            changed(key, value);
         }
 
         @Override
         public void writeDouble(@NonNull String key, double value) {
             Preconditions.checkNotNull(key, "key must not be null");
-            ensureInEditMode();
-            editor.putString(key, String.valueOf(value));
+            ensureInEditMode().putString(key, String.valueOf(value));
+            changed(key, String.valueOf(value));
         }
 
         @Override
         public void writeBoolean(@NonNull String key, boolean value) {
             Preconditions.checkNotNull(key, "key must not be null");
-            ensureInEditMode();
-            editor.putBoolean(key, value);
+            ensureInEditMode().putBoolean(key, value);
+            changed(key, value);
         }
 
         @Override
         public void writeString(@NonNull String key, String value) {
             Preconditions.checkNotNull(key, "key must not be null");
-            ensureInEditMode();
-            editor.putString(key, value);
+            ensureInEditMode().putString(key, value);
+            changed(key, value);
+        }
+
+        @Override
+        public void writeStringSet(@NonNull String key, Set<String> value) {
+            Preconditions.checkNotNull(key, "key must not be null");
+            ensureInEditMode().putStringSet(key, value);
+            changed(key, value == null ? null : new HashSet<>(value));
         }
 
         @Override
         public void remove(@NonNull String key) {
             Preconditions.checkNotNull(key, "key must not be null");
-            ensureInEditMode();
-            editor.remove(key);
+            ensureInEditMode().remove(key);
+            changed(key, null);
         }
     };
 
+    /**
+     * Journal of changes committed by this store and made by other editors
+     */
+    private final ChangeJournal journal = new ChangeJournal();
+    /**
+     * Values committed by this store
+     */
+    private final OwnChanges ownChanges = new OwnChanges();
+    /**
+     * Latest snapshot of shared preferences
+     */
+    private final SnapshotCache snapshots = new SnapshotCache() {
+        @Override
+        @NonNull
+        PropertySnapshot create() {
+            return new MapPropertySnapshot(new HashMap<>(sharedPreferences.getAll()));
+        }
+    };
+
+    /**
+     * Invalidates snapshot and records change when preferences are changed by other editors
+     */
+    private final SharedPreferences.OnSharedPreferenceChangeListener snapshotListener =
+            new SharedPreferences.OnSharedPreferenceChangeListener() {
+                @Override
+                public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
+                    if (ownChanges.isOwnChange(sharedPreferences, key)) {
+                        return;
+                    }
+                    snapshots.invalidate();
+                    journal.record(Collections.singleton(key));
+                }
+            };
+
     private final SharedPreferences.OnSharedPreferenceChangeListener globalListener =
             new SharedPreferences.OnSharedPreferenceChangeListener() {
                 @Override
@@ -0,0 +1,160 @@
+package com.mobsome.properties;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Set;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link CachingPropertyStore}
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class CachingPropertyStoreTest {
+    private PropertyStore delegate;
+
+    @Before
+    public void setup() throws Exception {
+        delegate = new SharedPreferencesStore(RuntimeEnvironment.application, "cached");
+    }
+
+    @Test
+    public void testWriteThrough() throws Exception {
+        final CachingPropertyStore store = new CachingPropertyStore(delegate);
+        final Properties.IntProperty intProperty =
+                new Properties.IntProperty("int_prop", 0, store);
+        final Properties.StringProperty stringProperty =
+                new Properties.StringProperty("string_prop", "default", store);
+        intProperty.set(5);
+        stringProperty.set("value");
+
+        assertEquals(5, store.getReader().getInt("int_prop", 0));
+        assertEquals("value", store.getReader().getString("string_prop", null));
+        assertEquals(5, delegate.getReader().getInt("int_prop", 0));
+        assertFalse(store.getReader().contains("missing_prop"));
+    }
+
+    @Test
+    public void testInvalidationByDelegateChange() throws Exception {
+        final CachingPropertyStore store = new CachingPropertyStore(delegate);
+        assertEquals(0, store.getReader().getLong("long_prop", 0));
+
+        final PropertyWriter writer = delegate.getWriter();
+        writer.edit();
+        writer.writeLong("long_prop", 10);
+        writer.commit();
+
+        assertTrue(store.getReader().contains("long_prop"));
+        assertEquals(10, store.getReader().getLong("long_prop", 0));
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        final CachingPropertyStore store = new CachingPropertyStore(delegate, 10);
+        final PropertyWriter writer = store.getWriter();
+        writer.edit();
+        for (int i = 0; i < 100; i++) {
+            writer.writeInt("int_prop_" + i, i);
+        }
+        writer.commit();
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, store.getReader().getInt("int_prop_" + i, -1));
+        }
+        assertTrue(store.getCachedCount() <= 10);
+    }
+
+    @Test
+    public void testDelegateIsListenedToOnlyWhileNeeded() throws Exception {
+        final ListenerCountingStore counting = new ListenerCountingStore(delegate);
+        final CachingPropertyStore store = new CachingPropertyStore(counting);
+        assertEquals(0, counting.listeners);
+
+        assertEquals(0, store.getReader().getInt("int_prop", 0));
+        assertEquals(1, counting.listeners);
+
+        final OnPropertyChangeListener listener = new OnPropertyChangeListener() {
+            @Override
+            public void onPropertyChanged(@NonNull PropertyStore propertyStore,
+                    @NonNull String key) {
+            }
+        };
+        store.registerOnPropertyChangeListener(listener);
+        store.invalidate();
+        assertEquals(1, counting.listeners);
+
+        store.unregisterOnPropertyChangeListener(listener);
+        assertEquals(0, counting.listeners);
+        assertEquals(0, store.getCachedCount());
+    }
+
+    /**
+     * Store counting listeners registered in underlying store
+     */
+    private static final class ListenerCountingStore implements PropertyStore {
+        private final PropertyStore store;
+        int listeners;
+
+        ListenerCountingStore(PropertyStore store) {
+            this.store = store;
+        }
+
+        @Override
+        @NonNull
+        public PropertyReader getReader() {
+            return store.getReader();
+        }
+
+        @Override
+        @NonNull
+        public PropertyWriter getWriter() {
+            return store.getWriter();
+        }
+
+        @Override
+        @NonNull
+        public PropertySnapshot snapshot() {
+            return store.snapshot();
+        }
+
+        @Override
+        @NonNull
+        public Future<Void> preload() {
+            return store.preload();
+        }
+
+        @Override
+        public long getVersion() {
+            return store.getVersion();
+        }
+
+        @Override
+        public Set<String> getChangedKeys(long version) {
+            return store.getChangedKeys(version);
+        }
+
+        @Override
+        public void registerOnPropertyChangeListener(@NonNull OnPropertyChangeListener listener) {
+            listeners++;
+            store.registerOnPropertyChangeListener(listener);
+        }
+
+        @Override
+        public void unregisterOnPropertyChangeListener(
+                @NonNull OnPropertyChangeListener listener) {
+            listeners--;
+            store.unregisterOnPropertyChangeListener(listener);
+        }
+    }
+}
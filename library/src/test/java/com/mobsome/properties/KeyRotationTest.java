@@ -0,0 +1,117 @@
+package com.mobsome.properties;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link KeyRotation}
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class KeyRotationTest {
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private SecurePreferencesStore store;
+
+    private static ICipher prefixCipher(final String prefix) {
+        return new ICipher() {
+            @Override
+            public String encrypt(String plainText) {
+                return prefix + plainText;
+            }
+
+            @Override
+            public String decrypt(String secretText) {
+                if (!secretText.startsWith(prefix)) {
+                    throw new IllegalArgumentException("wrong key");
+                }
+                return secretText.substring(prefix.length());
+            }
+        };
+    }
+
+    @Before
+    public void setup() throws Exception {
+        store = new SecurePreferencesStore(RuntimeEnvironment.application,
+                prefixCipher("old:"), "rotation");
+        final PropertyWriter writer = store.getWriter();
+        writer.edit();
+        for (int i = 0; i < 7; i++) {
+            writer.writeInt("int_prop_" + i, i);
+        }
+        writer.writeString("string_prop", "value");
+        writer.commit();
+    }
+
+    @Test
+    public void testRotation() throws Exception {
+        final KeyRotation rotation = store.rotateKey(1, prefixCipher("new:"), 3, DIRECT_EXECUTOR);
+        rotation.getFuture().get();
+
+        assertTrue(rotation.isFinished());
+        assertEquals(8, rotation.getRotatedCount());
+        assertEquals(5, store.getReader().getInt("int_prop_5", 0));
+        assertEquals("value", store.getReader().getString("string_prop", null));
+
+        final SecurePreferencesStore reopened = new SecurePreferencesStore(
+                RuntimeEnvironment.application, prefixCipher("unused:"), "rotation");
+        reopened.addKey(1, prefixCipher("new:"));
+        assertEquals(1, reopened.getKeyVersion());
+        assertEquals(5, reopened.getReader().getInt("int_prop_5", 0));
+        assertTrue(reopened.snapshot().keys().contains("string_prop"));
+        assertEquals(8, reopened.snapshot().keys().size());
+
+        final PropertyWriter writer = reopened.getWriter();
+        writer.edit();
+        writer.writeString("string_prop", "changed");
+        writer.commit();
+        assertEquals(1, reopened.getKeyVersion());
+        assertTrue(reopened.rotateKey(1, prefixCipher("new:"), 3, DIRECT_EXECUTOR)
+                .getFailedKeys().isEmpty());
+        assertEquals("changed", reopened.getReader().getString("string_prop", null));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testWritingWithUnregisteredKeyFails() throws Exception {
+        store.rotateKey(1, prefixCipher("new:"), 3, DIRECT_EXECUTOR).getFuture().get();
+
+        final SecurePreferencesStore reopened = new SecurePreferencesStore(
+                RuntimeEnvironment.application, prefixCipher("old:"), "rotation");
+        final PropertyWriter writer = reopened.getWriter();
+        writer.edit();
+        writer.writeString("string_prop", "changed");
+    }
+
+    @Test
+    public void testUndecryptableValuesAreSkipped() throws Exception {
+        RuntimeEnvironment.application.getSharedPreferences("rotation", 0).edit()
+                .putString("unknown_key", "other:value")
+                .putString("untagged", "\uE002x:value")
+                .commit();
+
+        final KeyRotation rotation = store.rotateKey(1, prefixCipher("new:"), 3, DIRECT_EXECUTOR);
+        rotation.getFuture().get();
+
+        assertTrue(rotation.isFinished());
+        assertEquals(8, rotation.getRotatedCount());
+        assertEquals(new HashSet<>(Arrays.asList("unknown_key", "untagged")),
+                rotation.getFailedKeys());
+        assertEquals("value", store.getReader().getString("string_prop", null));
+    }
+}
@@ -0,0 +1,54 @@
+package com.mobsome.properties;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link LargeValuePropertyStore}
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class LargeValuePropertyStoreTest {
+    private PropertyStore sharedStore;
+    private File directory;
+    private LargeValuePropertyStore store;
+
+    @Before
+    public void setup() throws Exception {
+        sharedStore = new SharedPreferencesStore(RuntimeEnvironment.application, "large");
+        directory = new File(RuntimeEnvironment.application.getFilesDir(), "large");
+        store = new LargeValuePropertyStore(sharedStore, directory, 8);
+    }
+
+    @Test
+    public void testLargeValueStoredInFile() throws Exception {
+        final Properties.StringProperty property =
+                new Properties.StringProperty("string_prop", null, store);
+        property.set("0123456789");
+
+        assertEquals(1, directory.list().length);
+        assertTrue(sharedStore.getReader().getString("string_prop", null).length() < 10);
+        assertEquals("0123456789", store.getReader().getString("string_prop", null));
+
+        property.set("short");
+        assertEquals(0, directory.list().length);
+        assertEquals("short", sharedStore.getReader().getString("string_prop", null));
+    }
+
+    @Test
+    public void testEscapedValue() throws Exception {
+        final Properties.StringProperty property =
+                new Properties.StringProperty("string_prop", null, store);
+        property.set("\uE000blob:x");
+        assertEquals("\uE000blob:x", store.getReader().getString("string_prop", null));
+    }
+}
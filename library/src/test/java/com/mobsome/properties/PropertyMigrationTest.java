@@ -0,0 +1,125 @@
+package com.mobsome.properties;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link PropertyMigration}
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class PropertyMigrationTest {
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private PropertyStore source;
+    private PropertyStore destination;
+
+    @Before
+    public void setup() throws Exception {
+        source = new SharedPreferencesStore(RuntimeEnvironment.application, "source");
+        destination = new SecurePreferencesStore(RuntimeEnvironment.application, new ICipher() {
+            @Override
+            public String encrypt(String plainText) {
+                return new StringBuilder(plainText).reverse().toString();
+            }
+
+            @Override
+            public String decrypt(String secretText) {
+                return new StringBuilder(secretText).reverse().toString();
+            }
+        }, "destination");
+
+        final PropertyWriter writer = source.getWriter();
+        writer.edit();
+        for (int i = 0; i < 10; i++) {
+            writer.writeInt("int_prop_" + i, i);
+        }
+        writer.writeString("string_prop", "value");
+        writer.commit();
+    }
+
+    @Test
+    public void testMigration() throws Exception {
+        final PropertyMigration migration =
+                new PropertyMigration(source, destination, 3, DIRECT_EXECUTOR);
+        final Properties.IntProperty property =
+                new Properties.IntProperty("int_prop_1", 0, migration.getStore());
+        assertEquals(1, property.get().intValue());
+        property.set(100);
+
+        migration.start().get();
+
+        assertTrue(migration.isFinished());
+        assertEquals(10, migration.getMigratedCount());
+        assertEquals(100, destination.getReader().getInt("int_prop_1", 0));
+        assertEquals(9, destination.getReader().getInt("int_prop_9", 0));
+        assertEquals("value", destination.getReader().getString("string_prop", null));
+    }
+
+    @Test
+    public void testMigrationResumesFromCheckpoint() throws Exception {
+        final PropertyWriter writer = destination.getWriter();
+        writer.edit();
+        writer.writeString(PropertyMigration.PROGRESS_KEY, "int_prop_4");
+        writer.commit();
+
+        final PropertyMigration migration =
+                new PropertyMigration(source, destination, 3, DIRECT_EXECUTOR);
+        migration.start().get();
+
+        assertEquals(6, migration.getMigratedCount());
+        assertFalse(destination.getReader().contains("int_prop_4"));
+        assertEquals(5, destination.getReader().getInt("int_prop_5", 0));
+    }
+
+    @Test
+    public void testPropertyRemovedDuringMigrationIsNotMigrated() throws Exception {
+        final PropertyMigration migration =
+                new PropertyMigration(source, destination, 3, DIRECT_EXECUTOR);
+        final AtomicBoolean removed = new AtomicBoolean();
+        destination.registerOnPropertyChangeListener(new OnPropertyChangeListener() {
+            @Override
+            public void onPropertyChanged(PropertyStore store, String key) {
+                if (removed.compareAndSet(false, true)) {
+                    final PropertyWriter writer = migration.getStore().getWriter();
+                    writer.edit();
+                    writer.remove("string_prop");
+                    writer.commit();
+                }
+            }
+        });
+
+        migration.start().get();
+
+        assertTrue(removed.get());
+        assertFalse(destination.getReader().contains("string_prop"));
+        assertFalse(migration.getStore().getReader().contains("string_prop"));
+        assertEquals(10, migration.getMigratedCount());
+    }
+
+    @Test
+    public void testInternalPropertiesAreNotListed() throws Exception {
+        final PropertyMigration migration =
+                new PropertyMigration(source, destination, 3, DIRECT_EXECUTOR);
+        migration.start().get();
+
+        assertTrue(destination.getReader().contains(PropertyMigration.FINISHED_KEY));
+        assertEquals(source.snapshot().keys(), migration.getStore().snapshot().keys());
+    }
+}
@@ -9,7 +9,17 @@ import org.robolectric.RobolectricGradleTestRunner;
 import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Tests of {@link Property}
@@ -31,12 +41,218 @@ public class PropertyTest {
         assertEquals(5, sharedProperties.intProperty.get().intValue());
     }
 
+    @Test
+    public void testUpdate() throws Exception {
+        final PropertyUpdater<Integer> increment = new PropertyUpdater<Integer>() {
+            @Override
+            public Integer update(Integer value) {
+                return value + 1;
+            }
+        };
+        assertEquals(1000, sharedProperties.intProperty.update(increment).intValue());
+        assertEquals(1001, sharedProperties.intProperty.update(increment).intValue());
+        assertEquals(1001, sharedProperties.intProperty.get().intValue());
+    }
+
+    @Test
+    public void testCompareAndSet() throws Exception {
+        assertFalse(sharedProperties.intProperty.compareAndSet(5, 6));
+        assertEquals(999, sharedProperties.intProperty.get().intValue());
+        assertTrue(sharedProperties.intProperty.compareAndSet(999, 6));
+        assertEquals(6, sharedProperties.intProperty.get().intValue());
+    }
+
+    @Test
+    public void testConcurrentUpdate() throws Exception {
+        final PropertyUpdater<Integer> increment = new PropertyUpdater<Integer>() {
+            @Override
+            public Integer update(Integer value) {
+                return value + 1;
+            }
+        };
+        final Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 100; j++) {
+                        sharedProperties.intProperty.update(increment);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1399, sharedProperties.intProperty.get().intValue());
+    }
+
+    @Test
+    public void testSkipUnchangedWrite() throws Exception {
+        sharedProperties.intProperty.set(5);
+        sharedProperties.intProperty.set(5);
+        sharedProperties.intProperty.setAsync(5);
+        assertEquals(2, sharedProperties.intProperty.getSkippedWriteCount());
+        sharedProperties.intProperty.set(6);
+        assertEquals(2, sharedProperties.intProperty.getSkippedWriteCount());
+    }
+
+    @Test
+    public void testSharedObjectProperty() throws Exception {
+        assertEquals(new Point(1, 2), sharedProperties.pointProperty.get());
+        sharedProperties.pointProperty.set(new Point(-3, 40000));
+
+        final SharedPreferencesStore store =
+                new SharedPreferencesStore(RuntimeEnvironment.application);
+        final SharedProperties restored = new SharedProperties(store);
+        final Point point = restored.pointProperty.get();
+        assertEquals(new Point(-3, 40000), point);
+        assertSame(point, restored.pointProperty.get(store.snapshot()));
+    }
+
+    @Test
+    public void testSharedStringSetProperty() throws Exception {
+        assertTrue(sharedProperties.stringSetProperty.get().isEmpty());
+        assertTrue(sharedProperties.stringSetProperty.addAll(Arrays.asList("a", "b")));
+        assertFalse(sharedProperties.stringSetProperty.add("a"));
+        assertTrue(sharedProperties.stringSetProperty.remove("b"));
+
+        final SharedProperties restored = new SharedProperties(
+                new SharedPreferencesStore(RuntimeEnvironment.application));
+        assertEquals(Collections.singleton("a"), restored.stringSetProperty.get());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testStringSetPropertySnapshotIsImmutable() throws Exception {
+        sharedProperties.stringSetProperty.set(new HashSet<>(Arrays.asList("a", "b")));
+        sharedProperties.stringSetProperty.get().add("c");
+    }
+
+    @Test
+    public void testSharedCompressedStringProperty() throws Exception {
+        final StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            value.append("{\"id\":").append(i).append('}');
+        }
+        sharedProperties.compressedProperty.set(value.toString());
+
+        final PropertyStore store = new SharedPreferencesStore(RuntimeEnvironment.application);
+        assertTrue(store.getReader().getString("compressed_prop", null).length()
+                < value.length());
+        assertEquals(value.toString(), new SharedProperties(store).compressedProperty.get());
+    }
+
+    @Test
+    public void testSharedEnumProperty() throws Exception {
+        final PropertyStore store = new SharedPreferencesStore(RuntimeEnvironment.application);
+        sharedProperties.enumProperty.set(Color.GREEN);
+        assertEquals(Color.GREEN, new SharedProperties(store).enumProperty.get());
+
+        store.getWriter().edit();
+        store.getWriter().writeString("enum_prop", "PURPLE");
+        store.getWriter().commit();
+        assertEquals(Color.RED, new SharedProperties(store).enumProperty.get());
+    }
+
+    @Test
+    public void testSharedCodedEnumProperty() throws Exception {
+        final PropertyStore store = new SharedPreferencesStore(RuntimeEnvironment.application);
+        store.getWriter().edit();
+        store.getWriter().writeString("coded_enum_prop", "GREEN");
+        store.getWriter().commit();
+        assertEquals(Color.GREEN, new SharedProperties(store).codedEnumProperty.get());
+
+        sharedProperties.codedEnumProperty.set(Color.BLUE);
+        assertEquals(30, store.getReader().getInt("coded_enum_prop", 0));
+        assertEquals(Color.BLUE, new SharedProperties(store).codedEnumProperty.get());
+
+        store.getWriter().edit();
+        store.getWriter().writeInt("coded_enum_prop", 40);
+        store.getWriter().commit();
+        assertEquals(Color.RED, new SharedProperties(store).codedEnumProperty.get());
+    }
+
+    @Test
+    public void testSnapshot() throws Exception {
+        final PropertyStore store = new SharedPreferencesStore(RuntimeEnvironment.application);
+        final SharedProperties properties = new SharedProperties(store);
+        properties.intProperty.set(1);
+        final PropertySnapshot snapshot = store.snapshot();
+        assertSame(snapshot, store.snapshot());
+
+        properties.intProperty.set(2);
+        assertEquals(1, properties.intProperty.get(snapshot).intValue());
+        assertEquals(2, properties.intProperty.get(store.snapshot()).intValue());
+        assertEquals(Collections.singleton("int_prop"), snapshot.keys());
+    }
+
     private class SharedProperties extends PropertiesGroup {
         private Properties.IntProperty intProperty;
+        private Properties.ObjectProperty<Point> pointProperty;
+        private Properties.StringSetProperty stringSetProperty;
+        private Properties.StringProperty compressedProperty;
+        private Properties.EnumProperty<Color> enumProperty;
+        private Properties.EnumProperty<Color> codedEnumProperty;
 
         public SharedProperties(PropertyStore store) {
             super(store);
             intProperty = createProperty("int_prop", 999);
+            pointProperty = createProperty("point_prop", new Point(1, 2), new PointCodec());
+            stringSetProperty = createProperty("string_set_prop",
+                    Collections.<String>emptySet());
+            compressedProperty = createCompressedProperty("compressed_prop", null);
+            enumProperty = createProperty("enum_prop", Color.RED);
+            codedEnumProperty = createProperty("coded_enum_prop", Color.RED,
+                    Properties.EnumProperty.Storage.CODE);
+        }
+    }
+
+    private enum Color implements CodedEnum {
+        RED(10), GREEN(20), BLUE(30);
+
+        private final int code;
+
+        Color(int code) {
+            this.code = code;
+        }
+
+        @Override
+        public int getCode() {
+            return code;
+        }
+    }
+
+    private static class Point {
+        final int x;
+        final int y;
+
+        Point(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Point && ((Point) o).x == x && ((Point) o).y == y;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * x + y;
+        }
+    }
+
+    private static class PointCodec extends BinaryPropertyCodec<Point> {
+        @Override
+        protected void write(DataOutput output, Point value) throws IOException {
+            output.writeInt(value.x);
+            output.writeInt(value.y);
+        }
+
+        @Override
+        protected Point read(DataInput input) throws IOException {
+            return new Point(input.readInt(), input.readInt());
         }
     }
 }
@@ -0,0 +1,71 @@
+package com.mobsome.properties;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of cache of decrypted values of {@link SecurePreferencesStore}
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class SecurePreferencesStoreTest {
+    private final AtomicInteger decryptions = new AtomicInteger();
+
+    private final ICipher countingCipher = new ICipher() {
+        @Override
+        public String encrypt(String plainText) {
+            return new StringBuilder(plainText).reverse().toString();
+        }
+
+        @Override
+        public String decrypt(String secretText) {
+            decryptions.incrementAndGet();
+            return new StringBuilder(secretText).reverse().toString();
+        }
+    };
+
+    @Test
+    public void testDecryptedValuesAreNotCachedByDefault() throws Exception {
+        final SecurePreferencesStore store = new SecurePreferencesStore(
+                RuntimeEnvironment.application, countingCipher, "not_cached");
+        write(store, "string_prop", "value");
+
+        store.preload().get();
+        assertEquals(0, decryptions.get());
+        assertEquals("value", store.getReader().getString("string_prop", null));
+        assertEquals("value", store.getReader().getString("string_prop", null));
+        assertEquals(2, decryptions.get());
+    }
+
+    @Test
+    public void testCacheOfDecryptedValuesIsBounded() throws Exception {
+        final SecurePreferencesStore store = new SecurePreferencesStore(
+                RuntimeEnvironment.application, countingCipher, "cached");
+        store.setDecryptedValuesCacheSize(1);
+        write(store, "first_prop", "first");
+        write(store, "second_prop", "second");
+
+        assertEquals("first", store.getReader().getString("first_prop", null));
+        assertEquals("first", store.getReader().getString("first_prop", null));
+        assertEquals(1, decryptions.get());
+
+        assertEquals("second", store.getReader().getString("second_prop", null));
+        assertEquals("first", store.getReader().getString("first_prop", null));
+        assertEquals(3, decryptions.get());
+    }
+
+    private static void write(PropertyStore store, String key, String value)
+            throws Exception {
+        final PropertyWriter writer = store.getWriter();
+        writer.edit();
+        writer.writeString(key, value);
+        writer.commit();
+    }
+}
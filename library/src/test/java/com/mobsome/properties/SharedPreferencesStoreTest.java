@@ -0,0 +1,86 @@
+package com.mobsome.properties;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of change journal of {@link SharedPreferencesStore} and {@link SecurePreferencesStore}
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class SharedPreferencesStoreTest {
+    private static final ICipher REVERSE_CIPHER = new ICipher() {
+        @Override
+        public String encrypt(String plainText) {
+            return new StringBuilder(plainText).reverse().toString();
+        }
+
+        @Override
+        public String decrypt(String secretText) {
+            return new StringBuilder(secretText).reverse().toString();
+        }
+    };
+
+    @Test
+    public void testCommitIsRecordedAsSingleVersion() throws Exception {
+        verifyJournal(new SharedPreferencesStore(RuntimeEnvironment.application, "journal"),
+                "journal");
+    }
+
+    @Test
+    public void testSecureCommitIsRecordedAsSingleVersion() throws Exception {
+        verifyJournal(new SecurePreferencesStore(RuntimeEnvironment.application, REVERSE_CIPHER,
+                "secure_journal"), "secure_journal");
+    }
+
+    @Test
+    public void testExternalChangeAfterUnchangedWriteIsRecorded() throws Exception {
+        final PropertyStore store = new SharedPreferencesStore(RuntimeEnvironment.application,
+                "unchanged");
+        final PropertyWriter writer = store.getWriter();
+        for (int i = 0; i < 2; i++) {
+            writer.edit();
+            writer.writeInt("int_prop", 2);
+            writer.commit();
+        }
+
+        final long version = store.getVersion();
+        RuntimeEnvironment.application.getSharedPreferences("unchanged", 0).edit()
+                .putInt("int_prop", 1)
+                .commit();
+        RuntimeEnvironment.application.getSharedPreferences("unchanged", 0).edit()
+                .putInt("int_prop", 2)
+                .commit();
+        assertEquals(version + 2, store.getVersion());
+    }
+
+    private static void verifyJournal(PropertyStore store, String fileName) throws Exception {
+        final long version = store.getVersion();
+        final PropertyWriter writer = store.getWriter();
+        writer.edit();
+        writer.writeInt("int_prop", 1);
+        writer.writeString("string_prop", "value");
+        writer.commit();
+
+        assertEquals(version + 1, store.getVersion());
+        assertEquals(new HashSet<>(Arrays.asList("int_prop", "string_prop")),
+                store.getChangedKeys(version));
+
+        final long committedVersion = store.getVersion();
+        RuntimeEnvironment.application.getSharedPreferences(fileName, 0).edit()
+                .putString("other_prop", "value")
+                .commit();
+        assertEquals(committedVersion + 1, store.getVersion());
+        assertEquals(Collections.singleton("other_prop"),
+                store.getChangedKeys(committedVersion));
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes source of generated group. Every property is kept in a volatile field, all of them
+ * are restored together from a single store snapshot and changes are written under the group
+ * lock, so values in fields and in the store are changed in the same order.
+ */
+final class GroupWriter {
+    private static final String INDENT = "    ";
+    private final Writer writer;
+    private final String packageName;
+    private final String className;
+    private final String interfaceName;
+    private final List<PropertyModel> properties;
+
+    GroupWriter(Writer writer, String packageName, String className, String interfaceName,
+                List<PropertyModel> properties) {
+        this.writer = writer;
+        this.packageName = packageName;
+        this.className = className;
+        this.interfaceName = interfaceName;
+        this.properties = properties;
+    }
+
+    void write() throws IOException {
+        if (!packageName.isEmpty()) {
+            line(0, "package " + packageName + ";");
+            line(0, "");
+        }
+        line(0, "import com.mobsome.properties.GeneratedPropertiesGroup;");
+        line(0, "import com.mobsome.properties.PropertyAccessException;");
+        line(0, "import com.mobsome.properties.PropertyKey;");
+        line(0, "import com.mobsome.properties.PropertyReader;");
+        line(0, "import com.mobsome.properties.PropertyStore;");
+        line(0, "import com.mobsome.properties.PropertyWriter;");
+        line(0, "");
+        line(0, "import java.util.Map;");
+        line(0, "");
+        line(0, "/**");
+        line(0, " * Properties group generated from {@link " + interfaceName + "}");
+        line(0, " */");
+        line(0, "public final class " + className + " extends GeneratedPropertiesGroup");
+        line(2, "implements " + interfaceName + " {");
+        for (PropertyModel property : properties) {
+            line(1, "public static final String " + property.keyConstant() + " = "
+                    + PropertyType.STRING.literal(property.key) + ";");
+        }
+        line(0, "");
+        for (PropertyModel property : properties) {
+            line(1, "private static final PropertyKey " + property.handleConstant()
+                    + " = PropertyKey.of(" + property.keyConstant() + ");");
+        }
+        line(0, "");
+        for (PropertyModel property : properties) {
+            line(1, "private volatile " + property.type.javaName + " " + property.fieldName()
+                    + " = " + property.defaultLiteral + ";");
+        }
+        line(0, "");
+        line(1, "public " + className + "(PropertyStore store) {");
+        line(2, "super(store);");
+        line(1, "}");
+        writeRestore();
+        writeReset();
+        writeExport();
+        for (PropertyModel property : properties) {
+            writeGetter(property);
+            if (property.setter != null) {
+                writeSetter(property);
+            }
+        }
+        line(0, "}");
+    }
+
+    private void writeRestore() throws IOException {
+        line(0, "");
+        line(1, "@Override");
+        line(1, "protected void restore(PropertyReader reader) {");
+        for (PropertyModel property : properties) {
+            line(2, "try {");
+            line(3, property.fieldName() + " = reader.get" + property.type.accessorSuffix + "("
+                    + property.handleConstant() + ", " + property.defaultLiteral + ");");
+            line(2, "} catch (PropertyAccessException e) {");
+            line(3, "accessFailed(" + property.keyConstant() + ", e);");
+            line(2, "}");
+        }
+        line(1, "}");
+    }
+
+    private void writeReset() throws IOException {
+        line(0, "");
+        line(1, "@Override");
+        line(1, "protected void reset(PropertyWriter writer) {");
+        for (PropertyModel property : properties) {
+            line(2, property.fieldName() + " = " + property.defaultLiteral + ";");
+            line(2, "writer.remove(" + property.handleConstant() + ");");
+        }
+        line(1, "}");
+    }
+
+    private void writeExport() throws IOException {
+        line(0, "");
+        line(1, "@Override");
+        line(1, "protected void export(Map<String, Object> values) {");
+        for (PropertyModel property : properties) {
+            line(2, "values.put(" + property.keyConstant() + ", " + property.fieldName() + ");");
+        }
+        line(1, "}");
+    }
+
+    private void writeGetter(PropertyModel property) throws IOException {
+        line(0, "");
+        line(1, "@Override");
+        line(1, "public " + property.type.javaName + " " + property.getter + "() {");
+        line(2, "ensureRestored();");
+        line(2, "return " + property.fieldName() + ";");
+        line(1, "}");
+    }
+
+    private void writeSetter(PropertyModel property) throws IOException {
+        final String field = "this." + property.fieldName();
+        line(0, "");
+        line(1, "@Override");
+        line(1, "public void " + property.setter + "(" + property.type.javaName + " value) {");
+        line(2, "ensureRestored();");
+        line(2, "synchronized (this) {");
+        line(3, "if (" + property.type.equalsExpression(field, "value") + ") {");
+        line(4, "return;");
+        line(3, "}");
+        line(3, field + " = value;");
+        line(3, "final PropertyWriter writer = edit();");
+        line(3, "try {");
+        line(4, "writer.write" + property.type.accessorSuffix + "(" + property.handleConstant()
+                + ", value);");
+        line(3, "} catch (PropertyAccessException e) {");
+        line(4, "accessFailed(" + property.keyConstant() + ", e);");
+        line(3, "}");
+        line(3, "writer.commit();");
+        line(2, "}");
+        line(1, "}");
+    }
+
+    private void line(int indent, String text) throws IOException {
+        for (int i = 0; i < indent && !text.isEmpty(); i++) {
+            writer.write(INDENT);
+        }
+        writer.write(text);
+        writer.write('\n');
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties.processor;
+
+import com.mobsome.properties.GeneratedGroup;
+import com.mobsome.properties.GeneratedProperty;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates implementations of interfaces annotated with {@link GeneratedGroup}
+ */
+public class PropertiesProcessor extends AbstractProcessor {
+    private static final String IMPL_SUFFIX = "Impl";
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(GeneratedGroup.class.getName());
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(GeneratedGroup.class)) {
+            if (element.getKind() != ElementKind.INTERFACE) {
+                error(element, "@GeneratedGroup can only be applied to interfaces");
+                continue;
+            }
+            final TypeElement type = (TypeElement) element;
+            if (!type.getTypeParameters().isEmpty()) {
+                error(type, "@GeneratedGroup interface must not be generic");
+                continue;
+            }
+            final List<PropertyModel> properties = parseProperties(type);
+            if (properties != null) {
+                generate(type, properties);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads properties from interface methods
+     *
+     * @param type annotated interface
+     * @return properties or null if interface is not valid
+     */
+    private List<PropertyModel> parseProperties(TypeElement type) {
+        final Map<String, PropertyModel> properties = new LinkedHashMap<>();
+        final List<ExecutableElement> setters = new ArrayList<>();
+        boolean valid = true;
+        for (ExecutableElement method : ElementFilter.methodsIn(
+                processingEnv.getElementUtils().getAllMembers(type))) {
+            if (method.getEnclosingElement().getKind() != ElementKind.INTERFACE
+                    || !method.getModifiers().contains(Modifier.ABSTRACT)) {
+                continue;
+            }
+            if (method.getReturnType().getKind() == TypeKind.VOID) {
+                setters.add(method);
+                continue;
+            }
+
+            final PropertyModel property = parseGetter(method);
+            if (property == null) {
+                valid = false;
+            } else if (properties.containsKey(property.name)) {
+                error(method, "Duplicate property " + property.name);
+                valid = false;
+            } else {
+                for (PropertyModel other : properties.values()) {
+                    if (other.key.equals(property.key)) {
+                        error(method, "Key '" + property.key + "' is already used by "
+                                + other.getter + "()");
+                        valid = false;
+                    }
+                }
+                properties.put(property.name, property);
+            }
+        }
+
+        for (ExecutableElement setter : setters) {
+            final String methodName = setter.getSimpleName().toString();
+            final PropertyModel property = methodName.startsWith("set")
+                    ? properties.get(propertyName(methodName.substring(3))) : null;
+            if (property == null || setter.getParameters().size() != 1
+                    || PropertyType.of(setter.getParameters().get(0).asType()) != property.type) {
+                error(setter, "Method " + methodName + " is not a setter of any property");
+                valid = false;
+            } else {
+                property.setter = methodName;
+            }
+        }
+        return valid ? new ArrayList<>(properties.values()) : null;
+    }
+
+    /**
+     * Reads property from its getter
+     *
+     * @param getter interface getter
+     * @return property or null if getter is not valid
+     */
+    private PropertyModel parseGetter(ExecutableElement getter) {
+        final String methodName = getter.getSimpleName().toString();
+        final String name;
+        if (methodName.startsWith("get") && methodName.length() > 3) {
+            name = propertyName(methodName.substring(3));
+        } else if (methodName.startsWith("is") && methodName.length() > 2
+                && getter.getReturnType().getKind() == TypeKind.BOOLEAN) {
+            name = propertyName(methodName.substring(2));
+        } else {
+            error(getter, "Method " + methodName + " is not a getter");
+            return null;
+        }
+        if (!getter.getParameters().isEmpty()) {
+            error(getter, "Getter " + methodName + " must not have parameters");
+            return null;
+        }
+        final PropertyType type = PropertyType.of(getter.getReturnType());
+        if (type == null) {
+            error(getter, "Unsupported property type " + getter.getReturnType());
+            return null;
+        }
+
+        final GeneratedProperty annotation = getter.getAnnotation(GeneratedProperty.class);
+        String key = PropertyModel.snakeCase(name);
+        String defaultLiteral = type.defaultLiteral;
+        if (annotation != null && !annotation.key().equals(GeneratedProperty.UNSET)) {
+            key = annotation.key();
+        }
+        if (annotation != null && !annotation.defaultValue().equals(GeneratedProperty.UNSET)) {
+            try {
+                defaultLiteral = type.literal(annotation.defaultValue());
+            } catch (IllegalArgumentException e) {
+                error(getter, "Invalid default value '" + annotation.defaultValue() + "' of "
+                        + type.javaName + " property");
+                return null;
+            }
+        }
+        return new PropertyModel(name, key, type, methodName, defaultLiteral);
+    }
+
+    /**
+     * Returns property name from getter or setter name without prefix
+     *
+     * @param name method name without prefix
+     * @return property name
+     */
+    private static String propertyName(String name) {
+        if (name.length() > 1 && Character.isUpperCase(name.charAt(1))) {
+            return name;
+        }
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private void generate(TypeElement type, List<PropertyModel> properties) {
+        final PackageElement packageElement =
+                processingEnv.getElementUtils().getPackageOf(type);
+        final String packageName = packageElement.isUnnamed()
+                ? "" : packageElement.getQualifiedName().toString();
+        final String interfaceName = type.getQualifiedName().toString()
+                .substring(packageName.isEmpty() ? 0 : packageName.length() + 1);
+        final String className = interfaceName.replace('.', '_') + IMPL_SUFFIX;
+        try {
+            final JavaFileObject file = processingEnv.getFiler().createSourceFile(
+                    packageName.isEmpty() ? className : packageName + "." + className, type);
+            try (Writer writer = file.openWriter()) {
+                new GroupWriter(writer, packageName, className, interfaceName, properties)
+                        .write();
+            }
+        } catch (IOException e) {
+            error(type, "Failed to generate " + className + ", " + e.getMessage());
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties.processor;
+
+import java.util.Locale;
+
+import javax.lang.model.SourceVersion;
+
+/**
+ * Property of generated group, defined by interface getter
+ */
+final class PropertyModel {
+    /**
+     * Property name, i.e. getter name without prefix
+     */
+    final String name;
+    final String key;
+    final PropertyType type;
+    final String getter;
+    /**
+     * Java literal of default value
+     */
+    final String defaultLiteral;
+    /**
+     * Setter name or null if interface has no setter
+     */
+    String setter;
+
+    PropertyModel(String name, String key, PropertyType type, String getter,
+                  String defaultLiteral) {
+        this.name = name;
+        this.key = key;
+        this.type = type;
+        this.getter = getter;
+        this.defaultLiteral = defaultLiteral;
+    }
+
+    /**
+     * Returns name of field holding property value
+     *
+     * @return field name
+     */
+    String fieldName() {
+        return SourceVersion.isKeyword(name) ? name + "Value" : name;
+    }
+
+    /**
+     * Returns name of constant holding property key
+     *
+     * @return constant name
+     */
+    String keyConstant() {
+        return "KEY_" + snakeCase(name).toUpperCase(Locale.US);
+    }
+
+    /**
+     * Returns name of constant holding handle of property key
+     *
+     * @return constant name
+     */
+    String handleConstant() {
+        return "HANDLE_" + snakeCase(name).toUpperCase(Locale.US);
+    }
+
+    /**
+     * Converts camel case name to snake case
+     *
+     * @param name camel case name
+     * @return snake case name
+     */
+    static String snakeCase(String name) {
+        final StringBuilder result = new StringBuilder(name.length() + 4);
+        for (int i = 0; i < name.length(); i++) {
+            final char c = name.charAt(i);
+            if (Character.isUpperCase(c) && i > 0) {
+                final char previous = name.charAt(i - 1);
+                final boolean nextLower = i + 1 < name.length()
+                        && Character.isLowerCase(name.charAt(i + 1));
+                if (!Character.isUpperCase(previous) || nextLower) {
+                    result.append('_');
+                }
+            }
+            result.append(Character.toLowerCase(c));
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2016 Mobsome
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobsome.properties.processor;
+
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * Types of properties supported in generated groups
+ */
+enum PropertyType {
+    INT("int", "Int", "0") {
+        @Override
+        String literal(String value) {
+            return Integer.toString(Integer.parseInt(value));
+        }
+    },
+    LONG("long", "Long", "0L") {
+        @Override
+        String literal(String value) {
+            return Long.parseLong(value) + "L";
+        }
+    },
+    FLOAT("float", "Float", "0f") {
+        @Override
+        String literal(String value) {
+            final float parsed = Float.parseFloat(value);
+            if (Float.isNaN(parsed)) {
+                return "Float.NaN";
+            }
+            if (Float.isInfinite(parsed)) {
+                return parsed > 0 ? "Float.POSITIVE_INFINITY" : "Float.NEGATIVE_INFINITY";
+            }
+            return parsed + "f";
+        }
+
+        @Override
+        String equalsExpression(String first, String second) {
+            return "Float.floatToIntBits(" + first + ") == Float.floatToIntBits(" + second + ")";
+        }
+    },
+    DOUBLE("double", "Double", "0d") {
+        @Override
+        String literal(String value) {
+            final double parsed = Double.parseDouble(value);
+            if (Double.isNaN(parsed)) {
+                return "Double.NaN";
+            }
+            if (Double.isInfinite(parsed)) {
+                return parsed > 0 ? "Double.POSITIVE_INFINITY" : "Double.NEGATIVE_INFINITY";
+            }
+            return parsed + "d";
+        }
+
+        @Override
+        String equalsExpression(String first, String second) {
+            return "Double.doubleToLongBits(" + first + ") == Double.doubleToLongBits("
+                    + second + ")";
+        }
+    },
+    BOOLEAN("boolean", "Boolean", "false") {
+        @Override
+        String literal(String value) {
+            if (!value.equals("true") && !value.equals("false")) {
+                throw new IllegalArgumentException("Expected true or false");
+            }
+            return value;
+        }
+    },
+    STRING("String", "String", "null") {
+        @Override
+        String literal(String value) {
+            final StringBuilder literal = new StringBuilder("\"");
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    literal.append('\\').append(c);
+                } else if (c < ' ' || c > '~') {
+                    literal.append(String.format("\\u%04x", (int) c));
+                } else {
+                    literal.append(c);
+                }
+            }
+            return literal.append('"').toString();
+        }
+
+        @Override
+        String equalsExpression(String first, String second) {
+            return first + " == null ? " + second + " == null : " + first + ".equals(" + second
+                    + ")";
+        }
+    };
+
+    /**
+     * Name of the type in Java source
+     */
+    final String javaName;
+    /**
+     * Suffix of reader and writer methods for this type
+     */
+    final String accessorSuffix;
+    /**
+     * Literal of value used when no default value is provided
+     */
+    final String defaultLiteral;
+
+    PropertyType(String javaName, String accessorSuffix, String defaultLiteral) {
+        this.javaName = javaName;
+        this.accessorSuffix = accessorSuffix;
+        this.defaultLiteral = defaultLiteral;
+    }
+
+    /**
+     * Converts value written in annotation to Java literal
+     *
+     * @param value annotation value
+     * @return Java literal
+     * @throws IllegalArgumentException when value is not valid for this type
+     */
+    abstract String literal(String value);
+
+    /**
+     * Returns Java expression comparing two values of this type
+     *
+     * @param first  first value expression
+     * @param second second value expression
+     * @return comparing expression
+     */
+    String equalsExpression(String first, String second) {
+        return first + " == " + second;
+    }
+
+    /**
+     * Returns property type of provided Java type
+     *
+     * @param type Java type
+     * @return property type or null if type is not supported
+     */
+    static PropertyType of(TypeMirror type) {
+        switch (type.getKind()) {
+            case INT:
+                return INT;
+            case LONG:
+                return LONG;
+            case FLOAT:
+                return FLOAT;
+            case DOUBLE:
+                return DOUBLE;
+            case BOOLEAN:
+                return BOOLEAN;
+            case DECLARED:
+                return type.toString().equals(String.class.getName()) ? STRING : null;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.mobsome.properties.processor;
+
+import com.mobsome.properties.FilePropertyStore;
+import com.mobsome.properties.PropertiesGroup;
+import com.mobsome.properties.PropertyStore;
+import com.mobsome.properties.PropertyWriter;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link PropertiesProcessor}, compiling sources with the system Java compiler
+ */
+public class PropertiesProcessorTest {
+    private static final String SETTINGS = "package test;\n"
+            + "import com.mobsome.properties.GeneratedGroup;\n"
+            + "import com.mobsome.properties.GeneratedProperty;\n"
+            + "@GeneratedGroup\n"
+            + "public interface Settings {\n"
+            + "    @GeneratedProperty(key = \"launches\", defaultValue = \"1\")\n"
+            + "    int getLaunchCount();\n"
+            + "    void setLaunchCount(int value);\n"
+            + "    @GeneratedProperty(defaultValue = \"0.5\")\n"
+            + "    double getVolume();\n"
+            + "    boolean isPremium();\n"
+            + "    void setPremium(boolean value);\n"
+            + "    String getUserName();\n"
+            + "    void setUserName(String value);\n"
+            + "}\n";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testGeneratedGroup() throws Exception {
+        final DiagnosticCollector<JavaFileObject> diagnostics = compile("Settings", SETTINGS);
+        assertTrue(diagnostics.getDiagnostics().toString(),
+                diagnostics.getDiagnostics().isEmpty());
+
+        final ClassLoader loader = new URLClassLoader(new URL[]{folder.getRoot().toURI().toURL()},
+                getClass().getClassLoader());
+        final Class<?> impl = loader.loadClass("test.SettingsImpl");
+        assertEquals("launches", impl.getField("KEY_LAUNCH_COUNT").get(null));
+        assertEquals("user_name", impl.getField("KEY_USER_NAME").get(null));
+
+        final File file = new File(folder.getRoot(), "properties.bin");
+        final Object settings = impl.getConstructor(PropertyStore.class)
+                .newInstance(new FilePropertyStore(file));
+        assertEquals(1, impl.getMethod("getLaunchCount").invoke(settings));
+        assertEquals(0.5, impl.getMethod("getVolume").invoke(settings));
+        assertEquals(false, impl.getMethod("isPremium").invoke(settings));
+        impl.getMethod("setLaunchCount", int.class).invoke(settings, 7);
+        impl.getMethod("setUserName", String.class).invoke(settings, "john");
+
+        final Object restored = impl.getConstructor(PropertyStore.class)
+                .newInstance(new FilePropertyStore(file));
+        assertEquals(7, impl.getMethod("getLaunchCount").invoke(restored));
+        assertEquals("john", impl.getMethod("getUserName").invoke(restored));
+    }
+
+    @Test
+    public void testGeneratedGroupBulkOperations() throws Exception {
+        final DiagnosticCollector<JavaFileObject> diagnostics = compile("Settings", SETTINGS);
+        assertTrue(diagnostics.getDiagnostics().toString(),
+                diagnostics.getDiagnostics().isEmpty());
+
+        final ClassLoader loader = new URLClassLoader(new URL[]{folder.getRoot().toURI().toURL()},
+                getClass().getClassLoader());
+        final Class<?> impl = loader.loadClass("test.SettingsImpl");
+        final PropertyStore store = new FilePropertyStore(new File(folder.getRoot(), "x.bin"));
+        final PropertiesGroup settings = (PropertiesGroup) impl
+                .getConstructor(PropertyStore.class).newInstance(store);
+        impl.getMethod("setLaunchCount", int.class).invoke(settings, 7);
+
+        final Map<String, Object> values = settings.exportAll();
+        assertEquals(Arrays.asList("launches", "volume", "premium", "user_name"),
+                Arrays.asList(values.keySet().toArray()));
+        assertEquals(7, values.get("launches"));
+        assertEquals(0.5, values.get("volume"));
+
+        final PropertyWriter writer = store.getWriter();
+        writer.edit();
+        writer.writeString("user_name", "john");
+        writer.commit();
+        assertEquals(1, settings.reloadAll());
+        assertEquals("john", impl.getMethod("getUserName").invoke(settings));
+
+        settings.resetAll();
+        assertTrue(store.snapshot().keys().isEmpty());
+        assertEquals(1, impl.getMethod("getLaunchCount").invoke(settings));
+        assertEquals(null, settings.exportAll().get("user_name"));
+    }
+
+    @Test
+    public void testInvalidInterfaceIsReported() throws Exception {
+        final DiagnosticCollector<JavaFileObject> diagnostics = compile("Invalid", "package test;\n"
+                + "@com.mobsome.properties.GeneratedGroup\n"
+                + "public interface Invalid {\n"
+                + "    @com.mobsome.properties.GeneratedProperty(defaultValue = \"x\")\n"
+                + "    int getCount();\n"
+                + "    void setName(String value);\n"
+                + "}\n");
+        assertEquals(2, diagnostics.getDiagnostics().size());
+        assertFalse(new File(folder.getRoot(), "test/InvalidImpl.java").exists());
+    }
+
+    private DiagnosticCollector<JavaFileObject> compile(String name, String source)
+            throws IOException {
+        final File sourceFile = new File(folder.newFolder(), name + ".java");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(sourceFile), "UTF-8")) {
+            writer.write(source);
+        }
+
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        final StandardJavaFileManager fileManager =
+                compiler.getStandardFileManager(diagnostics, null, null);
+        final JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                Arrays.asList("-classpath", System.getProperty("java.class.path"),
+                        "-d", folder.getRoot().getPath(), "-s", folder.getRoot().getPath()),
+                null, fileManager.getJavaFileObjects(sourceFile));
+        task.setProcessors(Collections.singletonList(new PropertiesProcessor()));
+        task.call();
+        fileManager.close();
+        return diagnostics;
+    }
+}